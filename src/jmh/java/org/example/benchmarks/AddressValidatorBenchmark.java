@@ -0,0 +1,99 @@
+package org.example.benchmarks;
+
+import org.example.exceptions.InvalidCivicAddressException;
+import org.example.exceptions.InvalidPostalCodeException;
+import org.example.model.Address;
+import org.example.model.AddressValidationReport;
+import org.example.model.AddressValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link AddressValidator#isValidAddress} on a valid address and on addresses
+ * rejected by each of its two checks.
+ * <p>Rejections are reported with exceptions, so the invalid cases include the cost of
+ * creating and catching them. The import benchmarks compare checking a whole batch that
+ * way with {@link AddressValidator#validateAll}, which does not throw.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AddressValidatorBenchmark {
+
+    private static final int IMPORT_SIZE = 100_000;
+
+    private AddressValidator validator;
+    private Address valid;
+    private Address invalidCivicAddress;
+    private Address invalidPostalCode;
+    // An import with one invalid row in ten.
+    private List<Address> addressImport;
+
+    @Setup
+    public void setUp() {
+        this.validator = new AddressValidator();
+        this.valid = new Address(1, "6050 University Ave.", "Halifax", "NS", "B3H 1A5", null);
+        this.invalidCivicAddress = new Address(2, "University Avenue", "Halifax", "NS", "B3H 1A5", null);
+        this.invalidPostalCode = new Address(3, "6050 University Ave.", "Halifax", "NS", "B3H 1A", null);
+        this.addressImport = new ArrayList<>();
+        for (int i = 0; i < IMPORT_SIZE; i++) {
+            this.addressImport.add(i % 10 == 0 ? (i % 20 == 0 ? this.invalidCivicAddress : this.invalidPostalCode) : this.valid);
+        }
+    }
+
+    @Benchmark
+    public boolean validAddress() {
+        return this.validator.isValidAddress(this.valid);
+    }
+
+    @Benchmark
+    public boolean invalidCivicAddress() {
+        try {
+            return this.validator.isValidAddress(this.invalidCivicAddress);
+        } catch (InvalidCivicAddressException e) {
+            return false;
+        }
+    }
+
+    @Benchmark
+    public boolean invalidPostalCode() {
+        try {
+            return this.validator.isValidAddress(this.invalidPostalCode);
+        } catch (InvalidPostalCodeException e) {
+            return false;
+        }
+    }
+
+    @Benchmark
+    public AddressValidationReport validateAllImport() {
+        return this.validator.validateAll(this.addressImport);
+    }
+
+    @Benchmark
+    public int isValidAddressImport() {
+        int invalid = 0;
+        for (Address address : this.addressImport) {
+            try {
+                this.validator.isValidAddress(address);
+            } catch (InvalidCivicAddressException | InvalidPostalCodeException e) {
+                invalid++;
+            }
+        }
+        return invalid;
+    }
+}
@@ -0,0 +1,56 @@
+package org.example.benchmarks;
+
+import org.example.audit.BinaryAuditLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures a structured write to {@link BinaryAuditLog}, without forcing to the storage device.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuditLogBenchmark {
+
+    private Path directory;
+    private BinaryAuditLog log;
+    private long amount;
+
+    @Setup
+    public void setUp() throws IOException {
+        this.directory = Files.createTempDirectory("audit-");
+        this.log = new BinaryAuditLog(this.directory.toString());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        this.log.close();
+        try (Stream<Path> files = Files.walk(this.directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public void logEvent() {
+        this.log.logEvent("CALCULATION_SUCCESS", "CUST-1008", this.amount++);
+    }
+}
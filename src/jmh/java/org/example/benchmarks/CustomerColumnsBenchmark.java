@@ -0,0 +1,99 @@
+package org.example.benchmarks;
+
+import org.example.analytics.CustomerColumns;
+import org.example.analytics.GroupedTotals;
+import org.example.analytics.RowSelection;
+import org.example.model.Customer;
+import org.example.repository.ConcurrentInMemoryCustomerRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares analytics scans over a {@link CustomerColumns} snapshot with the same scans
+ * over a map of {@link Customer} objects.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CustomerColumnsBenchmark {
+
+    private static final LocalDate FROM = LocalDate.of(2018, 1, 1);
+    private static final LocalDate TO = LocalDate.of(2019, 12, 31);
+
+    @Param({"1000000"})
+    public int customerCount;
+
+    private Map<String, Customer> customers;
+    private CustomerColumns columns;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        ConcurrentInMemoryCustomerRepository repository = new ConcurrentInMemoryCustomerRepository();
+        this.customers = new HashMap<>();
+        for (int i = 0; i < this.customerCount; i++) {
+            Customer customer = new Customer("CUST-" + i, LocalDate.of(2015, 1, 1).plusDays(random.nextInt(3_000)), null, null, 0);
+            customer.setPoints(random.nextInt(30_000));
+            customer.setBalanceMinor(random.nextInt(1_000_000));
+            repository.save(customer);
+            this.customers.put(customer.getCustomerID(), customer);
+        }
+        this.columns = CustomerColumns.snapshot(repository);
+    }
+
+    @Benchmark
+    public long totalBalanceObjects() {
+        long sum = 0;
+        for (Customer customer : this.customers.values()) {
+            sum += customer.getBalanceMinor();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long totalBalanceColumns() {
+        return this.columns.sumBalanceMinor();
+    }
+
+    @Benchmark
+    public long cohortBalanceObjects() {
+        long sum = 0;
+        for (Customer customer : this.customers.values()) {
+            LocalDate joinedOn = customer.getJoinedOn();
+            if (customer.getPoints() >= 1_000 && !joinedOn.isBefore(FROM) && !joinedOn.isAfter(TO)) {
+                sum += customer.getBalanceMinor();
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long cohortBalanceColumns() {
+        RowSelection selection = this.columns.wherePointsBetween(1_000, Integer.MAX_VALUE)
+                .and(this.columns.whereJoinedBetween(FROM, TO));
+        return this.columns.sumBalanceMinor(selection);
+    }
+
+    @Benchmark
+    public GroupedTotals groupByJoinYearColumns() {
+        return this.columns.groupByJoinYear(this.columns.all());
+    }
+}
@@ -0,0 +1,75 @@
+package org.example.benchmarks;
+
+import org.example.repository.BinaryFileCustomerRepository;
+import org.example.repository.FileCustomerRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares loading every customer from the pipe-delimited text file with loading the
+ * same customers from the binary format.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CustomerFileLoadBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int records;
+
+    private Path textFile;
+    private Path binaryFile;
+    private FileCustomerRepository text;
+    private BinaryFileCustomerRepository binary;
+
+    @Setup
+    public void setUp() throws IOException {
+        this.textFile = Files.createTempFile("customers-", ".txt");
+        this.binaryFile = Files.createTempFile("customers-", ".bin");
+        try (BufferedWriter writer = Files.newBufferedWriter(this.textFile)) {
+            for (int i = 0; i < this.records; i++) {
+                writer.write("CUST-" + i + "|" + (i % 5_000) + "|2024-01-01|" + (i % 100_000) / 100.0);
+                writer.newLine();
+            }
+        }
+        this.text = new FileCustomerRepository(this.textFile.toString());
+        this.binary = BinaryFileCustomerRepository.convert(this.textFile.toString(), this.binaryFile.toString());
+        System.out.printf("%nText file: %d bytes, binary file: %d bytes%n", Files.size(this.textFile), Files.size(this.binaryFile));
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(this.textFile);
+        Files.deleteIfExists(this.binaryFile);
+    }
+
+    @Benchmark
+    public void loadText(Blackhole blackhole) {
+        this.text.forEach(blackhole::consume);
+    }
+
+    @Benchmark
+    public void loadBinary(Blackhole blackhole) {
+        this.binary.forEach(blackhole::consume);
+    }
+}
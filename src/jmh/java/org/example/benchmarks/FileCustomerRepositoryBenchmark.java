@@ -0,0 +1,84 @@
+package org.example.benchmarks;
+
+import org.example.model.Customer;
+import org.example.repository.FileCustomerRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link FileCustomerRepository#findById} and {@link FileCustomerRepository#save}
+ * against data files of increasing size.
+ * <p>Both operations go through the whole file, so the cost per operation is expected
+ * to grow linearly with the number of records. The largest size takes a while to set
+ * up; select the sizes to run with {@code -p records=10000,1000000}.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class FileCustomerRepositoryBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    public int records;
+
+    private Path file;
+    private FileCustomerRepository repository;
+    private String probeId;
+    private Customer probe;
+
+    @Setup
+    public void setUp() throws IOException {
+        this.file = Files.createTempFile("customers-", ".txt");
+        try (BufferedWriter writer = Files.newBufferedWriter(this.file)) {
+            for (int i = 0; i < this.records; i++) {
+                writer.write(customerId(i) + "|" + (i % 5_000) + "|2024-01-01|" + (i % 100_000) / 100.0);
+                writer.newLine();
+            }
+        }
+        this.repository = new FileCustomerRepository(this.file.toString());
+        // Look up a record in the middle of the file, so neither end is favoured.
+        this.probeId = customerId(this.records / 2);
+        this.probe = this.repository.findById(this.probeId).orElseThrow();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(this.file);
+    }
+
+    @Benchmark
+    public Optional<Customer> findById() {
+        return this.repository.findById(this.probeId);
+    }
+
+    @Benchmark
+    public Customer save() {
+        // Overwrites the same record, so the file keeps its size between invocations.
+        this.probe.setPoints(this.probe.getPoints() + 1);
+        this.repository.save(this.probe);
+        return this.probe;
+    }
+
+    private static String customerId(int i) {
+        return String.format("CUST-%08d", i);
+    }
+}
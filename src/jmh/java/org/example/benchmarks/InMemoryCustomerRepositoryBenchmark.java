@@ -0,0 +1,82 @@
+package org.example.benchmarks;
+
+import org.example.model.Customer;
+import org.example.repository.ConcurrentInMemoryCustomerRepository;
+import org.example.repository.InMemoryCustomerRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the in-memory repositories when many threads use them at once.
+ * <p>{@link InMemoryCustomerRepository} serializes every access on a single lock, so its
+ * contended benchmark measures how reads queue up behind each other. The mixed read/write
+ * load runs against {@link ConcurrentInMemoryCustomerRepository}, whose reads never block.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InMemoryCustomerRepositoryBenchmark {
+
+    private static final String[] IDS = {"C1001", "C1002"};
+    private static final int CONCURRENT_CUSTOMERS = 10_000;
+
+    private InMemoryCustomerRepository inMemory;
+    private ConcurrentInMemoryCustomerRepository concurrent;
+
+    @Setup
+    public void setUp() {
+        this.inMemory = new InMemoryCustomerRepository();
+        this.concurrent = new ConcurrentInMemoryCustomerRepository();
+        for (int i = 0; i < CONCURRENT_CUSTOMERS; i++) {
+            this.concurrent.save(new Customer("C" + i, LocalDate.of(2024, 1, 1), null, null, 100.0));
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Optional<Customer> inMemoryFindById_uncontended() {
+        return this.inMemory.findById(IDS[ThreadLocalRandom.current().nextInt(IDS.length)]);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Optional<Customer> inMemoryFindById_contended() {
+        return this.inMemory.findById(IDS[ThreadLocalRandom.current().nextInt(IDS.length)]);
+    }
+
+    @Benchmark
+    @Group("concurrentReadWrite")
+    @GroupThreads(3)
+    public Optional<Customer> concurrentFindById() {
+        return this.concurrent.findById("C" + ThreadLocalRandom.current().nextInt(CONCURRENT_CUSTOMERS));
+    }
+
+    @Benchmark
+    @Group("concurrentReadWrite")
+    @GroupThreads(1)
+    public Customer concurrentUpdate() {
+        return this.concurrent.update("C" + ThreadLocalRandom.current().nextInt(CONCURRENT_CUSTOMERS), customer -> {
+            customer.setPoints(customer.getPoints() + 1);
+            return customer;
+        });
+    }
+}
@@ -0,0 +1,70 @@
+package org.example.benchmarks;
+
+import org.example.model.Customer;
+import org.example.model.Product;
+import org.example.model.ShoppingCart;
+import org.example.repository.ConcurrentInMemoryCustomerRepository;
+import org.example.service.IAuditService;
+import org.example.service.ShoppingCartService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link ShoppingCartService#calculateTotal} for carts of different sizes.
+ * <p>The customer comes from an in-memory repository and audit records are discarded,
+ * so the figures cover the look-up, the pricing and the formatting of the audit message.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShoppingCartServiceBenchmark {
+
+    private static final String CUSTOMER_ID = "C1001";
+
+    @Param({"1", "10", "100"})
+    public int cartLines;
+
+    private ShoppingCartService service;
+
+    @Setup
+    public void setUp() {
+        ShoppingCart cart = new ShoppingCart(null);
+        for (int i = 0; i < this.cartLines; i++) {
+            cart.addProduct(new Product("Product " + i, "SN-" + i, 9.99 + i, 5, 1 + i % 3));
+        }
+        Customer customer = new Customer(CUSTOMER_ID, LocalDate.of(2024, 1, 1), cart, null, 100.0);
+        customer.setPoints(12_345);
+
+        ConcurrentInMemoryCustomerRepository repository = new ConcurrentInMemoryCustomerRepository();
+        repository.save(customer);
+        this.service = new ShoppingCartService(repository, new IAuditService() {
+            @Override
+            public void logInfo(String eventType, String message) {
+            }
+
+            @Override
+            public void logError(String eventType, String message) {
+            }
+        });
+    }
+
+    @Benchmark
+    public double calculateTotal() {
+        return this.service.calculateTotal(CUSTOMER_ID);
+    }
+}
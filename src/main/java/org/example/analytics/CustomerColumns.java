@@ -0,0 +1,376 @@
+package org.example.analytics;
+
+import org.example.model.Customer;
+import org.example.model.Money;
+import org.example.repository.ICustomerRepository;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.IntStream;
+
+/**
+ * A read-only, column-oriented snapshot of the customers of a repository, for analytics
+ * scans such as total balance, points distribution and join-date cohorts.
+ * <p>Each customer is a row. The customer IDs form a sorted dictionary, and the points,
+ * join date (as an epoch day) and balance (in minor units) are kept in one primitive
+ * array each, so a row costs 16 bytes plus its ID instead of a {@link Customer} object
+ * graph. Filters, aggregates and group-bys are plain loops over these arrays, which the
+ * JIT compiles to unrolled, vectorized code; filters produce {@link RowSelection} bitmaps
+ * that the aggregates and group-bys then take as input.</p>
+ * <p>The snapshot does not follow later changes to the repository.</p>
+ */
+public final class CustomerColumns {
+
+    // Group-bys build one slot per key between the smallest and largest key found.
+    private static final int MAX_GROUPS = 1 << 24;
+
+    private final String[] customerIds;
+    private final int[] points;
+    private final int[] joinedOn;
+    private final long[] balances;
+
+    private CustomerColumns(String[] customerIds, int[] points, int[] joinedOn, long[] balances) {
+        this.customerIds = customerIds;
+        this.points = points;
+        this.joinedOn = joinedOn;
+        this.balances = balances;
+    }
+
+    /**
+     * Scans a repository once and stores its customers in columns, sorted by customer ID.
+     * Shopping carts and addresses are not accessed.
+     *
+     * @param repository The repository to take the snapshot of.
+     * @return The snapshot.
+     */
+    public static CustomerColumns snapshot(ICustomerRepository repository) {
+        Builder builder = new Builder();
+        repository.forEach(builder::add);
+        return builder.build();
+    }
+
+    /**
+     * @return The number of customers (rows).
+     */
+    public int size() {
+        return customerIds.length;
+    }
+
+    /**
+     * Looks a customer up in the ID dictionary.
+     *
+     * @param customerId The ID of the customer to find.
+     * @return The customer's row, or a negative number if the snapshot does not hold it.
+     */
+    public int indexOf(String customerId) {
+        return Math.max(Arrays.binarySearch(this.customerIds, customerId), -1);
+    }
+
+    /**
+     * @return The customer ID of a row.
+     */
+    public String getCustomerID(int row) {
+        return customerIds[row];
+    }
+
+    /**
+     * @return The loyalty points of a row.
+     */
+    public int getPoints(int row) {
+        return points[row];
+    }
+
+    /**
+     * @return The join date of a row.
+     */
+    public LocalDate getJoinedOn(int row) {
+        return LocalDate.ofEpochDay(joinedOn[row]);
+    }
+
+    /**
+     * @return The balance of a row, in minor units.
+     */
+    public long getBalanceMinor(int row) {
+        return balances[row];
+    }
+
+    /**
+     * @return A selection of every row.
+     */
+    public RowSelection all() {
+        return RowSelection.all(this.size());
+    }
+
+    /**
+     * Selects the customers whose points lie in {@code [min, max]}.
+     *
+     * @param min The smallest number of points selected.
+     * @param max The largest number of points selected.
+     * @return The selected rows.
+     */
+    public RowSelection wherePointsBetween(int min, int max) {
+        RowSelection selection = new RowSelection(this.size());
+        long[] words = selection.words;
+        for (int w = 0; w < words.length; w++) {
+            int base = w << 6;
+            int end = Math.min(base + 64, this.points.length);
+            long word = 0;
+            for (int row = base; row < end; row++) {
+                long value = this.points[row];
+                // 1 if min <= value <= max: both differences are non-negative, so the sign bit is clear.
+                word |= ((((value - min) | (max - value)) >>> 63) ^ 1L) << row;
+            }
+            words[w] = word;
+        }
+        return selection;
+    }
+
+    /**
+     * Selects the customers who joined between two dates, both inclusive.
+     *
+     * @param from The earliest join date selected.
+     * @param to The latest join date selected.
+     * @return The selected rows.
+     */
+    public RowSelection whereJoinedBetween(LocalDate from, LocalDate to) {
+        long min = from.toEpochDay();
+        long max = to.toEpochDay();
+        RowSelection selection = new RowSelection(this.size());
+        long[] words = selection.words;
+        for (int w = 0; w < words.length; w++) {
+            int base = w << 6;
+            int end = Math.min(base + 64, this.joinedOn.length);
+            long word = 0;
+            for (int row = base; row < end; row++) {
+                long value = this.joinedOn[row];
+                word |= ((((value - min) | (max - value)) >>> 63) ^ 1L) << row;
+            }
+            words[w] = word;
+        }
+        return selection;
+    }
+
+    /**
+     * Selects the customers whose balance lies in {@code [minMinor, maxMinor]}.
+     *
+     * @param minMinor The smallest balance selected, in minor units.
+     * @param maxMinor The largest balance selected, in minor units.
+     * @return The selected rows.
+     */
+    public RowSelection whereBalanceBetween(long minMinor, long maxMinor) {
+        RowSelection selection = new RowSelection(this.size());
+        long[] words = selection.words;
+        for (int w = 0; w < words.length; w++) {
+            int base = w << 6;
+            int end = Math.min(base + 64, this.balances.length);
+            long word = 0;
+            for (int row = base; row < end; row++) {
+                long value = this.balances[row];
+                word |= (value >= minMinor && value <= maxMinor ? 1L : 0L) << row;
+            }
+            words[w] = word;
+        }
+        return selection;
+    }
+
+    /**
+     * @return The exact total balance of all customers, in minor units.
+     */
+    public long sumBalanceMinor() {
+        long sum = 0;
+        for (long balance : this.balances) {
+            sum += balance;
+        }
+        return sum;
+    }
+
+    /**
+     * @param selection The rows to add up.
+     * @return The exact total balance of the selected customers, in minor units.
+     */
+    public long sumBalanceMinor(RowSelection selection) {
+        this.checkSelection(selection);
+        long sum = 0;
+        long[] words = selection.words;
+        for (int w = 0; w < words.length; w++) {
+            long word = words[w];
+            int base = w << 6;
+            if (word == -1L) {
+                // A fully selected word: add the whole run without looking at the bits.
+                for (int row = base; row < base + 64; row++) {
+                    sum += this.balances[row];
+                }
+            } else {
+                while (word != 0) {
+                    sum += this.balances[base + Long.numberOfTrailingZeros(word)];
+                    word &= word - 1;
+                }
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * @return The total balance of all customers.
+     */
+    public double sumBalance() {
+        return Money.toMajor(this.sumBalanceMinor());
+    }
+
+    /**
+     * @return The total points of all customers.
+     */
+    public long sumPoints() {
+        long sum = 0;
+        for (int value : this.points) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    /**
+     * @param selection The rows to add up.
+     * @return The total points of the selected customers.
+     */
+    public long sumPoints(RowSelection selection) {
+        this.checkSelection(selection);
+        long sum = 0;
+        long[] words = selection.words;
+        for (int w = 0; w < words.length; w++) {
+            long word = words[w];
+            int base = w << 6;
+            if (word == -1L) {
+                for (int row = base; row < base + 64; row++) {
+                    sum += this.points[row];
+                }
+            } else {
+                while (word != 0) {
+                    sum += this.points[base + Long.numberOfTrailingZeros(word)];
+                    word &= word - 1;
+                }
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Groups the selected customers by the year they joined (cohorts).
+     *
+     * @param selection The rows to group.
+     * @return One group per year, from the earliest to the latest join year selected.
+     */
+    public GroupedTotals groupByJoinYear(RowSelection selection) {
+        this.checkSelection(selection);
+        int minDay = Integer.MAX_VALUE;
+        int maxDay = Integer.MIN_VALUE;
+        for (int row = selection.nextRow(0); row >= 0; row = selection.nextRow(row + 1)) {
+            minDay = Math.min(minDay, this.joinedOn[row]);
+            maxDay = Math.max(maxDay, this.joinedOn[row]);
+        }
+        if (minDay > maxDay) {
+            return new GroupedTotals(0, 0);
+        }
+        int firstYear = LocalDate.ofEpochDay(minDay).getYear();
+        int lastYear = LocalDate.ofEpochDay(maxDay).getYear();
+        // Maps each day between minDay and maxDay to its group, so the scan is a table look-up per row.
+        int[] groupOfDay = new int[maxDay - minDay + 1];
+        for (int year = firstYear; year <= lastYear; year++) {
+            int start = (int) Math.max(LocalDate.of(year, 1, 1).toEpochDay(), minDay);
+            int end = (int) Math.min(LocalDate.of(year, 12, 31).toEpochDay(), maxDay);
+            Arrays.fill(groupOfDay, start - minDay, end - minDay + 1, year - firstYear);
+        }
+
+        GroupedTotals totals = new GroupedTotals(firstYear, lastYear - firstYear + 1);
+        for (int row = selection.nextRow(0); row >= 0; row = selection.nextRow(row + 1)) {
+            totals.add(groupOfDay[this.joinedOn[row] - minDay], this.balances[row], this.points[row]);
+        }
+        return totals;
+    }
+
+    /**
+     * Groups the selected customers into fixed-width points buckets (the points distribution).
+     * Bucket {@code k} holds the customers with {@code k * bucketWidth <= points < (k + 1) * bucketWidth}.
+     *
+     * @param bucketWidth The number of points covered by each bucket.
+     * @param selection The rows to group.
+     * @return One group per bucket, from the lowest to the highest bucket selected.
+     */
+    public GroupedTotals groupByPoints(int bucketWidth, RowSelection selection) {
+        if (bucketWidth <= 0) {
+            throw new IllegalArgumentException("Bucket width must be positive: " + bucketWidth);
+        }
+        this.checkSelection(selection);
+        int minBucket = Integer.MAX_VALUE;
+        int maxBucket = Integer.MIN_VALUE;
+        for (int row = selection.nextRow(0); row >= 0; row = selection.nextRow(row + 1)) {
+            int bucket = Math.floorDiv(this.points[row], bucketWidth);
+            minBucket = Math.min(minBucket, bucket);
+            maxBucket = Math.max(maxBucket, bucket);
+        }
+        if (minBucket > maxBucket) {
+            return new GroupedTotals(0, 0);
+        }
+        if ((long) maxBucket - minBucket >= MAX_GROUPS) {
+            throw new IllegalArgumentException("Bucket width " + bucketWidth + " gives more than " + MAX_GROUPS + " groups");
+        }
+
+        GroupedTotals totals = new GroupedTotals(minBucket, maxBucket - minBucket + 1);
+        for (int row = selection.nextRow(0); row >= 0; row = selection.nextRow(row + 1)) {
+            totals.add(Math.floorDiv(this.points[row], bucketWidth) - minBucket, this.balances[row], this.points[row]);
+        }
+        return totals;
+    }
+
+    private void checkSelection(RowSelection selection) {
+        if (selection.size() != this.size()) {
+            throw new IllegalArgumentException("Selection over " + selection.size() + " rows used on a snapshot of " + this.size());
+        }
+    }
+
+    /**
+     * Collects the customers into growing columns, then sorts the rows by customer ID.
+     */
+    private static final class Builder {
+        private String[] customerIds = new String[1024];
+        private int[] points = new int[1024];
+        private int[] joinedOn = new int[1024];
+        private long[] balances = new long[1024];
+        private int size;
+
+        void add(Customer customer) {
+            if (this.size == this.customerIds.length) {
+                int capacity = this.size + (this.size >> 1);
+                this.customerIds = Arrays.copyOf(this.customerIds, capacity);
+                this.points = Arrays.copyOf(this.points, capacity);
+                this.joinedOn = Arrays.copyOf(this.joinedOn, capacity);
+                this.balances = Arrays.copyOf(this.balances, capacity);
+            }
+            this.customerIds[this.size] = customer.getCustomerID();
+            this.points[this.size] = customer.getPoints();
+            this.joinedOn[this.size] = Math.toIntExact(customer.getJoinedOn().toEpochDay());
+            this.balances[this.size] = customer.getBalanceMinor();
+            this.size++;
+        }
+
+        CustomerColumns build() {
+            String[] ids = this.customerIds;
+            int[] order = IntStream.range(0, this.size).boxed().parallel()
+                    .sorted(Comparator.comparing(row -> ids[row]))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+            String[] sortedIds = new String[this.size];
+            int[] sortedPoints = new int[this.size];
+            int[] sortedJoinedOn = new int[this.size];
+            long[] sortedBalances = new long[this.size];
+            for (int i = 0; i < this.size; i++) {
+                int row = order[i];
+                sortedIds[i] = ids[row];
+                sortedPoints[i] = this.points[row];
+                sortedJoinedOn[i] = this.joinedOn[row];
+                sortedBalances[i] = this.balances[row];
+            }
+            return new CustomerColumns(sortedIds, sortedPoints, sortedJoinedOn, sortedBalances);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package org.example.analytics;
+
+import org.example.model.Money;
+
+/**
+ * The result of a group-by over a {@link CustomerColumns} snapshot: the number of
+ * customers, their total balance and their total points for each group.
+ * <p>Groups are identified by consecutive integer keys, starting at {@link #getFirstKey()}
+ * (a join year, or the lower bound of a points bucket divided by its width); keys without
+ * customers are reported with a count of zero.</p>
+ */
+public final class GroupedTotals {
+
+    private final int firstKey;
+    private final long[] counts;
+    private final long[] balanceSums;
+    private final long[] pointSums;
+
+    GroupedTotals(int firstKey, int groups) {
+        this.firstKey = firstKey;
+        this.counts = new long[groups];
+        this.balanceSums = new long[groups];
+        this.pointSums = new long[groups];
+    }
+
+    void add(int group, long balanceMinor, int points) {
+        this.counts[group]++;
+        this.balanceSums[group] += balanceMinor;
+        this.pointSums[group] += points;
+    }
+
+    /**
+     * @return The number of groups.
+     */
+    public int getGroupCount() {
+        return counts.length;
+    }
+
+    /**
+     * @return The key of the first group; group {@code i} has key {@code getFirstKey() + i}.
+     */
+    public int getFirstKey() {
+        return firstKey;
+    }
+
+    /**
+     * @return The key of group {@code i}.
+     */
+    public int getKey(int i) {
+        return firstKey + i;
+    }
+
+    /**
+     * @return The number of customers in group {@code i}.
+     */
+    public long getCount(int i) {
+        return counts[i];
+    }
+
+    /**
+     * @return The total balance of the customers in group {@code i}.
+     */
+    public double getBalanceSum(int i) {
+        return Money.toMajor(balanceSums[i]);
+    }
+
+    /**
+     * @return The exact total balance of the customers in group {@code i}, in minor units.
+     */
+    public long getBalanceSumMinor(int i) {
+        return balanceSums[i];
+    }
+
+    /**
+     * @return The total points of the customers in group {@code i}.
+     */
+    public long getPointsSum(int i) {
+        return pointSums[i];
+    }
+}
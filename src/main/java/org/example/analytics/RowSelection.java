@@ -0,0 +1,148 @@
+package org.example.analytics;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A set of rows of a {@link CustomerColumns} snapshot, as produced by its filters.
+ * <p>Rows are kept in a bitmap, one bit per row, so selections over tens of millions of
+ * customers take a few megabytes and combine a word (64 rows) at a time.</p>
+ */
+public final class RowSelection {
+
+    private final int size;
+    final long[] words;
+
+    RowSelection(int size) {
+        this.size = size;
+        this.words = new long[(size + 63) >>> 6];
+    }
+
+    /**
+     * Selects every row of a snapshot.
+     *
+     * @param size The number of rows in the snapshot.
+     * @return A selection holding rows {@code 0} to {@code size - 1}.
+     */
+    static RowSelection all(int size) {
+        RowSelection selection = new RowSelection(size);
+        Arrays.fill(selection.words, -1L);
+        selection.clearTail();
+        return selection;
+    }
+
+    /**
+     * @return The number of rows in the snapshot this selection was taken from.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return The number of selected rows.
+     */
+    public int count() {
+        int count = 0;
+        for (long word : this.words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * @param row A row index.
+     * @return {@code true} if the row is selected.
+     */
+    public boolean contains(int row) {
+        return (this.words[row >>> 6] & (1L << row)) != 0;
+    }
+
+    /**
+     * @param other A selection over the same snapshot.
+     * @return A new selection holding the rows selected by both.
+     */
+    public RowSelection and(RowSelection other) {
+        RowSelection result = this.sameSizeAs(other);
+        for (int i = 0; i < this.words.length; i++) {
+            result.words[i] = this.words[i] & other.words[i];
+        }
+        return result;
+    }
+
+    /**
+     * @param other A selection over the same snapshot.
+     * @return A new selection holding the rows selected by either.
+     */
+    public RowSelection or(RowSelection other) {
+        RowSelection result = this.sameSizeAs(other);
+        for (int i = 0; i < this.words.length; i++) {
+            result.words[i] = this.words[i] | other.words[i];
+        }
+        return result;
+    }
+
+    /**
+     * @return A new selection holding the rows this one does not.
+     */
+    public RowSelection not() {
+        RowSelection result = new RowSelection(this.size);
+        for (int i = 0; i < this.words.length; i++) {
+            result.words[i] = ~this.words[i];
+        }
+        result.clearTail();
+        return result;
+    }
+
+    /**
+     * Finds the next selected row, for iterating without a lambda:
+     * {@code for (int row = selection.nextRow(0); row >= 0; row = selection.nextRow(row + 1))}.
+     *
+     * @param from The first row to consider.
+     * @return The first selected row at or after {@code from}, or -1 if there is none.
+     */
+    public int nextRow(int from) {
+        if (from >= this.size) {
+            return -1;
+        }
+        int i = from >>> 6;
+        long word = this.words[i] & (-1L << from);
+        while (word == 0) {
+            if (++i == this.words.length) {
+                return -1;
+            }
+            word = this.words[i];
+        }
+        return (i << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    /**
+     * Performs an action for every selected row, in ascending order.
+     *
+     * @param action The action to perform on each row index.
+     */
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < this.words.length; i++) {
+            long word = this.words[i];
+            while (word != 0) {
+                action.accept((i << 6) + Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+    }
+
+    private RowSelection sameSizeAs(RowSelection other) {
+        if (other.size != this.size) {
+            throw new IllegalArgumentException("Selections over different snapshots: " + this.size + " and " + other.size + " rows");
+        }
+        return new RowSelection(this.size);
+    }
+
+    /**
+     * Clears the bits past the last row, which {@link #not()} and {@link #all} would set.
+     */
+    private void clearTail() {
+        if ((this.size & 63) != 0) {
+            this.words[this.words.length - 1] &= (1L << this.size) - 1;
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package org.example.audit;
+
+import org.example.service.IAuditService;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An {@link IAuditService} that takes audit events off the caller's thread.
+ * <p>Logging an event only captures its type, a timestamp, the format string and its
+ * arguments, and publishes them to a bounded lock-free ring buffer. A dedicated writer
+ * thread drains the buffer and hands the events to an {@link IAuditSink} in batches of
+ * up to {@code maxBatchSize}; messages are formatted there, when the sink asks for them.
+ * What happens when the sink falls behind and the buffer fills up is decided by the
+ * {@link BackpressurePolicy}.</p>
+ * <p>Since formatting is deferred, arguments passed to the format variants of
+ * {@code logInfo}/{@code logError} must not be modified after the call.</p>
+ */
+public class AsyncAuditService implements IAuditService, Closeable {
+
+    private static final int DEFAULT_CAPACITY = 8_192;
+    private static final int DEFAULT_MAX_BATCH_SIZE = 256;
+    private static final int DEFAULT_SAMPLE_RATE = 16;
+
+    // How long flush() waits between checks of the writer's progress.
+    private static final long FLUSH_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+    // How long a blocked producer waits before it retries.
+    private static final long BLOCKED_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(20);
+
+    private final AuditRingBuffer<AuditEvent> buffer;
+    private final IAuditSink sink;
+    private final BackpressurePolicy policy;
+    private final int sampleRate;
+    private final int maxBatchSize;
+    private final int highWaterMark;
+    private final Thread writer;
+    private final LongAdder dropped = new LongAdder();
+    // The number of producers between their check of "closed" and the end of their offer;
+    // the writer only stops once this is zero, so no accepted event is left behind.
+    private final AtomicInteger publishing = new AtomicInteger();
+
+    private volatile boolean closed;
+    // Set while the idle writer is parked, so that producers know to unpark it.
+    private volatile boolean writerParked;
+    // The number of events handed to the sink so far; only written by the writer thread.
+    private volatile long written;
+
+    /**
+     * Creates a service with the default capacity that blocks callers when it is full.
+     *
+     * @param sink Where the events are written.
+     */
+    public AsyncAuditService(IAuditSink sink) {
+        this(sink, DEFAULT_CAPACITY, BackpressurePolicy.BLOCK);
+    }
+
+    /**
+     * Creates a service with the default batch size and sample rate.
+     *
+     * @param sink Where the events are written.
+     * @param capacity The number of events the buffer holds; rounded up to a power of two.
+     * @param policy What to do when the buffer cannot keep up.
+     */
+    public AsyncAuditService(IAuditSink sink, int capacity, BackpressurePolicy policy) {
+        this(sink, capacity, policy, DEFAULT_MAX_BATCH_SIZE, DEFAULT_SAMPLE_RATE);
+    }
+
+    /**
+     * Creates a service and starts its writer thread.
+     *
+     * @param sink Where the events are written.
+     * @param capacity The number of events the buffer holds; rounded up to a power of two.
+     * @param policy What to do when the buffer cannot keep up.
+     * @param maxBatchSize The largest number of events passed to the sink at once.
+     * @param sampleRate With {@link BackpressurePolicy#SAMPLE}, one in this many events is
+     *                   kept once the buffer is half full.
+     */
+    public AsyncAuditService(IAuditSink sink, int capacity, BackpressurePolicy policy, int maxBatchSize, int sampleRate) {
+        if (maxBatchSize < 1 || sampleRate < 1) {
+            throw new IllegalArgumentException("Batch size and sample rate must be positive");
+        }
+        this.buffer = new AuditRingBuffer<>(capacity);
+        this.sink = sink;
+        this.policy = policy;
+        this.maxBatchSize = maxBatchSize;
+        this.sampleRate = sampleRate;
+        this.highWaterMark = this.buffer.capacity() / 2;
+        this.writer = new Thread(this::writeEvents, "audit-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public void logInfo(String eventType, String message) {
+        this.publish(AuditEvent.Level.INFO, eventType, message, null);
+    }
+
+    @Override
+    public void logError(String eventType, String message) {
+        this.publish(AuditEvent.Level.ERROR, eventType, message, null);
+    }
+
+    @Override
+    public void logInfo(String eventType, String format, Object... args) {
+        this.publish(AuditEvent.Level.INFO, eventType, format, args);
+    }
+
+    @Override
+    public void logError(String eventType, String format, Object... args) {
+        this.publish(AuditEvent.Level.ERROR, eventType, format, args);
+    }
+
+    /**
+     * @return The number of events discarded by the backpressure policy or logged after
+     * the service was closed.
+     */
+    public long getDroppedCount() {
+        return this.dropped.sum();
+    }
+
+    /**
+     * Waits until every event logged before this call has been handed to the sink.
+     */
+    public void flush() {
+        long target = this.buffer.claimed();
+        while (this.written < target && this.writer.isAlive()) {
+            LockSupport.unpark(this.writer);
+            LockSupport.parkNanos(FLUSH_PARK_NANOS);
+        }
+    }
+
+    /**
+     * Writes the events still buffered, stops the writer thread and closes the sink.
+     * Events logged afterwards are dropped.
+     */
+    @Override
+    public void close() {
+        this.closed = true;
+        LockSupport.unpark(this.writer);
+        try {
+            this.writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while closing the audit service.", e);
+        }
+        try {
+            this.sink.close();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to close audit sink.", e);
+        }
+    }
+
+    private void publish(AuditEvent.Level level, String eventType, String format, Object[] args) {
+        this.publishing.incrementAndGet();
+        try {
+            this.offer(level, eventType, format, args);
+        } finally {
+            this.publishing.decrementAndGet();
+            if (this.writerParked) {
+                LockSupport.unpark(this.writer);
+            }
+        }
+    }
+
+    private void offer(AuditEvent.Level level, String eventType, String format, Object[] args) {
+        if (this.closed) {
+            this.dropped.increment();
+            return;
+        }
+        if (this.policy == BackpressurePolicy.SAMPLE && this.buffer.size() >= this.highWaterMark
+                && ThreadLocalRandom.current().nextInt(this.sampleRate) != 0) {
+            this.dropped.increment();
+            return;
+        }
+        AuditEvent event = new AuditEvent(level, eventType, System.currentTimeMillis(), format, args);
+        while (!this.buffer.offer(event)) {
+            if (this.policy != BackpressurePolicy.BLOCK || this.closed) {
+                this.dropped.increment();
+                return;
+            }
+            LockSupport.parkNanos(BLOCKED_PARK_NANOS);
+        }
+    }
+
+    /**
+     * The writer thread: drains the buffer in batches until the service is closed, no
+     * producer is still publishing and every claimed slot has been written. When there is
+     * nothing to write it parks until a producer, {@link #flush} or {@link #close} wakes it.
+     */
+    private void writeEvents() {
+        List<AuditEvent> batch = new ArrayList<>(this.maxBatchSize);
+        while (true) {
+            AuditEvent event;
+            while (batch.size() < this.maxBatchSize && (event = this.buffer.poll()) != null) {
+                batch.add(event);
+            }
+            if (!batch.isEmpty()) {
+                this.writeBatch(batch);
+                batch.clear();
+            } else if (this.isDrained()) {
+                return;
+            } else {
+                // Either idle, or a producer has claimed a slot but not yet published it;
+                // the producer unparks the writer once it is done.
+                this.writerParked = true;
+                if (this.buffer.isEmpty() && !this.isDrained()) {
+                    LockSupport.park(this);
+                }
+                this.writerParked = false;
+            }
+        }
+    }
+
+    private boolean isDrained() {
+        return this.closed && this.publishing.get() == 0 && this.buffer.size() == 0;
+    }
+
+    private void writeBatch(List<AuditEvent> batch) {
+        try {
+            this.sink.write(batch);
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Error writing batch of " + batch.size() + " audit events: " + e.getMessage());
+        }
+        this.written = this.buffer.consumed();
+    }
+}
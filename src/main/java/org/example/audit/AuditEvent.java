@@ -0,0 +1,76 @@
+package org.example.audit;
+
+import java.util.Arrays;
+import java.util.IllegalFormatException;
+
+/**
+ * A single audit record as handed from an {@link AsyncAuditService} to its {@link IAuditSink}.
+ * <p>The message is kept as a format string and its arguments, and is only formatted
+ * when the sink asks for it, on the writer thread.</p>
+ */
+public final class AuditEvent {
+
+    /**
+     * The severity of an audit event.
+     */
+    public enum Level {
+        INFO,
+        ERROR
+    }
+
+    private final Level level;
+    private final String eventType;
+    private final long timestamp;
+    private final String format;
+    private final Object[] args;
+    private String message;
+
+    AuditEvent(Level level, String eventType, long timestamp, String format, Object[] args) {
+        this.level = level;
+        this.eventType = eventType;
+        this.timestamp = timestamp;
+        this.format = format;
+        this.args = args;
+    }
+
+    public Level getLevel() {
+        return level;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    /**
+     * @return The time the event was logged, in milliseconds since the epoch.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Formats the message on first use. A format string that does not match its arguments
+     * does not lose the event: the raw format and arguments are returned instead.
+     *
+     * @return The formatted message.
+     */
+    public String getMessage() {
+        if (this.message == null) {
+            if (this.args == null) {
+                this.message = this.format;
+            } else {
+                try {
+                    this.message = String.format(this.format, this.args);
+                } catch (IllegalFormatException e) {
+                    this.message = this.format + " " + Arrays.toString(this.args);
+                }
+            }
+        }
+        return this.message;
+    }
+
+    @Override
+    public String toString() {
+        return timestamp + "|" + level + "|" + eventType + "|" + getMessage();
+    }
+}
@@ -0,0 +1,64 @@
+package org.example.audit;
+
+/**
+ * An audit event as read back from a {@link BinaryAuditLog} by a {@link BinaryAuditLogReader}.
+ */
+public final class AuditRecord {
+
+    private final long timestamp;
+    private final AuditEvent.Level level;
+    private final String eventType;
+    private final String customerId;
+    private final long amountMinor;
+    private final String message;
+
+    AuditRecord(long timestamp, AuditEvent.Level level, String eventType, String customerId, long amountMinor, String message) {
+        this.timestamp = timestamp;
+        this.level = level;
+        this.eventType = eventType;
+        this.customerId = customerId;
+        this.amountMinor = amountMinor;
+        this.message = message;
+    }
+
+    /**
+     * @return The time the event was logged, in milliseconds since the epoch.
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public AuditEvent.Level getLevel() {
+        return level;
+    }
+
+    public String getEventType() {
+        return eventType;
+    }
+
+    /**
+     * @return The customer the event is about, or {@code null} for a plain text event.
+     */
+    public String getCustomerId() {
+        return customerId;
+    }
+
+    /**
+     * @return The amount the event is about, in minor units; 0 for a plain text event.
+     */
+    public long getAmountMinor() {
+        return amountMinor;
+    }
+
+    /**
+     * @return The message of a plain text event; empty for a structured event.
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return timestamp + "|" + level + "|" + eventType + "|" + customerId + "|" + amountMinor + "|" + message;
+    }
+}
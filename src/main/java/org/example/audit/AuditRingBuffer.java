@@ -0,0 +1,124 @@
+package org.example.audit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A bounded, lock-free queue for many producers and a single consumer.
+ * <p>Each slot carries a sequence number that tells producers and the consumer whose
+ * turn it is: a producer claims a position with a single compare-and-set on the tail,
+ * stores its element and then publishes the slot by advancing its sequence; the consumer
+ * takes the element once the slot is published and hands the slot back to producers one
+ * lap later. Producers never wait for each other beyond a failed CAS, and a full buffer
+ * is reported immediately instead of blocking.</p>
+ */
+final class AuditRingBuffer<E> {
+
+    private final Object[] elements;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    // The next position producers will claim.
+    private final AtomicLong tail = new AtomicLong();
+    // The next position the consumer will take; only written by the consumer.
+    private volatile long head;
+
+    /**
+     * @param capacity The minimum capacity; rounded up to a power of two.
+     */
+    AuditRingBuffer(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Capacity must be between 1 and 2^30: " + capacity);
+        }
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.elements = new Object[size];
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            this.sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Adds an element if there is room. Safe to call from any thread.
+     *
+     * @return {@code false} if the buffer is full.
+     */
+    boolean offer(E element) {
+        long position = this.tail.get();
+        while (true) {
+            int index = (int) position & this.mask;
+            long lag = this.sequences.get(index) - position;
+            if (lag == 0) {
+                if (this.tail.compareAndSet(position, position + 1)) {
+                    this.elements[index] = element;
+                    // Publishes the element to the consumer.
+                    this.sequences.set(index, position + 1);
+                    return true;
+                }
+                position = this.tail.get();
+            } else if (lag < 0) {
+                // The slot still holds the element from the previous lap.
+                return false;
+            } else {
+                // Another producer claimed this position first.
+                position = this.tail.get();
+            }
+        }
+    }
+
+    /**
+     * Takes the oldest element. Must only be called from the consumer thread.
+     *
+     * @return The element, or {@code null} if none has been published yet.
+     */
+    @SuppressWarnings("unchecked")
+    E poll() {
+        long position = this.head;
+        int index = (int) position & this.mask;
+        if (this.sequences.get(index) != position + 1) {
+            return null;
+        }
+        E element = (E) this.elements[index];
+        this.elements[index] = null;
+        // Hands the slot back to the producers for the next lap.
+        this.sequences.set(index, position + this.elements.length);
+        this.head = position + 1;
+        return element;
+    }
+
+    /**
+     * Tells whether the next element has not been published yet. Must only be called from
+     * the consumer thread.
+     *
+     * @return {@code true} if {@link #poll} would return {@code null}.
+     */
+    boolean isEmpty() {
+        long position = this.head;
+        return this.sequences.get((int) position & this.mask) != position + 1;
+    }
+
+    /**
+     * @return The number of positions claimed so far, including ones still being published.
+     */
+    long claimed() {
+        return this.tail.get();
+    }
+
+    /**
+     * @return The number of elements taken by the consumer so far.
+     */
+    long consumed() {
+        return this.head;
+    }
+
+    /**
+     * @return An estimate of the number of elements waiting, including ones still being published.
+     */
+    int size() {
+        return (int) Math.max(0, this.tail.get() - this.head);
+    }
+
+    int capacity() {
+        return this.elements.length;
+    }
+}
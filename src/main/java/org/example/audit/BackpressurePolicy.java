@@ -0,0 +1,23 @@
+package org.example.audit;
+
+/**
+ * What an {@link AsyncAuditService} does with a new event when its buffer cannot keep up
+ * with the rate at which events are logged.
+ */
+public enum BackpressurePolicy {
+    /**
+     * Wait until the writer has made room. No event is lost, but a slow sink slows down
+     * the callers.
+     */
+    BLOCK,
+    /**
+     * Discard the event if the buffer is full. Callers are never delayed.
+     */
+    DROP,
+    /**
+     * Once the buffer is half full, keep only a random sample of the events (one in
+     * {@code sampleRate}); discard the event if the buffer is full. A burst thins out
+     * gradually instead of losing everything past the point where the buffer filled up.
+     */
+    SAMPLE
+}
@@ -0,0 +1,178 @@
+package org.example.audit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * The on-disk layout shared by {@link BinaryAuditLog} and {@link BinaryAuditLogReader}.
+ * <p>A log is a directory of segment files named {@code audit-<sequence>.seg}. Each
+ * segment starts with a header (magic, version, creation time) followed by records:</p>
+ * <pre>
+ * int length | payload (length bytes) | int CRC32C of payload
+ *
+ * payload of an event:     byte KIND_EVENT | long timestamp | short typeId | byte level
+ *                          | short idLength | customerId | long amountMinor | short messageLength | message
+ * payload of a type entry: byte KIND_TYPE | short typeId | short nameLength | name
+ * </pre>
+ * <p>Event types are stored as small ids; a type entry precedes the first event of that
+ * type in every segment, so each segment can be decoded on its own. Segments are
+ * preallocated, so a zero length marks the end of the written data. All numbers are big-endian,
+ * strings are UTF-8.</p>
+ */
+final class BinaryAuditFormat {
+
+    static final int MAGIC = 0x41554454; // "AUDT"
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 16;
+
+    static final byte KIND_EVENT = 1;
+    static final byte KIND_TYPE = 2;
+
+    // Record framing: length prefix and CRC suffix.
+    static final int FRAME_OVERHEAD = 4 + 4;
+    // Fixed part of an event payload, without the two strings.
+    static final int EVENT_FIXED_SIZE = 1 + 8 + 2 + 1 + 2 + 8 + 2;
+
+    static final int MAX_STRING_BYTES = 0xFFFF;
+
+    private static final String SEGMENT_PREFIX = "audit-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    /**
+     * Returned by {@link #readRecord} at the end of the written data.
+     */
+    static final Object END = new Object();
+
+    private static final AuditEvent.Level[] LEVELS = AuditEvent.Level.values();
+
+    private BinaryAuditFormat() {
+    }
+
+    static Path segmentPath(Path directory, long sequence) {
+        return directory.resolve(String.format("%s%012d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX));
+    }
+
+    static boolean isSegment(Path file) {
+        String name = file.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+
+    static long sequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * @return The segments of the log, oldest first.
+     */
+    static List<Path> listSegments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(BinaryAuditFormat::isSegment)
+                    .sorted(Comparator.comparingLong(BinaryAuditFormat::sequenceOf))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    static void writeHeader(ByteBuffer buffer, long createdAt) {
+        buffer.putInt(MAGIC).putShort(VERSION).putLong(createdAt).putShort((short) 0);
+    }
+
+    /**
+     * @return The creation time stored in the header at the buffer's current position.
+     * @throws IllegalStateException if the header is not that of a supported segment.
+     */
+    static long readHeader(ByteBuffer buffer) {
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+            throw new IllegalStateException("Not an audit log segment");
+        }
+        short version = buffer.getShort();
+        if (version != VERSION) {
+            throw new IllegalStateException("Unsupported audit log segment version: " + version);
+        }
+        long createdAt = buffer.getLong();
+        buffer.getShort();
+        return createdAt;
+    }
+
+    static byte[] encodeString(String value, String field) {
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_STRING_BYTES) {
+            throw new IllegalArgumentException(field + " longer than " + MAX_STRING_BYTES + " bytes");
+        }
+        return bytes;
+    }
+
+    /**
+     * Completes a record whose payload has been written to the buffer after a 4-byte
+     * length placeholder at {@code frameStart}: fills in the length and appends the CRC.
+     */
+    static void frame(ByteBuffer buffer, int frameStart) {
+        int payloadStart = frameStart + 4;
+        int payloadLength = buffer.position() - payloadStart;
+        buffer.putInt(frameStart, payloadLength);
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(payloadStart, payloadLength));
+        buffer.putInt((int) crc.getValue());
+    }
+
+    /**
+     * Decodes the next record at the buffer's position, registering type entries in
+     * {@code types} (indexed by type id).
+     *
+     * @return The event, {@code null} for a type entry, or {@link #END} if the buffer holds
+     * no further complete, intact record; the position is then left unchanged.
+     */
+    static Object readRecord(ByteBuffer buffer, List<String> types) {
+        int start = buffer.position();
+        if (buffer.remaining() < FRAME_OVERHEAD) {
+            return END;
+        }
+        int length = buffer.getInt();
+        if (length <= 0 || length > buffer.remaining() - 4) {
+            buffer.position(start);
+            return END;
+        }
+        ByteBuffer payload = buffer.slice(start + 4, length);
+        CRC32C crc = new CRC32C();
+        crc.update(payload.duplicate());
+        if ((int) crc.getValue() != buffer.getInt(start + 4 + length)) {
+            buffer.position(start);
+            return END;
+        }
+        buffer.position(start + FRAME_OVERHEAD + length);
+
+        byte kind = payload.get();
+        if (kind == KIND_TYPE) {
+            int typeId = Short.toUnsignedInt(payload.getShort());
+            String name = readString(payload);
+            while (types.size() <= typeId) {
+                types.add(null);
+            }
+            types.set(typeId, name);
+            return null;
+        }
+        long timestamp = payload.getLong();
+        int typeId = Short.toUnsignedInt(payload.getShort());
+        AuditEvent.Level level = LEVELS[payload.get()];
+        String customerId = readString(payload);
+        long amountMinor = payload.getLong();
+        String message = readString(payload);
+        String eventType = typeId < types.size() ? types.get(typeId) : null;
+        return new AuditRecord(timestamp, level, eventType, customerId.isEmpty() ? null : customerId, amountMinor, message);
+    }
+
+    private static String readString(ByteBuffer payload) {
+        int length = Short.toUnsignedInt(payload.getShort());
+        byte[] bytes = new byte[length];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,253 @@
+package org.example.audit;
+
+import org.example.service.IAuditService;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * A durable, file-backed {@link IAuditService} that appends compact binary records to a
+ * directory of segment files (see {@link BinaryAuditFormat} for the layout).
+ * <p>Each record holds the timestamp, an event type id, the level, the customer ID, an
+ * amount in minor units and, for plain text events, the message; every record carries a
+ * CRC so that a torn write at the end of a segment is detected. Records are encoded into
+ * a reused buffer and written with a single positional write to a {@link FileChannel}.
+ * Segments are extended to {@code segmentSize} when they are created, so appending does
+ * not grow the file; once a record no longer fits, the segment is trimmed to its data
+ * and a new one is started.</p>
+ * <p>Records reach the operating system on every write and therefore survive a crash of
+ * the process. With {@code forceOnWrite} they are also forced to the storage device
+ * before the call returns, which is much slower; otherwise {@link #sync()} forces
+ * everything written so far.</p>
+ * <p>Timestamps never go backwards within a log, which lets {@link BinaryAuditLogReader}
+ * skip whole segments when scanning a time range.</p>
+ */
+public class BinaryAuditLog implements IAuditService, Closeable {
+
+    private static final long DEFAULT_SEGMENT_SIZE = 64L * 1024 * 1024;
+    private static final int INITIAL_BUFFER_SIZE = 4_096;
+    private static final int MAX_TYPES_PER_SEGMENT = 0xFFFF;
+
+    private final Path directory;
+    private final long segmentSize;
+    private final boolean forceOnWrite;
+    private final LongSupplier clock;
+
+    // The state below is guarded by "this".
+    private FileChannel channel;
+    private long sequence;
+    private long position;
+    private long lastTimestamp = Long.MIN_VALUE;
+    // The ids of the event types already defined in the current segment.
+    private final Map<String, Integer> types = new HashMap<>();
+    private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+
+    /**
+     * Opens (or creates) a log with the default segment size that does not force each write.
+     *
+     * @param directory The directory holding the segment files.
+     */
+    public BinaryAuditLog(String directory) {
+        this(directory, DEFAULT_SEGMENT_SIZE, false);
+    }
+
+    /**
+     * Opens (or creates) a log. New records are appended after the last intact record of
+     * the newest segment.
+     *
+     * @param directory The directory holding the segment files.
+     * @param segmentSize The size at which a segment is rotated.
+     * @param forceOnWrite Whether every record is forced to the storage device before the
+     *                     logging call returns.
+     */
+    public BinaryAuditLog(String directory, long segmentSize, boolean forceOnWrite) {
+        this(directory, segmentSize, forceOnWrite, System::currentTimeMillis);
+    }
+
+    BinaryAuditLog(String directory, long segmentSize, boolean forceOnWrite, LongSupplier clock) {
+        if (segmentSize <= BinaryAuditFormat.HEADER_SIZE) {
+            throw new IllegalArgumentException("Segment size too small: " + segmentSize);
+        }
+        this.directory = Paths.get(directory);
+        this.segmentSize = segmentSize;
+        this.forceOnWrite = forceOnWrite;
+        this.clock = clock;
+        try {
+            Files.createDirectories(this.directory);
+            List<Path> segments = BinaryAuditFormat.listSegments(this.directory);
+            if (segments.isEmpty()) {
+                this.openNewSegment(0);
+            } else {
+                this.reopenSegment(segments.get(segments.size() - 1));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to open audit log: " + this.directory, e);
+        }
+    }
+
+    @Override
+    public void logInfo(String eventType, String message) {
+        this.append(AuditEvent.Level.INFO, eventType, null, 0, message);
+    }
+
+    @Override
+    public void logError(String eventType, String message) {
+        this.append(AuditEvent.Level.ERROR, eventType, null, 0, message);
+    }
+
+    /**
+     * Stores the customer ID and amount as fields of the record, without a message.
+     */
+    @Override
+    public void logEvent(String eventType, String customerId, long amountMinor) {
+        this.append(AuditEvent.Level.INFO, eventType, customerId, amountMinor, null);
+    }
+
+    /**
+     * Forces every record written so far to the storage device.
+     */
+    public synchronized void sync() {
+        try {
+            this.channel.force(false);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to sync audit log: " + this.directory, e);
+        }
+    }
+
+    /**
+     * Trims the current segment to its data, forces it to the storage device and closes it.
+     */
+    @Override
+    public synchronized void close() {
+        try {
+            this.channel.truncate(this.position);
+            this.channel.force(true);
+            this.channel.close();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to close audit log: " + this.directory, e);
+        }
+    }
+
+    private synchronized void append(AuditEvent.Level level, String eventType, String customerId,
+                                     long amountMinor, String message) {
+        byte[] idBytes = BinaryAuditFormat.encodeString(customerId, "Customer ID");
+        byte[] messageBytes = BinaryAuditFormat.encodeString(message, "Message");
+        byte[] typeBytes = BinaryAuditFormat.encodeString(eventType, "Event type");
+        int eventSize = BinaryAuditFormat.FRAME_OVERHEAD + BinaryAuditFormat.EVENT_FIXED_SIZE
+                + idBytes.length + messageBytes.length;
+        int typeSize = BinaryAuditFormat.FRAME_OVERHEAD + 1 + 2 + 2 + typeBytes.length;
+
+        try {
+            boolean newType = !this.types.containsKey(eventType);
+            int size = eventSize + (newType ? typeSize : 0);
+            if (this.position + size > this.segmentSize && this.position > BinaryAuditFormat.HEADER_SIZE
+                    || newType && this.types.size() == MAX_TYPES_PER_SEGMENT) {
+                this.rotate();
+                newType = true;
+                size = eventSize + typeSize;
+            }
+            if (this.buffer.capacity() < size) {
+                this.buffer = ByteBuffer.allocate(size);
+            }
+            this.buffer.clear();
+
+            if (newType) {
+                int typeId = this.types.size();
+                this.types.put(eventType, typeId);
+                int frameStart = this.buffer.position();
+                this.buffer.putInt(0)
+                        .put(BinaryAuditFormat.KIND_TYPE)
+                        .putShort((short) typeId)
+                        .putShort((short) typeBytes.length)
+                        .put(typeBytes);
+                BinaryAuditFormat.frame(this.buffer, frameStart);
+            }
+
+            long timestamp = Math.max(this.clock.getAsLong(), this.lastTimestamp);
+            this.lastTimestamp = timestamp;
+            int frameStart = this.buffer.position();
+            this.buffer.putInt(0)
+                    .put(BinaryAuditFormat.KIND_EVENT)
+                    .putLong(timestamp)
+                    .putShort((short) (int) this.types.get(eventType))
+                    .put((byte) level.ordinal())
+                    .putShort((short) idBytes.length)
+                    .put(idBytes)
+                    .putLong(amountMinor)
+                    .putShort((short) messageBytes.length)
+                    .put(messageBytes);
+            BinaryAuditFormat.frame(this.buffer, frameStart);
+
+            this.buffer.flip();
+            while (this.buffer.hasRemaining()) {
+                this.position += this.channel.write(this.buffer, this.position);
+            }
+            if (this.forceOnWrite) {
+                this.channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to write audit record to: " + this.directory, e);
+        }
+    }
+
+    private void rotate() throws IOException {
+        this.channel.truncate(this.position);
+        this.channel.force(true);
+        this.channel.close();
+        this.openNewSegment(this.sequence + 1);
+    }
+
+    private void openNewSegment(long sequence) throws IOException {
+        Path segment = BinaryAuditFormat.segmentPath(this.directory, sequence);
+        this.channel = FileChannel.open(segment, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long createdAt = Math.max(this.clock.getAsLong(), this.lastTimestamp);
+        this.lastTimestamp = createdAt;
+        ByteBuffer header = ByteBuffer.allocate(BinaryAuditFormat.HEADER_SIZE);
+        BinaryAuditFormat.writeHeader(header, createdAt);
+        header.flip();
+        this.channel.write(header, 0);
+        // Extend the file to its full size up front; the zeros also mark the end of the data.
+        this.channel.write(ByteBuffer.allocate(1), this.segmentSize - 1);
+        this.sequence = sequence;
+        this.position = BinaryAuditFormat.HEADER_SIZE;
+        this.types.clear();
+    }
+
+    /**
+     * Continues the newest segment after its last intact record, restoring its event
+     * types and latest timestamp. A torn record at the end is overwritten by the next append.
+     */
+    private void reopenSegment(Path segment) throws IOException {
+        this.channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.sequence = BinaryAuditFormat.sequenceOf(segment);
+        MappedByteBuffer data = this.channel.map(FileChannel.MapMode.READ_ONLY, 0, this.channel.size());
+        this.lastTimestamp = BinaryAuditFormat.readHeader(data);
+        List<String> typeNames = new ArrayList<>();
+        Object record;
+        while ((record = BinaryAuditFormat.readRecord(data, typeNames)) != BinaryAuditFormat.END) {
+            if (record != null) {
+                this.lastTimestamp = Math.max(this.lastTimestamp, ((AuditRecord) record).getTimestamp());
+            }
+        }
+        this.position = data.position();
+        for (int i = 0; i < typeNames.size(); i++) {
+            this.types.put(typeNames.get(i), i);
+        }
+        if (this.channel.size() < this.segmentSize) {
+            this.channel.write(ByteBuffer.allocate(1), this.segmentSize - 1);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package org.example.audit;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reads the records written by a {@link BinaryAuditLog}, oldest first.
+ * <p>Segments are memory-mapped and decoded in place. Because timestamps never go
+ * backwards within a log, a time-range scan only opens the segments that can hold
+ * records of that range, and stops reading a segment at the first later record.
+ * The log may be read while it is being written; the reader stops at the last
+ * complete record.</p>
+ */
+public class BinaryAuditLogReader {
+
+    private final Path directory;
+
+    /**
+     * @param directory The directory holding the segment files.
+     */
+    public BinaryAuditLogReader(String directory) {
+        this.directory = Paths.get(directory);
+    }
+
+    /**
+     * Passes every record of the log to the action.
+     *
+     * @param action Receives the records in the order they were written.
+     */
+    public void replay(Consumer<? super AuditRecord> action) {
+        this.scan(Long.MIN_VALUE, Long.MAX_VALUE, action);
+    }
+
+    /**
+     * Passes the records logged within a time range to the action.
+     *
+     * @param fromMillis The start of the range (inclusive), in milliseconds since the epoch.
+     * @param toMillis The end of the range (exclusive), in milliseconds since the epoch.
+     * @param action Receives the records in the order they were written.
+     */
+    public void scan(long fromMillis, long toMillis, Consumer<? super AuditRecord> action) {
+        try {
+            List<Path> segments = BinaryAuditFormat.listSegments(this.directory);
+            long[] createdAt = new long[segments.size()];
+            for (int i = 0; i < segments.size(); i++) {
+                createdAt[i] = readCreatedAt(segments.get(i));
+            }
+            for (int i = 0; i < segments.size(); i++) {
+                if (createdAt[i] >= toMillis) {
+                    break;
+                }
+                // Every record of a segment is older than (or as old as) the next segment.
+                if (i + 1 < segments.size() && createdAt[i + 1] < fromMillis) {
+                    continue;
+                }
+                if (!this.scanSegment(segments.get(i), fromMillis, toMillis, action)) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read audit log: " + this.directory, e);
+        }
+    }
+
+    /**
+     * @return {@code false} once a record at or past {@code toMillis} has been seen.
+     */
+    private boolean scanSegment(Path segment, long fromMillis, long toMillis,
+                                Consumer<? super AuditRecord> action) throws IOException {
+        MappedByteBuffer data;
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        BinaryAuditFormat.readHeader(data);
+        List<String> types = new ArrayList<>();
+        Object record;
+        while ((record = BinaryAuditFormat.readRecord(data, types)) != BinaryAuditFormat.END) {
+            if (record == null) {
+                continue;
+            }
+            AuditRecord auditRecord = (AuditRecord) record;
+            if (auditRecord.getTimestamp() >= toMillis) {
+                return false;
+            }
+            if (auditRecord.getTimestamp() >= fromMillis) {
+                action.accept(auditRecord);
+            }
+        }
+        return true;
+    }
+
+    private static long readCreatedAt(Path segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(BinaryAuditFormat.HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // Keep reading until the header is complete or the file ends.
+            }
+            header.flip();
+            return BinaryAuditFormat.readHeader(header);
+        }
+    }
+}
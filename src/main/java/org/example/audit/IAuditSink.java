@@ -0,0 +1,26 @@
+package org.example.audit;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * The destination an {@link AsyncAuditService} writes its events to, one batch at a time.
+ * <p>Batches are always written from the service's single writer thread, so
+ * implementations do not need to be thread-safe.</p>
+ */
+public interface IAuditSink {
+
+    /**
+     * Writes a batch of events, in the order they were logged.
+     *
+     * @param events The events; the list is reused once the call returns.
+     * @throws IOException if the events could not be written.
+     */
+    void write(List<AuditEvent> events) throws IOException;
+
+    /**
+     * Releases the resources of the sink once the service has written its last batch.
+     */
+    default void close() throws IOException {
+    }
+}
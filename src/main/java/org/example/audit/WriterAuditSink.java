@@ -0,0 +1,41 @@
+package org.example.audit;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Writes audit events as text lines ({@code timestamp|level|eventType|message}) to a
+ * {@link Writer}, flushing once per batch.
+ */
+public class WriterAuditSink implements IAuditSink {
+
+    private static final String DELIMITER = "|";
+
+    private final Writer writer;
+
+    /**
+     * @param writer The writer to append the events to; closed together with the sink.
+     */
+    public WriterAuditSink(Writer writer) {
+        this.writer = writer;
+    }
+
+    @Override
+    public void write(List<AuditEvent> events) throws IOException {
+        for (AuditEvent event : events) {
+            this.writer.write(Instant.ofEpochMilli(event.getTimestamp()) + DELIMITER
+                    + event.getLevel() + DELIMITER
+                    + event.getEventType() + DELIMITER
+                    + event.getMessage());
+            this.writer.write(System.lineSeparator());
+        }
+        this.writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.writer.close();
+    }
+}
@@ -0,0 +1,21 @@
+package org.example.exceptions;
+
+/**
+ * Exception thrown by a conditional save when the stored customer has changed since the
+ * version being saved was read.
+ */
+public class StaleCustomerVersionException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Constructs a new StaleCustomerVersionException describing the conflicting versions.
+     *
+     * @param customerId The ID of the customer that was saved.
+     * @param expectedVersion The version the caller read.
+     * @param actualVersion The version currently stored, or 0 if the customer does not exist.
+     */
+    public StaleCustomerVersionException(String customerId, long expectedVersion, long actualVersion) {
+        super("Stale version of customer " + customerId + ": expected " + expectedVersion + " but found " + actualVersion);
+    }
+}
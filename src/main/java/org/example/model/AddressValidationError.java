@@ -0,0 +1,28 @@
+package org.example.model;
+
+/**
+ * The reasons an {@link Address} can fail validation, as reported by
+ * {@link AddressValidator#validate} and {@link AddressValidator#validateAll}.
+ */
+public enum AddressValidationError {
+    /**
+     * The address itself is {@code null}.
+     */
+    MISSING_ADDRESS,
+    /**
+     * The civic address line is missing or does not have the structure checked by
+     * {@link AddressValidator#isCivicAddressValid}.
+     */
+    INVALID_CIVIC_ADDRESS,
+    /**
+     * The postal code is missing or is not a valid Canadian postal code.
+     */
+    INVALID_POSTAL_CODE;
+
+    /**
+     * @return The bit representing this error in a validation flags value.
+     */
+    public int flag() {
+        return 1 << ordinal();
+    }
+}
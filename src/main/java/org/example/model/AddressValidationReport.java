@@ -0,0 +1,136 @@
+package org.example.model;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The outcome of validating a batch of addresses with {@link AddressValidator#validateAll}.
+ * <p>Every failure of every address is recorded, as one byte of
+ * {@link AddressValidationError} flags per address, so even a large import only costs
+ * one byte per row. The summary counts are computed once, when the report is created.</p>
+ */
+public final class AddressValidationReport {
+
+    private static final AddressValidationError[] ERRORS = AddressValidationError.values();
+
+    private final byte[] flags;
+    private final int invalidCount;
+    private final int[] errorCounts;
+
+    AddressValidationReport(byte[] flags) {
+        this.flags = flags;
+        this.errorCounts = new int[ERRORS.length];
+        int invalid = 0;
+        for (byte recordFlags : flags) {
+            if (recordFlags != 0) {
+                invalid++;
+                for (AddressValidationError error : ERRORS) {
+                    if ((recordFlags & error.flag()) != 0) {
+                        this.errorCounts[error.ordinal()]++;
+                    }
+                }
+            }
+        }
+        this.invalidCount = invalid;
+    }
+
+    /**
+     * @return The number of addresses validated.
+     */
+    public int size() {
+        return flags.length;
+    }
+
+    /**
+     * @return The number of addresses without any error.
+     */
+    public int getValidCount() {
+        return flags.length - invalidCount;
+    }
+
+    /**
+     * @return The number of addresses with at least one error.
+     */
+    public int getInvalidCount() {
+        return invalidCount;
+    }
+
+    /**
+     * @param error The kind of error.
+     * @return The number of addresses that have this error.
+     */
+    public int getErrorCount(AddressValidationError error) {
+        return errorCounts[error.ordinal()];
+    }
+
+    /**
+     * @return The number of addresses per kind of error.
+     */
+    public Map<AddressValidationError, Integer> getErrorCounts() {
+        Map<AddressValidationError, Integer> counts = new EnumMap<>(AddressValidationError.class);
+        for (AddressValidationError error : ERRORS) {
+            counts.put(error, errorCounts[error.ordinal()]);
+        }
+        return counts;
+    }
+
+    /**
+     * @param index The position of the address in the input.
+     * @return {@code true} if the address has no error.
+     */
+    public boolean isValid(int index) {
+        return flags[index] == 0;
+    }
+
+    /**
+     * @param index The position of the address in the input.
+     * @return Every error of the address; empty if it is valid.
+     */
+    public Set<AddressValidationError> getErrors(int index) {
+        Set<AddressValidationError> errors = EnumSet.noneOf(AddressValidationError.class);
+        for (AddressValidationError error : ERRORS) {
+            if ((flags[index] & error.flag()) != 0) {
+                errors.add(error);
+            }
+        }
+        return errors;
+    }
+
+    /**
+     * @return The positions of the invalid addresses, in ascending order.
+     */
+    public int[] getInvalidIndexes() {
+        int[] indexes = new int[invalidCount];
+        int next = 0;
+        for (int i = 0; i < flags.length && next < indexes.length; i++) {
+            if (flags[i] != 0) {
+                indexes[next++] = i;
+            }
+        }
+        return indexes;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder summary = new StringBuilder("AddressValidationReport{size=").append(flags.length)
+                .append(", valid=").append(getValidCount())
+                .append(", invalid=").append(invalidCount);
+        for (AddressValidationError error : ERRORS) {
+            summary.append(", ").append(error).append('=').append(errorCounts[error.ordinal()]);
+        }
+        return summary.append('}').toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof AddressValidationReport && Arrays.equals(flags, ((AddressValidationReport) o).flags);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(flags);
+    }
+}
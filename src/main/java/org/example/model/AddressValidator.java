@@ -3,8 +3,8 @@ package org.example.model;
 import org.example.exceptions.InvalidCivicAddressException;
 import org.example.exceptions.InvalidPostalCodeException;
 
-import java.util.Set;
-import java.util.regex.Pattern;
+import java.util.List;
+import java.util.stream.IntStream;
 
 /**
  * Validates the syntax and structure of an {@link Address} object based on a
@@ -14,21 +14,51 @@ import java.util.regex.Pattern;
  * and postal code validity.
  */
 public class AddressValidator {
-    // Regex rules for postal code validation
+    // Character classes for postal code validation, indexed by ASCII code.
     // L_ALL: Letters allowed in the first position (A, B, C, E, G, H, J, K, L, M, N, P, R, S, T, V, W, X, Y, Z)
-    private static final String L_ALL = "[ABCEGHJKLMNPRSTVWXYZ]";
+    private static final String L_ALL = "ABCEGHJKLMNPRSTVWXYZ";
     // L_RESTRICTED: Letters allowed in the third and sixth positions (LNL_NLN) - excludes W and Z
-    private static final String L_RESTRICTED = "[ABCEGHJKLMNPRSTVXY]";
+    private static final String L_RESTRICTED = "ABCEGHJKLMNPRSTVXY";
+    // SPACE: The optional separator, i.e. the characters matched by the regex \s
+    private static final String SPACE = " \t\n\u000B\f\r";
 
-    // N: Digit [0-9]
-    private static final String N = "\\d";
+    private static final byte IS_DIGIT = 1;
+    private static final byte IS_LETTER = 2;
+    private static final byte IS_RESTRICTED_LETTER = 4;
+    private static final byte IS_SPACE = 8;
 
-    // Combined Regex Pattern: L_ALL N L_RESTRICTED \s? N L_RESTRICTED N
-    // (?i) makes the pattern case-insensitive.
-    private static final String POSTAL_CODE_REGEX =
-            "(?i)^" + L_ALL + N + L_RESTRICTED + "\\s?" + N + L_RESTRICTED + N + "$";
+    // Pattern L_ALL N L_RESTRICTED \s? N L_RESTRICTED N, letters in either case.
+    private static final byte[] POSTAL_CODE = {
+            IS_LETTER, IS_DIGIT, IS_RESTRICTED_LETTER, IS_DIGIT, IS_RESTRICTED_LETTER, IS_DIGIT
+    };
+    private static final byte[] CHARACTER_CLASSES = new byte[128];
 
-    private static final Pattern PATTERN = Pattern.compile(POSTAL_CODE_REGEX);
+    // The known, abbreviated street types, indexed by their first character; no two share one.
+    private static final String[] STREET_TYPES = {"St.", "Ave.", "Blvd.", "Dr.", "Rd."};
+    private static final String[] STREET_TYPE_BY_INITIAL = new String[128];
+
+    static {
+        for (char c = '0'; c <= '9'; c++) {
+            CHARACTER_CLASSES[c] |= IS_DIGIT;
+        }
+        for (char c : L_ALL.toCharArray()) {
+            CHARACTER_CLASSES[c] |= IS_LETTER;
+            CHARACTER_CLASSES[Character.toLowerCase(c)] |= IS_LETTER;
+        }
+        for (char c : L_RESTRICTED.toCharArray()) {
+            CHARACTER_CLASSES[c] |= IS_RESTRICTED_LETTER;
+            CHARACTER_CLASSES[Character.toLowerCase(c)] |= IS_RESTRICTED_LETTER;
+        }
+        for (char c : SPACE.toCharArray()) {
+            CHARACTER_CLASSES[c] |= IS_SPACE;
+        }
+        for (String streetType : STREET_TYPES) {
+            if (STREET_TYPE_BY_INITIAL[streetType.charAt(0)] != null) {
+                throw new IllegalStateException("Street types must have distinct initials: " + streetType);
+            }
+            STREET_TYPE_BY_INITIAL[streetType.charAt(0)] = streetType;
+        }
+    }
 
     /**
      * Validates the structure of a single civic address line (e.g., "6050 University Ave.").
@@ -47,11 +77,9 @@ public class AddressValidator {
         if (firstIndex == lastIndex || firstIndex == -1) {
             return false;
         }
-        String streetNbr = address.substring(0, firstIndex);
-        boolean isStNbrValid = this.isNumberValid(streetNbr);
+        boolean isStNbrValid = this.isNumberValid(address, 0, firstIndex);
 
-        String streetType = address.substring(lastIndex + 1, address.length());
-        boolean validStreetType = this.isStreetTypeValid(streetType);
+        boolean validStreetType = this.isStreetTypeValid(address, lastIndex + 1, address.length());
 
         boolean finalResult = isStNbrValid && validStreetType;
 
@@ -73,38 +101,133 @@ public class AddressValidator {
         if (postalCode == null) {
             return false;
         }
-        // Ensure input is trimmed before checking against the strict LNL NLN regex pattern
-        return PATTERN.matcher(postalCode.trim()).matches();
+        // Ignore surrounding whitespace, as String.trim() would, without creating a new String
+        int start = 0;
+        int end = postalCode.length();
+        while (start < end && postalCode.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && postalCode.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        int length = end - start;
+        if (length != POSTAL_CODE.length && length != POSTAL_CODE.length + 1) {
+            return false;
+        }
+        int position = start;
+        for (int i = 0; i < POSTAL_CODE.length; i++) {
+            if (i == 3 && length > POSTAL_CODE.length && !hasClass(postalCode.charAt(position++), IS_SPACE)) {
+                return false;
+            }
+            if (!hasClass(postalCode.charAt(position++), POSTAL_CODE[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean hasClass(char c, byte characterClass) {
+        return c < CHARACTER_CLASSES.length && (CHARACTER_CLASSES[c] & characterClass) != 0;
     }
 
     /**
-     * Helper method to determine if a string can be successfully parsed as an integer.
+     * Helper method to determine if a region of a string can be successfully parsed as an
+     * integer, accepting exactly what {@link Integer#parseInt(String)} accepts without
+     * throwing for what it rejects.
      *
-     * @param number The string presumed to be a numeric house number.
-     * @return {@code true} if the string is a valid integer; {@code false} otherwise.
+     * @param text The string holding the presumed numeric house number.
+     * @param start The start of the region (inclusive).
+     * @param end The end of the region (exclusive).
+     * @return {@code true} if the region is a valid integer; {@code false} otherwise.
      */
-    private boolean isNumberValid(String number) {
-        try {
-            Integer.parseInt(number);
-            return true;
-        } catch (NumberFormatException e) {
+    private boolean isNumberValid(String text, int start, int end) {
+        if (start >= end) {
             return false;
         }
+        int i = start;
+        int limit = -Integer.MAX_VALUE;
+        char first = text.charAt(i);
+        if (first < '0') {
+            if (first == '-') {
+                limit = Integer.MIN_VALUE;
+            } else if (first != '+') {
+                return false;
+            }
+            if (end - start == 1) {
+                return false;
+            }
+            i++;
+        }
+        // Accumulate negatively, like Integer.parseInt, so that Integer.MIN_VALUE fits.
+        int multiplicationLimit = limit / 10;
+        int result = 0;
+        for (; i < end; i++) {
+            int digit = Character.digit(text.charAt(i), 10);
+            if (digit < 0 || result < multiplicationLimit) {
+                return false;
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                return false;
+            }
+            result -= digit;
+        }
+        return true;
     }
 
     /**
-     * Helper method to determine if a string matches one of the known, abbreviated
-     * street types (e.g., "St.", "Ave.").
+     * Helper method to determine if a region of a string matches one of the known,
+     * abbreviated street types (e.g., "St.", "Ave.").
      *
-     * @param streetType The string presumed to be a street type abbreviation.
+     * @param text The string holding the presumed street type abbreviation.
+     * @param start The start of the region (inclusive).
+     * @param end The end of the region (exclusive).
      * @return {@code true} if the type is in the predefined set; {@code false} otherwise.
      */
-    private boolean isStreetTypeValid(String streetType) {
-        Set<String> types = Set.of(
-                "St.", "Ave.", "Blvd.", "Dr.", "Rd."
-        );
+    private boolean isStreetTypeValid(String text, int start, int end) {
+        if (start >= end || text.charAt(start) >= STREET_TYPE_BY_INITIAL.length) {
+            return false;
+        }
+        String candidate = STREET_TYPE_BY_INITIAL[text.charAt(start)];
+        return candidate != null && candidate.length() == end - start
+                && text.regionMatches(start, candidate, 0, candidate.length());
+    }
 
-        return types.contains(streetType);
+    /**
+     * Checks every rule against an address without throwing, collecting all failures
+     * rather than stopping at the first.
+     *
+     * @param address The address to validate.
+     * @return The {@link AddressValidationError#flag() flags} of the errors found; 0 if the address is valid.
+     */
+    public int validate(Address address) {
+        if (address == null) {
+            return AddressValidationError.MISSING_ADDRESS.flag();
+        }
+        int flags = 0;
+        if (address.getAddressLine1() == null || !this.isCivicAddressValid(address.getAddressLine1())) {
+            flags |= AddressValidationError.INVALID_CIVIC_ADDRESS.flag();
+        }
+        if (!this.isPostalCodeValid(address.getPostalCode())) {
+            flags |= AddressValidationError.INVALID_POSTAL_CODE.flag();
+        }
+        return flags;
+    }
+
+    /**
+     * Validates a batch of addresses, such as a full import, in parallel.
+     * <p>Unlike {@link #isValidAddress}, nothing is thrown: every failure of every address is
+     * recorded in the returned report. The validator is stateless, so the addresses are
+     * split across the common fork-join pool.</p>
+     *
+     * @param addresses The addresses to validate; should support fast random access.
+     * @return The errors of each address, in input order, and their summary counts.
+     */
+    public AddressValidationReport validateAll(List<Address> addresses) {
+        byte[] flags = new byte[addresses.size()];
+        IntStream.range(0, flags.length).parallel()
+                .forEach(i -> flags[i] = (byte) this.validate(addresses.get(i)));
+        return new AddressValidationReport(flags);
     }
 
     public boolean isValidAddress(Address address) {
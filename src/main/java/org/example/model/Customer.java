@@ -6,6 +6,10 @@ import java.time.LocalDate;
  * Represents a customer entity in the system, holding details such as
  * identification, loyalty points, account status, and associated objects
  * like their shopping cart and address.
+ * <p>The shopping cart and address may be loaded lazily from an
+ * {@link ICustomerDetailsSource}, the first time they are accessed, so that code
+ * reading only points or balances never builds them. The load runs at most once per
+ * instance, even when several threads access a shared instance at the same time.</p>
  */
 public class Customer {
 
@@ -36,9 +40,25 @@ public class Customer {
     private Address address;
 
     /**
-     * The current monetary balance available to the customer for transactions.
+     * The current monetary balance available to the customer for transactions, in minor units (cents).
      */
-    private double balance;
+    private long balanceMinor;
+
+    /**
+     * The version of the stored record this instance was read from; 0 for a customer that
+     * has never been saved. Repositories increment it on every save.
+     */
+    private long version;
+
+    /**
+     * Where the shopping cart and address are loaded from on first access; {@code null}
+     * once both have been loaded or set, or if they were given up front. Guarded by the
+     * instance lock, as are loads; the flags are volatile so that loaded details are read
+     * without it.
+     */
+    private ICustomerDetailsSource detailsSource;
+    private volatile boolean shoppingCartLoaded = true;
+    private volatile boolean addressLoaded = true;
 
     /**
      * Constructs a new Customer instance, initializing all required fields.
@@ -54,7 +74,47 @@ public class Customer {
         this.joinedOn = joinedOn;
         this.shoppingCart = shoppingCart;
         this.address = address;
-        this.balance = balance;
+        this.balanceMinor = Money.toMinor(balance);
+    }
+
+    /**
+     * Constructs a new Customer instance whose shopping cart and address are loaded
+     * from a source when first accessed.
+     *
+     * @param customerID The unique identifier string for the customer.
+     * @param joinedOn The date the customer joined.
+     * @param detailsSource The source of the customer's shopping cart and address.
+     * @param balanceMinor The initial monetary balance available to the customer, in minor units.
+     */
+    public Customer(String customerID, LocalDate joinedOn, ICustomerDetailsSource detailsSource, long balanceMinor) {
+        this.customerID = customerID;
+        this.joinedOn = joinedOn;
+        this.balanceMinor = balanceMinor;
+        this.detailsSource = detailsSource;
+        this.shoppingCartLoaded = false;
+        this.addressLoaded = false;
+    }
+
+    /**
+     * Constructs a copy of another Customer. The shopping cart and address are
+     * shared with the original rather than copied; if the original has not loaded
+     * them yet, the copy loads its own from the same source.
+     *
+     * @param other The customer to copy.
+     */
+    public Customer(Customer other) {
+        this.customerID = other.customerID;
+        this.points = other.points;
+        this.joinedOn = other.joinedOn;
+        this.balanceMinor = other.balanceMinor;
+        this.version = other.version;
+        synchronized (other) {
+            this.shoppingCart = other.shoppingCart;
+            this.address = other.address;
+            this.detailsSource = other.detailsSource;
+            this.shoppingCartLoaded = other.shoppingCartLoaded;
+            this.addressLoaded = other.addressLoaded;
+        }
     }
 
     /**
@@ -117,25 +177,36 @@ public class Customer {
      * @return The associated {@link ShoppingCart} object.
      */
     public ShoppingCart getShoppingCart() {
+        if (!shoppingCartLoaded) {
+            loadShoppingCart();
+        }
         return shoppingCart;
     }
 
+    private synchronized void loadShoppingCart() {
+        if (!shoppingCartLoaded) {
+            setShoppingCart(detailsSource.loadShoppingCart(this));
+        }
+    }
+
     /**
      * Sets the customer's shopping cart.
      *
      * @param shoppingCart The new {@link ShoppingCart} object.
      */
-    public void setShoppingCart(ShoppingCart shoppingCart) {
+    public synchronized void setShoppingCart(ShoppingCart shoppingCart) {
         this.shoppingCart = shoppingCart;
+        this.shoppingCartLoaded = true;
+        releaseDetailsSource();
     }
 
     /**
-     * Sets the customer's current monetary balance.
+     * Sets the customer's current monetary balance, rounded to the nearest cent.
      *
      * @param balance The new balance amount.
      */
     public void setBalance(double balance) {
-        this.balance = balance;
+        this.balanceMinor = Money.toMinor(balance);
     }
 
     /**
@@ -144,7 +215,44 @@ public class Customer {
      * @return The current balance amount.
      */
     public double getBalance() {
-        return balance;
+        return Money.toMajor(balanceMinor);
+    }
+
+    /**
+     * Sets the customer's current monetary balance in minor units.
+     *
+     * @param balanceMinor The new balance amount in cents.
+     */
+    public void setBalanceMinor(long balanceMinor) {
+        this.balanceMinor = balanceMinor;
+    }
+
+    /**
+     * Retrieves the customer's current monetary balance in minor units.
+     *
+     * @return The current balance amount in cents.
+     */
+    public long getBalanceMinor() {
+        return balanceMinor;
+    }
+
+    /**
+     * Retrieves the version of the stored record this customer was read from, used by
+     * {@code ICustomerRepository.saveIfCurrent} to detect concurrent changes.
+     *
+     * @return The record version, or 0 if the customer has never been saved.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Sets the record version. Normally only called by repositories.
+     *
+     * @param version The new record version.
+     */
+    public void setVersion(long version) {
+        this.version = version;
     }
 
     /**
@@ -153,15 +261,42 @@ public class Customer {
      * @return The associated {@link Address} object.
      */
     public Address getAddress() {
+        if (!addressLoaded) {
+            loadAddress();
+        }
         return address;
     }
 
+    private synchronized void loadAddress() {
+        if (!addressLoaded) {
+            setAddress(detailsSource.loadAddress(this));
+        }
+    }
+
     /**
      * Sets the customer's primary address.
      *
      * @param address The new {@link Address} object.
      */
-    public void setAddress(Address address) {
+    public synchronized void setAddress(Address address) {
         this.address = address;
+        this.addressLoaded = true;
+        releaseDetailsSource();
+    }
+
+    /**
+     * Reports whether the shopping cart and address have both been loaded (or were given
+     * up front), i.e. whether accessing them can no longer trigger a load.
+     *
+     * @return {@code true} if no lazy load is pending.
+     */
+    public boolean isDetailsLoaded() {
+        return shoppingCartLoaded && addressLoaded;
+    }
+
+    private void releaseDetailsSource() {
+        if (shoppingCartLoaded && addressLoaded) {
+            detailsSource = null;
+        }
     }
 }
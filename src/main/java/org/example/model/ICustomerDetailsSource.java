@@ -0,0 +1,43 @@
+package org.example.model;
+
+/**
+ * Supplies the {@link ShoppingCart} and {@link Address} of a {@link Customer} whose
+ * details are loaded lazily, the first time they are accessed.
+ * <p>Repositories that read customers in bulk share one source between all the customers
+ * they create, so a customer whose details are never accessed costs no more than its
+ * own fields.</p>
+ */
+public interface ICustomerDetailsSource {
+
+    /**
+     * Supplies an empty shopping cart and a blank address, as the file-backed repositories
+     * do not store either.
+     */
+    ICustomerDetailsSource EMPTY = new ICustomerDetailsSource() {
+        @Override
+        public ShoppingCart loadShoppingCart(Customer customer) {
+            return new ShoppingCart(null);
+        }
+
+        @Override
+        public Address loadAddress(Customer customer) {
+            return new Address();
+        }
+    };
+
+    /**
+     * Loads the shopping cart of a customer.
+     *
+     * @param customer The customer whose cart is accessed for the first time.
+     * @return The customer's shopping cart.
+     */
+    ShoppingCart loadShoppingCart(Customer customer);
+
+    /**
+     * Loads the address of a customer.
+     *
+     * @param customer The customer whose address is accessed for the first time.
+     * @return The customer's address.
+     */
+    Address loadAddress(Customer customer);
+}
@@ -0,0 +1,17 @@
+package org.example.model;
+
+/**
+ * Notified when the quantity, price or points of a {@link Product} change, so that
+ * holders such as {@link ShoppingCart} can keep derived totals up to date.
+ */
+interface IProductChangeListener {
+
+    /**
+     * Called after one of the product's values changed.
+     *
+     * @param product The product that changed.
+     * @param oldLineTotal The product's quantity times price, in minor units, before the change.
+     * @param oldLinePoints The product's loyalty points ({@link Product#getPoints()}) before the change.
+     */
+    void productChanged(Product product, long oldLineTotal, int oldLinePoints);
+}
@@ -0,0 +1,81 @@
+package org.example.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Helpers for monetary amounts stored as {@code long} minor units (cents).
+ * <p>Prices, cart totals and balances are kept in minor units so that sums are exact
+ * and the pricing path does not allocate. Conversions from {@code double} and percentage
+ * calculations round to the nearest cent, half away from zero, as is usual for invoice
+ * amounts.</p>
+ */
+public final class Money {
+
+    /**
+     * The number of minor units in one major unit.
+     */
+    public static final long MINOR_PER_MAJOR = 100;
+
+    private Money() {
+    }
+
+    /**
+     * Converts an amount in major units (e.g. dollars) to minor units, rounding to the
+     * nearest cent, half away from zero.
+     * <p>Rounds the decimal value the {@code double} prints as, not its binary value, so
+     * an amount such as 0.285, whose {@code double} lies just below the half cent, still
+     * rounds up to 29.</p>
+     *
+     * @param amount The amount in major units.
+     * @return The amount in minor units.
+     * @throws ArithmeticException if the amount is out of the range of a {@code long} in minor units.
+     * @throws NumberFormatException if the amount is not finite.
+     */
+    public static long toMinor(double amount) {
+        return BigDecimal.valueOf(amount).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Converts an amount in minor units to major units.
+     *
+     * @param minor The amount in minor units.
+     * @return The closest {@code double} to the amount in major units.
+     */
+    public static double toMajor(long minor) {
+        return (double) minor / MINOR_PER_MAJOR;
+    }
+
+    /**
+     * Multiplies an amount by the fraction {@code numerator / denominator}, rounding the
+     * result half away from zero to whole minor units.
+     *
+     * @param minor The amount in minor units.
+     * @param numerator The numerator of the fraction.
+     * @param denominator The (positive) denominator of the fraction.
+     * @return The scaled amount in minor units.
+     * @throws ArithmeticException if the intermediate product overflows a {@code long}.
+     */
+    public static long applyRate(long minor, long numerator, long denominator) {
+        long product = Math.multiplyExact(minor, numerator);
+        long quotient = product / denominator;
+        long remainder = product % denominator;
+        if (Math.abs(remainder) * 2 >= denominator) {
+            quotient += Long.signum(product);
+        }
+        return quotient;
+    }
+
+    /**
+     * Formats an amount in minor units as a plain decimal with two fraction digits,
+     * e.g. {@code 1234} as {@code "12.34"}.
+     *
+     * @param minor The amount in minor units.
+     * @return The formatted amount.
+     */
+    public static String format(long minor) {
+        long major = Math.abs(minor / MINOR_PER_MAJOR);
+        long cents = Math.abs(minor % MINOR_PER_MAJOR);
+        return (minor < 0 ? "-" : "") + major + (cents < 10 ? ".0" : ".") + cents;
+    }
+}
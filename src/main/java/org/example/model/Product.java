@@ -1,5 +1,8 @@
 package org.example.model;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Represents a product or item available for sale.
  *
@@ -18,9 +21,9 @@ public class Product {
     private String serialNumber;
 
     /**
-     * The monetary price of the product per unit.
+     * The monetary price of the product per unit, in minor units (cents).
      */
-    private double price;
+    private long priceMinor;
 
     /**
      * The quantity of this product currently being tracked or held (defaults to 1).
@@ -32,6 +35,12 @@ public class Product {
      */
     private int points;
 
+    /**
+     * The listeners (typically the carts holding this product) notified when the quantity,
+     * price or points change; {@code null} until the first listener is added.
+     */
+    private List<IProductChangeListener> listeners;
+
     /**
      * Constructs a new Product instance with essential details.
      *
@@ -44,7 +53,7 @@ public class Product {
     public Product(String name, String serialNumber, double price, int points, int qty) {
         this.name = name;
         this.serialNumber = serialNumber;
-        this.price = price;
+        this.priceMinor = Money.toMinor(price);
         this.points = points;
         this.qty = qty;
     }
@@ -91,16 +100,37 @@ public class Product {
      * @return The product price.
      */
     public double getPrice() {
-        return price;
+        return Money.toMajor(priceMinor);
     }
 
     /**
-     * Sets the monetary price of the product per unit.
+     * Sets the monetary price of the product per unit, rounded to the nearest cent.
      *
      * @param price The new product price.
      */
     public void setPrice(double price) {
-        this.price = price;
+        this.setPriceMinor(Money.toMinor(price));
+    }
+
+    /**
+     * Retrieves the monetary price of the product per unit in minor units.
+     *
+     * @return The product price in cents.
+     */
+    public long getPriceMinor() {
+        return priceMinor;
+    }
+
+    /**
+     * Sets the monetary price of the product per unit in minor units.
+     *
+     * @param priceMinor The new product price in cents.
+     */
+    public void setPriceMinor(long priceMinor) {
+        long oldLineTotal = this.getLineTotalMinor();
+        int oldLinePoints = this.getPoints();
+        this.priceMinor = priceMinor;
+        this.notifyChanged(oldLineTotal, oldLinePoints);
     }
 
     /**
@@ -109,7 +139,10 @@ public class Product {
      * @param qty The new quantity.
      */
     public void setQty(int qty) {
+        long oldLineTotal = this.getLineTotalMinor();
+        int oldLinePoints = this.getPoints();
         this.qty = qty;
+        this.notifyChanged(oldLineTotal, oldLinePoints);
     }
 
     /**
@@ -130,12 +163,73 @@ public class Product {
         return this.qty * this.points;
     }
 
+    /**
+     * Retrieves the number of loyalty points awarded per unit, as passed to the constructor.
+     *
+     * @return The loyalty points per unit.
+     */
+    public int getUnitPoints() {
+        return this.points;
+    }
+
     /**
      * Sets the number of loyalty points awarded for purchasing this product.
      *
      * @param points The new loyalty points value.
      */
     public void setPoints(int points) {
+        long oldLineTotal = this.getLineTotalMinor();
+        int oldLinePoints = this.getPoints();
         this.points = points;
+        this.notifyChanged(oldLineTotal, oldLinePoints);
+    }
+
+    /**
+     * Calculates the cost of this line, i.e. quantity * price.
+     *
+     * @return The line total.
+     */
+    public double getLineTotal() {
+        return Money.toMajor(this.getLineTotalMinor());
+    }
+
+    /**
+     * Calculates the cost of this line in minor units, i.e. quantity * price.
+     *
+     * @return The line total in cents.
+     */
+    public long getLineTotalMinor() {
+        return Math.multiplyExact(this.priceMinor, this.qty);
+    }
+
+    /**
+     * Registers a listener to be notified of changes to this product.
+     *
+     * @param listener The listener to add.
+     */
+    void addListener(IProductChangeListener listener) {
+        if (this.listeners == null) {
+            this.listeners = new ArrayList<>(1);
+        }
+        this.listeners.add(listener);
+    }
+
+    /**
+     * Removes one registration of a listener.
+     *
+     * @param listener The listener to remove.
+     */
+    void removeListener(IProductChangeListener listener) {
+        if (this.listeners != null) {
+            this.listeners.remove(listener);
+        }
+    }
+
+    private void notifyChanged(long oldLineTotal, int oldLinePoints) {
+        if (this.listeners != null) {
+            for (IProductChangeListener listener : this.listeners) {
+                listener.productChanged(this, oldLineTotal, oldLinePoints);
+            }
+        }
     }
 }
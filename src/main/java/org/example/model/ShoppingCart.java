@@ -1,25 +1,49 @@
 package org.example.model;
 
-import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Represents a customer's shopping cart, managing a collection of {@link Product} items.
  * <p>It provides functionality to add and remove products, and calculate the total
  * cost and accumulated loyalty points for all items currently in the cart.</p>
+ * <p>The cart holds one line per serial number: adding a product whose serial number is
+ * already in the cart increases the quantity of the existing line. Lines are looked up,
+ * updated and removed by serial number in constant time. The serial number of a product
+ * must therefore not change while it is in a cart.</p>
+ * <p>The total and points are kept as running sums, updated when products are added or
+ * removed and when a product in the cart changes its quantity, price or points, so
+ * reading them does not walk the items. The total is summed in exact minor units.</p>
  */
 public class ShoppingCart {
 
     /**
-     * The list of {@link Product} items currently in the shopping cart.
+     * The {@link Product} lines currently in the shopping cart, keyed by serial number,
+     * in the order they were first added.
      */
-    List<Product> items;
+    Map<String, Product> items;
 
     /**
      * The {@link Customer} to whom this shopping cart belongs.
      */
     Customer customer;
 
+    /**
+     * The running sum of quantity * price over all items, in minor units.
+     */
+    private long total;
+
+    /**
+     * The running sum of loyalty points over all items.
+     */
+    private int points;
+
+    /**
+     * Keeps the running sums in step with changes to the products in the cart.
+     */
+    private final IProductChangeListener productListener = this::productChanged;
+
     /**
      * Constructs a new ShoppingCart instance, initializing an empty list of items
      * and associating it with the given customer.
@@ -27,26 +51,38 @@ public class ShoppingCart {
      * @param customer The {@link Customer} object associated with this cart.
      */
     public ShoppingCart(Customer customer) {
-        this.items = new ArrayList<>();
+        this.items = new LinkedHashMap<>();
         this.customer = customer;
     }
 
     /**
      * Retrieves the list of products currently in the cart.
      *
-     * @return A {@code List} of {@link Product} items.
+     * @return A read-only snapshot of the {@link Product} lines, one per serial number;
+     * use {@link #addProduct}, {@link #removeProduct} and {@link #updateQty} to change them.
      */
     public List<Product> getItems() {
-        return items;
+        return List.copyOf(items.values());
     }
 
     /**
-     * Replaces the current list of items in the cart with a new list.
+     * Replaces the current list of items in the cart with a new list. Products sharing
+     * a serial number are merged into one line.
      *
      * @param items The new {@code List} of {@link Product} items.
+     * @throws IllegalArgumentException if the list holds the same product twice, or
+     * products sharing a serial number at different prices; see {@link #addProduct}.
      */
     public void setItems(List<Product> items) {
-        this.items = items;
+        for (Product product : this.items.values()) {
+            product.removeListener(this.productListener);
+        }
+        this.items.clear();
+        this.total = 0;
+        this.points = 0;
+        for (Product product : items) {
+            this.addProduct(product);
+        }
     }
 
     /**
@@ -68,22 +104,99 @@ public class ShoppingCart {
     }
 
     /**
-     * Adds a single {@link Product} to the list of items in the cart.
+     * Adds a single {@link Product} to the cart. If the cart already holds a line with the
+     * same serial number, the product's quantity is added to that line instead; the line
+     * keeps its own name and points.
      *
      * @param product The {@link Product} to be added.
+     * @throws IllegalArgumentException if the product is already a line of this cart (use
+     * {@link #updateQty} to change its quantity), or if the cart holds a line with the same
+     * serial number at a different price.
      */
     public void addProduct(Product product) {
-        this.items.add(product);
+        Product line = this.items.get(product.getSerialNumber());
+        if (line == product) {
+            throw new IllegalArgumentException("Product " + product.getSerialNumber() + " is already in the cart");
+        }
+        if (line != null) {
+            if (line.getPriceMinor() != product.getPriceMinor()) {
+                throw new IllegalArgumentException("Product " + product.getSerialNumber() + " costs "
+                        + line.getPrice() + " in the cart, not " + product.getPrice());
+            }
+            line.setQty(line.getQty() + product.getQty());
+            return;
+        }
+        this.items.put(product.getSerialNumber(), product);
+        product.addListener(this.productListener);
+        this.total += product.getLineTotalMinor();
+        this.points += product.getPoints();
     }
 
     /**
-     * Removes a specific instance of a {@link Product} from the cart's item list.
+     * Removes a {@link Product} from the cart, undoing {@link #addProduct}: the line itself
+     * is removed, while a product that was merged into another line only takes its
+     * quantity back out of that line.
      *
      * @param product The {@link Product} instance to be removed.
      * @return {@code true} if the product was successfully removed, {@code false} otherwise.
      */
     public boolean removeProduct(Product product) {
-        return this.items.remove(product);
+        Product line = this.items.get(product.getSerialNumber());
+        if (line == null) {
+            return false;
+        }
+        if (line != product && line.getQty() > product.getQty()) {
+            line.setQty(line.getQty() - product.getQty());
+            return true;
+        }
+        return this.removeBySerial(product.getSerialNumber());
+    }
+
+    /**
+     * Removes the line with the given serial number.
+     *
+     * @param serialNumber The serial number of the line to remove.
+     * @return {@code true} if the line was removed, {@code false} if the cart has no such line.
+     */
+    public boolean removeBySerial(String serialNumber) {
+        Product line = this.items.remove(serialNumber);
+        if (line == null) {
+            return false;
+        }
+        line.removeListener(this.productListener);
+        this.total -= line.getLineTotalMinor();
+        this.points -= line.getPoints();
+        return true;
+    }
+
+    /**
+     * Sets the quantity of the line with the given serial number; a quantity of zero or
+     * less removes the line.
+     *
+     * @param serialNumber The serial number of the line to update.
+     * @param qty The new quantity.
+     * @return {@code true} if the line was updated, {@code false} if the cart has no such line.
+     */
+    public boolean updateQty(String serialNumber, int qty) {
+        if (qty <= 0) {
+            return this.removeBySerial(serialNumber);
+        }
+        Product line = this.items.get(serialNumber);
+        if (line == null) {
+            return false;
+        }
+        line.setQty(qty);
+        return true;
+    }
+
+    /**
+     * Retrieves the line with the given serial number.
+     *
+     * @param serialNumber The serial number to look up.
+     * @return The {@link Product} line, or {@code null} if the cart has no such line.
+     */
+    public Product getProduct(String serialNumber) {
+        return this.items.get(serialNumber);
     }
 
     /**
@@ -93,12 +206,16 @@ public class ShoppingCart {
      * @return The total cost as a {@code double}.
      */
     public double getTotal() {
-        double total = 0;
-        for (Product product: this.items) {
-            total += product.getQty() * product.getPrice();
-        }
+        return Money.toMajor(this.total);
+    }
 
-        return total;
+    /**
+     * Retrieves the exact total monetary cost of all items in minor units.
+     *
+     * @return The total cost in cents.
+     */
+    public long getTotalMinor() {
+        return this.total;
     }
 
     /**
@@ -108,11 +225,11 @@ public class ShoppingCart {
      * @return The total loyalty points as an {@code int}.
      */
     public int getPoints() {
-        int totalPoints = 0;
-        for (Product product: this.items) {
-            totalPoints += product.getPoints();
-        }
+        return this.points;
+    }
 
-        return totalPoints;
+    private void productChanged(Product product, long oldLineTotal, int oldLinePoints) {
+        this.total += product.getLineTotalMinor() - oldLineTotal;
+        this.points += product.getPoints() - oldLinePoints;
     }
 }
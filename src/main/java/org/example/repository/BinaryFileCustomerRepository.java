@@ -0,0 +1,292 @@
+package org.example.repository;
+
+import org.example.exceptions.CustomerNotFoundException;
+import org.example.exceptions.InsufficientFundsException;
+import org.example.exceptions.StaleCustomerVersionException;
+import org.example.model.Customer;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * A file-backed implementation of the {@link ICustomerRepository} that stores customers
+ * in the compact binary format described by {@link CustomerBinaryFormat} instead of
+ * pipe-delimited text.
+ * <p>It behaves like {@link FileCustomerRepository}: reads stream through the file and
+ * writes, which are serialized within the repository, rewrite it to a temporary file that
+ * then atomically replaces it. Each record carries a version-checked header and a checksum, dates
+ * are stored as epoch days and balances as exact minor units, so files are several times
+ * smaller than the text format and loading them needs no number or date parsing.</p>
+ * <p>Reads are serialized with the writes too, and writes give each saved customer the
+ * next record version, which {@link #saveIfCurrent} checks before writing. The format has
+ * no room for versions, so they are kept in memory while the repository is open.</p>
+ */
+public class BinaryFileCustomerRepository implements ICustomerRepository {
+
+    private final Path path;
+    private final RecordVersions versions = new RecordVersions(false);
+
+    /**
+     * Opens the binary customer file, creating an empty one if it does not exist.
+     *
+     * @param repoFile The path of the binary customer data file.
+     */
+    public BinaryFileCustomerRepository(String repoFile) {
+        this.path = Paths.get(repoFile);
+        if (!Files.exists(this.path)) {
+            writeAllCustomers(Map.of());
+        }
+    }
+
+    /**
+     * Converts a customer file in the pipe-delimited text format to the binary format.
+     *
+     * @param textFile The path of the text customer data file.
+     * @param binaryFile The path of the binary file to write; overwritten if it exists.
+     * @return The repository reading the converted file.
+     */
+    public static BinaryFileCustomerRepository convert(String textFile, String binaryFile) {
+        BinaryFileCustomerRepository repository = new BinaryFileCustomerRepository(binaryFile);
+        repository.rewrite(writer -> new FileCustomerRepository(textFile).forEach(customer -> {
+            try {
+                writer.write(customer);
+            } catch (IOException e) {
+                throw new RuntimeException("Error writing customer data to file.", e);
+            }
+        }));
+        return repository;
+    }
+
+    @Override
+    public synchronized Optional<Customer> findById(String customerId) {
+        try (CustomerBinaryFormat.RecordReader reader = new CustomerBinaryFormat.RecordReader(this.path)) {
+            Customer found = null;
+            Customer customer;
+            while ((customer = reader.next()) != null) {
+                if (customer.getCustomerID().equals(customerId)) {
+                    found = customer;
+                }
+            }
+            return Optional.ofNullable(found).map(this.versions::restore);
+        } catch (IOException e) {
+            System.err.println("Error reading customer data from file: " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Finds the whole batch in a single pass over the file.
+     */
+    @Override
+    public synchronized Map<String, Customer> findAllById(Collection<String> customerIds) {
+        Set<String> wanted = new HashSet<>(customerIds);
+        Map<String, Customer> found = new HashMap<>();
+        this.forEach(customer -> {
+            if (wanted.contains(customer.getCustomerID())) {
+                found.put(customer.getCustomerID(), customer);
+            }
+        });
+        return found;
+    }
+
+    @Override
+    public synchronized void save(Customer customer) {
+        Map<String, Customer> customers = readAllCustomers();
+        customer.setVersion(nextVersion(customers.get(customer.getCustomerID())));
+        customers.put(customer.getCustomerID(), customer);
+        writeAllCustomers(customers);
+        this.versions.saved(customer);
+    }
+
+    @Override
+    public synchronized void saveIfCurrent(Customer customer) throws StaleCustomerVersionException {
+        Map<String, Customer> customers = readAllCustomers();
+        Customer stored = customers.get(customer.getCustomerID());
+        long current = stored == null ? 0 : stored.getVersion();
+        if (current != customer.getVersion()) {
+            throw new StaleCustomerVersionException(customer.getCustomerID(), customer.getVersion(), current);
+        }
+        customer.setVersion(current + 1);
+        customers.put(customer.getCustomerID(), customer);
+        writeAllCustomers(customers);
+        this.versions.saved(customer);
+    }
+
+    /**
+     * Saves the whole batch with a single read and a single rewrite of the file.
+     */
+    @Override
+    public synchronized void saveAll(Collection<Customer> batch) {
+        Map<String, Customer> customers = readAllCustomers();
+        for (Customer customer : batch) {
+            customer.setVersion(nextVersion(customers.get(customer.getCustomerID())));
+            customers.put(customer.getCustomerID(), customer);
+        }
+        writeAllCustomers(customers);
+        batch.forEach(this.versions::saved);
+    }
+
+    /**
+     * Checks and saves the whole batch with a single read and a single rewrite of the file.
+     */
+    @Override
+    public synchronized Set<String> saveAllIfCurrent(Collection<Customer> batch) {
+        Map<String, Customer> customers = readAllCustomers();
+        Set<String> stale = new LinkedHashSet<>();
+        List<Customer> saved = new ArrayList<>(batch.size());
+        for (Customer customer : batch) {
+            Customer stored = customers.get(customer.getCustomerID());
+            long current = stored == null ? 0 : stored.getVersion();
+            if (current != customer.getVersion()) {
+                stale.add(customer.getCustomerID());
+                continue;
+            }
+            customer.setVersion(current + 1);
+            customers.put(customer.getCustomerID(), customer);
+            saved.add(customer);
+        }
+        if (!saved.isEmpty()) {
+            writeAllCustomers(customers);
+            saved.forEach(this.versions::saved);
+        }
+        return stale;
+    }
+
+    /**
+     * Applies the saves and the deletes with a single read and a single rewrite of the file.
+     */
+    @Override
+    public synchronized void saveAllAndDeleteAll(Collection<Customer> batch, Collection<String> customerIds) {
+        Map<String, Customer> customers = readAllCustomers();
+        for (Customer customer : batch) {
+            customer.setVersion(nextVersion(customers.get(customer.getCustomerID())));
+            customers.put(customer.getCustomerID(), customer);
+        }
+        for (String customerId : customerIds) {
+            customers.remove(customerId);
+        }
+        writeAllCustomers(customers);
+        batch.forEach(this.versions::saved);
+        customerIds.forEach(this.versions::deleted);
+    }
+
+    /**
+     * Updates the customer with a single read and a single rewrite of the file.
+     */
+    @Override
+    public synchronized Customer addPoints(String customerId, int delta) throws CustomerNotFoundException {
+        Map<String, Customer> customers = readAllCustomers();
+        Customer customer = customers.get(customerId);
+        if (customer == null) {
+            throw new CustomerNotFoundException(customerId);
+        }
+        CustomerUpdates.addPoints(customer, delta);
+        customer.setVersion(customer.getVersion() + 1);
+        writeAllCustomers(customers);
+        this.versions.saved(customer);
+        return customer;
+    }
+
+    /**
+     * Updates the customer with a single read and a single rewrite of the file.
+     */
+    @Override
+    public synchronized Customer debitBalance(String customerId, long amountMinor) throws InsufficientFundsException {
+        CustomerUpdates.checkDebitAmount(amountMinor);
+        Map<String, Customer> customers = readAllCustomers();
+        Customer customer = customers.get(customerId);
+        if (customer == null) {
+            throw new CustomerNotFoundException(customerId);
+        }
+        CustomerUpdates.debit(customer, amountMinor);
+        customer.setVersion(customer.getVersion() + 1);
+        writeAllCustomers(customers);
+        this.versions.saved(customer);
+        return customer;
+    }
+
+    @Override
+    public synchronized void delete(String customerId) throws CustomerNotFoundException {
+        Map<String, Customer> customers = readAllCustomers();
+        if (customers.remove(customerId) == null) {
+            throw new CustomerNotFoundException(customerId);
+        }
+        writeAllCustomers(customers);
+        this.versions.deleted(customerId);
+    }
+
+    /**
+     * Streams the file record by record, so a full scan does not load every customer at once.
+     * Writers wait until the scan has finished.
+     */
+    @Override
+    public synchronized void forEach(Consumer<? super Customer> action) {
+        try (CustomerBinaryFormat.RecordReader reader = new CustomerBinaryFormat.RecordReader(this.path)) {
+            Customer customer;
+            while ((customer = reader.next()) != null) {
+                action.accept(this.versions.restore(customer));
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading customer data from file: " + e.getMessage());
+        }
+    }
+
+    private static long nextVersion(Customer stored) {
+        return stored == null ? 1 : stored.getVersion() + 1;
+    }
+
+    private Map<String, Customer> readAllCustomers() {
+        Map<String, Customer> customers = new LinkedHashMap<>();
+        this.forEach(customer -> customers.put(customer.getCustomerID(), customer));
+        return customers;
+    }
+
+    /**
+     * Rewrites the file with the given customers and forces it to disk before returning.
+     */
+    private void writeAllCustomers(Map<String, Customer> customers) {
+        this.rewrite(writer -> {
+            for (Customer customer : customers.values()) {
+                writer.write(customer);
+            }
+        });
+    }
+
+    /**
+     * Writes the records to a temporary file next to the data file, forces it to disk and
+     * then atomically renames it over the data file, so a crash mid-write leaves the
+     * previous contents intact.
+     */
+    private void rewrite(RecordSource records) {
+        Path temp = this.path.resolveSibling(this.path.getFileName() + ".tmp");
+        try (CustomerBinaryFormat.RecordWriter writer = new CustomerBinaryFormat.RecordWriter(temp)) {
+            records.writeTo(writer);
+            writer.force();
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing customer data to file.", e);
+        }
+        try {
+            Files.move(temp, this.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new RuntimeException("Error replacing customer data file: " + this.path, e);
+        }
+    }
+
+    private interface RecordSource {
+        void writeTo(CustomerBinaryFormat.RecordWriter writer) throws IOException;
+    }
+}
@@ -0,0 +1,331 @@
+package org.example.repository;
+
+import org.example.exceptions.CustomerNotFoundException;
+import org.example.exceptions.InsufficientFundsException;
+import org.example.exceptions.StaleCustomerVersionException;
+import org.example.model.Customer;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * A read-through cache in front of another {@link ICustomerRepository}.
+ * <p>{@code findById} serves recently used customers from memory and loads the rest from
+ * the underlying repository. The cache holds at most {@code maximumSize} customers and
+ * evicts according to its {@link EvictionPolicy}; entries also expire once they are
+ * older than the configured time-to-live. Writes go straight to the underlying
+ * repository and invalidate the cached entry.</p>
+ * <p>Cached instances are shared between callers. Changes to a customer must be
+ * written back with {@code save}, which also drops the cached copy.</p>
+ */
+public class CachingCustomerRepository implements ICustomerRepository {
+
+    /**
+     * How the cache chooses which customers to keep once it is full.
+     */
+    public enum EvictionPolicy {
+        /**
+         * Evict the least recently used customer.
+         */
+        LRU,
+        /**
+         * Evict the least recently used customer, but only admit a new customer if it has
+         * been requested more often than the one it would replace (TinyLFU admission).
+         * This keeps one-off look-ups, such as a full scan, from flushing out hot customers.
+         */
+        TINY_LFU
+    }
+
+    /**
+     * A cached customer and the time after which it must be reloaded.
+     */
+    private static final class Entry {
+        private final Customer customer;
+        private final long expiresAt;
+
+        private Entry(Customer customer, long expiresAt) {
+            this.customer = customer;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final ICustomerRepository delegate;
+    private final int maximumSize;
+    private final long ttlNanos;
+    private final LongSupplier ticker;
+
+    // Access-ordered, so the eldest entry is the least recently used; guarded by "this".
+    private final LinkedHashMap<String, Entry> entries;
+    private final FrequencySketch sketch;
+    // Incremented by every write, so that a load racing with a write is not cached; guarded by "this".
+    private long writeCount;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Wraps a repository with a cache whose entries never expire.
+     *
+     * @param delegate The repository to load customers from and write changes to.
+     * @param maximumSize The maximum number of cached customers.
+     * @param policy The eviction policy.
+     */
+    public CachingCustomerRepository(ICustomerRepository delegate, int maximumSize, EvictionPolicy policy) {
+        this(delegate, maximumSize, policy, Duration.ZERO);
+    }
+
+    /**
+     * Wraps a repository with a cache.
+     *
+     * @param delegate The repository to load customers from and write changes to.
+     * @param maximumSize The maximum number of cached customers.
+     * @param policy The eviction policy.
+     * @param timeToLive How long a customer may be served from the cache after it was
+     *                   loaded; {@link Duration#ZERO} to never expire entries.
+     */
+    public CachingCustomerRepository(ICustomerRepository delegate, int maximumSize, EvictionPolicy policy, Duration timeToLive) {
+        this(delegate, maximumSize, policy, timeToLive, System::nanoTime);
+    }
+
+    CachingCustomerRepository(ICustomerRepository delegate, int maximumSize, EvictionPolicy policy,
+                              Duration timeToLive, LongSupplier ticker) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be positive: " + maximumSize);
+        }
+        this.delegate = delegate;
+        this.maximumSize = maximumSize;
+        this.ttlNanos = timeToLive.isZero() ? Long.MAX_VALUE : timeToLive.toNanos();
+        this.ticker = ticker;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        this.sketch = policy == EvictionPolicy.TINY_LFU ? new FrequencySketch(maximumSize) : null;
+    }
+
+    @Override
+    public Optional<Customer> findById(String customerId) {
+        long loadedAfterWrite;
+        synchronized (this) {
+            if (this.sketch != null) {
+                this.sketch.increment(customerId);
+            }
+            Entry entry = this.entries.get(customerId);
+            if (entry != null) {
+                if (this.ticker.getAsLong() - entry.expiresAt < 0) {
+                    this.hits.increment();
+                    return Optional.of(entry.customer);
+                }
+                this.entries.remove(customerId);
+                this.evictions.increment();
+            }
+            loadedAfterWrite = this.writeCount;
+        }
+
+        this.misses.increment();
+        Optional<Customer> loaded = this.delegate.findById(customerId);
+        if (loaded.isPresent()) {
+            synchronized (this) {
+                if (this.writeCount == loadedAfterWrite) {
+                    this.admit(customerId, loaded.get());
+                }
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Serves the cached customers from memory and loads all the others from the
+     * underlying repository with a single {@code findAllById} call.
+     */
+    @Override
+    public Map<String, Customer> findAllById(Collection<String> customerIds) {
+        Map<String, Customer> found = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        long loadedAfterWrite;
+        synchronized (this) {
+            long now = this.ticker.getAsLong();
+            for (String customerId : customerIds) {
+                if (this.sketch != null) {
+                    this.sketch.increment(customerId);
+                }
+                Entry entry = this.entries.get(customerId);
+                if (entry != null && now - entry.expiresAt < 0) {
+                    found.put(customerId, entry.customer);
+                } else {
+                    if (entry != null) {
+                        this.entries.remove(customerId);
+                        this.evictions.increment();
+                    }
+                    missing.add(customerId);
+                }
+            }
+            loadedAfterWrite = this.writeCount;
+        }
+        this.hits.add(found.size());
+        if (missing.isEmpty()) {
+            return found;
+        }
+
+        this.misses.add(missing.size());
+        Map<String, Customer> loaded = this.delegate.findAllById(missing);
+        synchronized (this) {
+            if (this.writeCount == loadedAfterWrite) {
+                loaded.forEach(this::admit);
+            }
+        }
+        found.putAll(loaded);
+        return found;
+    }
+
+    @Override
+    public void save(Customer customer) {
+        this.delegate.save(customer);
+        this.invalidate(customer.getCustomerID());
+    }
+
+    @Override
+    public void saveIfCurrent(Customer customer) throws StaleCustomerVersionException {
+        try {
+            this.delegate.saveIfCurrent(customer);
+        } finally {
+            // Also on failure: the cached copy is the stale one, so the caller's retry must reload.
+            this.invalidate(customer.getCustomerID());
+        }
+    }
+
+    @Override
+    public Customer addPoints(String customerId, int delta) throws CustomerNotFoundException {
+        try {
+            return this.delegate.addPoints(customerId, delta);
+        } finally {
+            this.invalidate(customerId);
+        }
+    }
+
+    @Override
+    public Customer debitBalance(String customerId, long amountMinor) throws InsufficientFundsException {
+        try {
+            return this.delegate.debitBalance(customerId, amountMinor);
+        } finally {
+            this.invalidate(customerId);
+        }
+    }
+
+    @Override
+    public void saveAll(Collection<Customer> customers) {
+        this.delegate.saveAll(customers);
+        synchronized (this) {
+            this.writeCount++;
+            for (Customer customer : customers) {
+                this.entries.remove(customer.getCustomerID());
+            }
+        }
+    }
+
+    @Override
+    public Set<String> saveAllIfCurrent(Collection<Customer> customers) {
+        try {
+            return this.delegate.saveAllIfCurrent(customers);
+        } finally {
+            // Also for the stale ones: their cached copies are out of date.
+            synchronized (this) {
+                this.writeCount++;
+                for (Customer customer : customers) {
+                    this.entries.remove(customer.getCustomerID());
+                }
+            }
+        }
+    }
+
+    @Override
+    public void saveAllAndDeleteAll(Collection<Customer> customers, Collection<String> customerIds) {
+        try {
+            this.delegate.saveAllAndDeleteAll(customers, customerIds);
+        } finally {
+            synchronized (this) {
+                this.writeCount++;
+                for (Customer customer : customers) {
+                    this.entries.remove(customer.getCustomerID());
+                }
+                for (String customerId : customerIds) {
+                    this.entries.remove(customerId);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void delete(String customerId) throws CustomerNotFoundException {
+        try {
+            this.delegate.delete(customerId);
+        } finally {
+            this.invalidate(customerId);
+        }
+    }
+
+    /**
+     * Scans the underlying repository directly, so a full scan neither pollutes the cache
+     * nor counts towards its statistics.
+     */
+    @Override
+    public void forEach(Consumer<? super Customer> action) {
+        this.delegate.forEach(action);
+    }
+
+    /**
+     * Drops a customer from the cache without touching the underlying repository.
+     *
+     * @param customerId The ID of the customer to drop.
+     */
+    public synchronized void invalidate(String customerId) {
+        this.writeCount++;
+        this.entries.remove(customerId);
+    }
+
+    /**
+     * Drops every cached customer.
+     */
+    public synchronized void invalidateAll() {
+        this.writeCount++;
+        this.entries.clear();
+    }
+
+    /**
+     * @return A snapshot of the hit, miss and eviction counters.
+     */
+    public CacheStats stats() {
+        int size;
+        synchronized (this) {
+            size = this.entries.size();
+        }
+        return new CacheStats(this.hits.sum(), this.misses.sum(), this.evictions.sum(), size);
+    }
+
+    /**
+     * Inserts a freshly loaded customer, making room according to the eviction policy.
+     * Must be called while holding the lock.
+     */
+    private void admit(String customerId, Customer customer) {
+        if (!this.entries.containsKey(customerId) && this.entries.size() >= this.maximumSize) {
+            Iterator<Map.Entry<String, Entry>> eldest = this.entries.entrySet().iterator();
+            Map.Entry<String, Entry> victim = eldest.next();
+            if (this.sketch != null && this.sketch.frequency(customerId) <= this.sketch.frequency(victim.getKey())) {
+                // The candidate is not more popular than what it would replace: do not cache it.
+                return;
+            }
+            eldest.remove();
+            this.evictions.increment();
+        }
+        this.entries.put(customerId, new Entry(customer, this.ticker.getAsLong() + this.ttlNanos));
+    }
+}
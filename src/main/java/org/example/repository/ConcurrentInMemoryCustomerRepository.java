@@ -0,0 +1,196 @@
+package org.example.repository;
+
+import org.example.exceptions.CustomerNotFoundException;
+import org.example.exceptions.InsufficientFundsException;
+import org.example.exceptions.StaleCustomerVersionException;
+import org.example.model.Customer;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * A thread-safe in-memory implementation of the {@link ICustomerRepository}.
+ * <p>Customers are held in a {@link ConcurrentHashMap}, so reads never block and writes
+ * only contend with writes to the same hash bin. Read-modify-write sequences should use
+ * {@link #update} or {@link #compute}, which run atomically per customer ID, rather than
+ * {@code findById} followed by {@code save}.</p>
+ * <p>By default the stored instances are handed out directly, as reading then costs no
+ * allocation. With copy-on-read enabled, callers get (and the repository stores) private
+ * copies instead, so changes only become visible through {@code save} or {@code update}.</p>
+ * <p>Every write gives the stored customer the next version, so {@link #saveIfCurrent}
+ * can detect concurrent changes. Without copy-on-read, the customer passed to it must be
+ * a private copy (as {@link OptimisticRetry} makes): a changed stored instance has already
+ * changed for everyone, so saving it conditionally is rejected.</p>
+ * <p>{@link #update}, {@link #compute} and the point and balance updates change a copy of
+ * the stored customer and store that copy, so a reader copying a customer never sees half
+ * of an update, such as the new version with the old points.</p>
+ */
+public class ConcurrentInMemoryCustomerRepository implements ICustomerRepository {
+
+    // Internal state that simulates the database table
+    private final ConcurrentMap<String, Customer> customers = new ConcurrentHashMap<>();
+    private final boolean copyOnRead;
+
+    /**
+     * Creates an empty repository that returns the stored instances.
+     */
+    public ConcurrentInMemoryCustomerRepository() {
+        this(false);
+    }
+
+    /**
+     * Creates an empty repository.
+     *
+     * @param copyOnRead Whether reads return (and writes store) copies of the customers.
+     */
+    public ConcurrentInMemoryCustomerRepository(boolean copyOnRead) {
+        this.copyOnRead = copyOnRead;
+    }
+
+    @Override
+    public Optional<Customer> findById(String customerId) {
+        Customer customer = this.customers.get(customerId);
+        return customer == null ? Optional.empty() : Optional.of(this.copy(customer));
+    }
+
+    @Override
+    public void save(Customer customer) {
+        this.customers.compute(customer.getCustomerID(), (id, stored) -> {
+            customer.setVersion(nextVersion(stored));
+            return this.copy(customer);
+        });
+    }
+
+    @Override
+    public void saveIfCurrent(Customer customer) throws StaleCustomerVersionException {
+        this.customers.compute(customer.getCustomerID(), (id, stored) -> {
+            if (stored == customer) {
+                throw new IllegalStateException("Conditional save of the stored instance of customer " + id
+                        + "; change a copy of it instead");
+            }
+            long current = stored == null ? 0 : stored.getVersion();
+            if (current != customer.getVersion()) {
+                throw new StaleCustomerVersionException(id, customer.getVersion(), current);
+            }
+            customer.setVersion(current + 1);
+            return this.copy(customer);
+        });
+    }
+
+    @Override
+    public void saveAll(Collection<Customer> customers) {
+        for (Customer customer : customers) {
+            this.save(customer);
+        }
+    }
+
+    @Override
+    public void delete(String customerId) throws CustomerNotFoundException {
+        if (this.customers.remove(customerId) == null) {
+            throw new CustomerNotFoundException(customerId);
+        }
+    }
+
+    @Override
+    public void forEach(Consumer<? super Customer> action) {
+        for (Customer customer : this.customers.values()) {
+            action.accept(this.copy(customer));
+        }
+    }
+
+    /**
+     * Adds the points inside the hash bin of the customer, so concurrent increments of a
+     * hot customer queue up briefly instead of retrying.
+     */
+    @Override
+    public Customer addPoints(String customerId, int delta) throws CustomerNotFoundException {
+        return this.update(customerId, customer -> {
+            CustomerUpdates.addPoints(customer, delta);
+            return customer;
+        });
+    }
+
+    /**
+     * Debits the balance inside the hash bin of the customer; a rejected debit leaves the
+     * stored customer, and its version, untouched.
+     */
+    @Override
+    public Customer debitBalance(String customerId, long amountMinor) throws InsufficientFundsException {
+        CustomerUpdates.checkDebitAmount(amountMinor);
+        InsufficientFundsException[] rejected = new InsufficientFundsException[1];
+        Customer updated = this.customers.computeIfPresent(customerId, (id, stored) -> {
+            Customer customer = new Customer(stored);
+            try {
+                CustomerUpdates.debit(customer, amountMinor);
+            } catch (InsufficientFundsException e) {
+                rejected[0] = e;
+                return stored;
+            }
+            customer.setVersion(nextVersion(stored));
+            return customer;
+        });
+        if (updated == null) {
+            throw new CustomerNotFoundException(customerId);
+        }
+        if (rejected[0] != null) {
+            throw rejected[0];
+        }
+        return this.copy(updated);
+    }
+
+    /**
+     * Atomically applies an update to an existing customer. The update runs while other
+     * writers to the same customer wait, so it should be short and must not access
+     * this repository.
+     *
+     * @param customerId The ID of the customer to update.
+     * @param update Receives a copy of the stored customer and returns the customer to
+     *               store (usually the same instance, modified).
+     * @return The updated customer.
+     * @throws CustomerNotFoundException if the customer with the given ID does not exist.
+     */
+    public Customer update(String customerId, UnaryOperator<Customer> update) throws CustomerNotFoundException {
+        Customer updated = this.customers.computeIfPresent(customerId, (id, customer) -> {
+            long version = nextVersion(customer);
+            Customer result = update.apply(new Customer(customer));
+            result.setVersion(version);
+            return result;
+        });
+        if (updated == null) {
+            throw new CustomerNotFoundException(customerId);
+        }
+        return this.copy(updated);
+    }
+
+    /**
+     * Atomically computes the customer stored under an ID, whether or not one exists.
+     *
+     * @param customerId The ID of the customer to compute.
+     * @param remapping Receives a copy of the stored customer (or {@code null} if there is
+     *                  none) and returns the customer to store, or {@code null} to remove it.
+     * @return The stored customer after the computation, if any.
+     */
+    public Optional<Customer> compute(String customerId, UnaryOperator<Customer> remapping) {
+        Customer computed = this.customers.compute(customerId, (id, customer) -> {
+            long version = nextVersion(customer);
+            Customer result = remapping.apply(customer == null ? null : new Customer(customer));
+            if (result != null) {
+                result.setVersion(version);
+            }
+            return result;
+        });
+        return computed == null ? Optional.empty() : Optional.of(this.copy(computed));
+    }
+
+    private static long nextVersion(Customer stored) {
+        return stored == null ? 1 : stored.getVersion() + 1;
+    }
+
+    private Customer copy(Customer customer) {
+        return this.copyOnRead ? new Customer(customer) : customer;
+    }
+}
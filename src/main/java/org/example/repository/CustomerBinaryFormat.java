@@ -0,0 +1,271 @@
+package org.example.repository;
+
+import org.example.model.Customer;
+import org.example.model.ICustomerDetailsSource;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.zip.CRC32C;
+
+/**
+ * The compact binary record format used by {@link BinaryFileCustomerRepository}.
+ * <p>A file starts with a header ({@code int} magic {@code "CUST"}, {@code byte} version)
+ * followed by records:</p>
+ * <pre>
+ * varint payloadLength | payload | int CRC32C of payload
+ *
+ * payload: varint idLength | customerID (UTF-8) | zigzag varint points
+ *          | zigzag varint joinedOn (epoch day) | zigzag varint balance (minor units)
+ * </pre>
+ * <p>Varints use 7 bits per byte, least significant group first; zigzag encoding keeps
+ * small negative numbers short. A typical record takes about 20 bytes, and reading one
+ * involves no text parsing. As with the text format, ShoppingCart and Address are not
+ * part of the record. Customer IDs are limited to {@value #MAX_ID_BYTES} bytes, so a
+ * payload length beyond what such a record can take marks the record as corrupt.</p>
+ */
+final class CustomerBinaryFormat {
+
+    static final int MAGIC = 0x43555354; // "CUST"
+    static final byte VERSION = 1;
+    static final int HEADER_SIZE = 5;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_VARINT_BYTES = 10;
+    private static final int CRC_BYTES = 4;
+    static final int MAX_ID_BYTES = 1024;
+    // The ID length and the three numbers take at most one varint each.
+    private static final int MAX_PAYLOAD_BYTES = MAX_VARINT_BYTES * 4 + MAX_ID_BYTES;
+
+    private CustomerBinaryFormat() {
+    }
+
+    /**
+     * Streams records into a file channel through a reused buffer.
+     */
+    static final class RecordWriter implements Closeable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private final ByteBuffer payload = ByteBuffer.allocate(MAX_PAYLOAD_BYTES);
+        private final CRC32C crc = new CRC32C();
+
+        /**
+         * Truncates the file and writes the header.
+         */
+        RecordWriter(Path path) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            this.buffer.putInt(MAGIC).put(VERSION);
+        }
+
+        /**
+         * @throws IllegalArgumentException if the customer ID is longer than {@value #MAX_ID_BYTES} bytes.
+         */
+        void write(Customer customer) throws IOException {
+            byte[] id = customer.getCustomerID().getBytes(StandardCharsets.UTF_8);
+            if (id.length > MAX_ID_BYTES) {
+                throw new IllegalArgumentException("Customer ID longer than " + MAX_ID_BYTES + " bytes: " + customer.getCustomerID());
+            }
+            this.payload.clear();
+            putVarLong(this.payload, id.length);
+            this.payload.put(id);
+            putVarLong(this.payload, zigzag(customer.getPoints()));
+            putVarLong(this.payload, zigzag(customer.getJoinedOn().toEpochDay()));
+            putVarLong(this.payload, zigzag(customer.getBalanceMinor()));
+            this.payload.flip();
+
+            this.crc.reset();
+            this.crc.update(this.payload.duplicate());
+            int recordSize = MAX_VARINT_BYTES + this.payload.remaining() + CRC_BYTES;
+            if (this.buffer.remaining() < recordSize) {
+                this.drain();
+            }
+            putRecord(this.buffer);
+        }
+
+        /**
+         * Writes out everything buffered and forces it to disk.
+         */
+        void force() throws IOException {
+            this.drain();
+            this.channel.force(false);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                this.drain();
+            } finally {
+                this.channel.close();
+            }
+        }
+
+        private void putRecord(ByteBuffer target) {
+            putVarLong(target, this.payload.remaining());
+            target.put(this.payload);
+            target.putInt((int) this.crc.getValue());
+        }
+
+        private void drain() throws IOException {
+            this.buffer.flip();
+            writeFully(this.buffer);
+            this.buffer.clear();
+        }
+
+        private void writeFully(ByteBuffer source) throws IOException {
+            while (source.hasRemaining()) {
+                this.channel.write(source);
+            }
+        }
+    }
+
+    /**
+     * Streams records out of a file channel through a reused buffer.
+     */
+    static final class RecordReader implements Closeable {
+        private final Path path;
+        private final FileChannel channel;
+        private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private final CRC32C crc = new CRC32C();
+        private long bufferOffset;
+        private boolean endOfFile;
+
+        /**
+         * Opens the file and checks its header; an empty file holds no records.
+         */
+        RecordReader(Path path) throws IOException {
+            this.path = path;
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+            this.buffer.flip();
+            if (this.fill(HEADER_SIZE)) {
+                int magic = this.buffer.getInt();
+                byte version = this.buffer.get();
+                if (magic != MAGIC || version != VERSION) {
+                    this.channel.close();
+                    throw new IOException("Not a binary customer file (version " + VERSION + "): " + path);
+                }
+            }
+        }
+
+        /**
+         * Decodes the next record. Records failing their checksum are reported and skipped;
+         * a truncated record at the end of the file ends the stream, as does a corrupt
+         * record length, after which the following records cannot be found.
+         *
+         * @return The customer, or {@code null} at the end of the file.
+         */
+        Customer next() throws IOException {
+            while (this.fill(1)) {
+                long recordOffset = this.bufferOffset + this.buffer.position();
+                this.fill(MAX_VARINT_BYTES);
+                int start = this.buffer.position();
+                long length = getVarLong(this.buffer);
+                if (length < 0 || length > MAX_PAYLOAD_BYTES) {
+                    System.err.println("Stopping at corrupt customer record at offset " + recordOffset + " of " + this.path);
+                    return null;
+                }
+                int headerLength = this.buffer.position() - start;
+                this.buffer.position(start);
+                // Filling may move the record to the start of the buffer.
+                if (!this.fill(headerLength + (int) length + CRC_BYTES)) {
+                    System.err.println("Ignoring truncated customer record at offset " + recordOffset + " of " + this.path);
+                    return null;
+                }
+                this.buffer.position(this.buffer.position() + headerLength);
+                ByteBuffer payload = this.buffer.slice(this.buffer.position(), (int) length);
+                this.buffer.position(this.buffer.position() + (int) length);
+                int storedCrc = this.buffer.getInt();
+                this.crc.reset();
+                this.crc.update(payload.duplicate());
+                if ((int) this.crc.getValue() != storedCrc) {
+                    System.err.println("Skipping corrupt customer record at offset " + recordOffset + " of " + this.path);
+                    continue;
+                }
+                return decode(payload);
+            }
+            return null;
+        }
+
+        @Override
+        public void close() throws IOException {
+            this.channel.close();
+        }
+
+        /**
+         * Makes at least {@code needed} bytes available after the buffer's position, unless
+         * the file ends first.
+         *
+         * @return {@code true} if the bytes are available.
+         */
+        private boolean fill(int needed) throws IOException {
+            if (this.buffer.remaining() >= needed) {
+                return true;
+            }
+            if (this.buffer.capacity() < needed) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(needed, this.buffer.capacity() * 2));
+                this.bufferOffset += this.buffer.position();
+                larger.put(this.buffer).flip();
+                this.buffer = larger;
+            }
+            while (this.buffer.remaining() < needed && !this.endOfFile) {
+                this.bufferOffset += this.buffer.position();
+                this.buffer.compact();
+                if (this.channel.read(this.buffer) < 0) {
+                    this.endOfFile = true;
+                }
+                this.buffer.flip();
+            }
+            return this.buffer.remaining() >= needed;
+        }
+    }
+
+    private static Customer decode(ByteBuffer payload) {
+        int idLength = (int) getVarLong(payload);
+        String customerID = new String(payload.array(), payload.arrayOffset() + payload.position(), idLength, StandardCharsets.UTF_8);
+        payload.position(payload.position() + idLength);
+        int points = (int) unzigzag(getVarLong(payload));
+        LocalDate joinedOn = LocalDate.ofEpochDay(unzigzag(getVarLong(payload)));
+        long balanceMinor = unzigzag(getVarLong(payload));
+
+        // Note: ShoppingCart and Address are not serialized here; empty ones are created on first access.
+        Customer customer = new Customer(customerID, joinedOn, ICustomerDetailsSource.EMPTY, balanceMinor);
+        customer.setPoints(points);
+        return customer;
+    }
+
+    static void putVarLong(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * @return The decoded value, or -1 if the varint is longer than 10 bytes or runs past the buffer.
+     */
+    static long getVarLong(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 64 && buffer.hasRemaining(); shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        return -1;
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
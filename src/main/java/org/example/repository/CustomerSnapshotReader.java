@@ -0,0 +1,215 @@
+package org.example.repository;
+
+import org.example.model.Address;
+import org.example.model.Customer;
+import org.example.model.Product;
+import org.example.model.ShoppingCart;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reads a snapshot written by {@link CustomerSnapshotWriter}, one customer at a time.
+ * <p>Only the customer being assembled and one line of look-ahead are held in memory,
+ * so a snapshot of any size can be imported with constant memory. Every customer gets a
+ * {@link ShoppingCart} holding its cart lines (possibly none); customers written without
+ * an address are read back without one.</p>
+ * <p>As with the customer data file, malformed lines are reported and skipped; the cart
+ * and address lines following a malformed customer line are skipped with it.</p>
+ */
+public class CustomerSnapshotReader implements Closeable {
+
+    private static final int CUSTOMER_FIELDS = 5;
+    private static final int ADDRESS_FIELDS = 6;
+    private static final int PRODUCT_FIELDS = 6;
+
+    private final BufferedReader reader;
+    private final List<String> fields = new ArrayList<>();
+    private final StringBuilder field = new StringBuilder();
+    // The next line to process, already read while finishing the previous customer.
+    private String pending;
+
+    /**
+     * Opens a snapshot and checks its header.
+     *
+     * @param reader The source; buffered by the snapshot reader and closed with it.
+     * @throws IllegalArgumentException if the source is not a snapshot of a supported version.
+     */
+    public CustomerSnapshotReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        String header = this.readLine();
+        String expected = CustomerSnapshotWriter.HEADER + CustomerSnapshotWriter.DELIMITER + CustomerSnapshotWriter.VERSION;
+        if (!expected.equals(header)) {
+            throw new IllegalArgumentException("Not a customer snapshot (version " + CustomerSnapshotWriter.VERSION + "): " + header);
+        }
+        this.pending = this.readLine();
+    }
+
+    /**
+     * Imports a snapshot file into a repository, saving the customers in batches.
+     *
+     * @param file The snapshot file.
+     * @param repository The repository to save the customers to.
+     * @param batchSize The number of customers passed to each {@link ICustomerRepository#saveAll} call.
+     * @return The number of customers imported.
+     */
+    public static long importInto(Path file, ICustomerRepository repository, int batchSize) {
+        List<Customer> batch = new ArrayList<>(batchSize);
+        long count = 0;
+        try (CustomerSnapshotReader snapshot = new CustomerSnapshotReader(Files.newBufferedReader(file, StandardCharsets.UTF_8))) {
+            Customer customer;
+            while ((customer = snapshot.read()) != null) {
+                batch.add(customer);
+                count++;
+                if (batch.size() == batchSize) {
+                    repository.saveAll(batch);
+                    batch.clear();
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading customer snapshot: " + file, e);
+        }
+        if (!batch.isEmpty()) {
+            repository.saveAll(batch);
+        }
+        return count;
+    }
+
+    /**
+     * Reads the next customer with its address and cart lines.
+     *
+     * @return The customer, or {@code null} at the end of the snapshot.
+     */
+    public Customer read() {
+        while (this.pending != null) {
+            String line = this.pending;
+            this.pending = this.readLine();
+            Customer customer = this.parseCustomer(line);
+            if (customer == null) {
+                this.skipDetails();
+                continue;
+            }
+            ShoppingCart cart = new ShoppingCart(customer);
+            customer.setShoppingCart(cart);
+            while (this.pending != null && !this.pending.startsWith(CustomerSnapshotWriter.CUSTOMER + CustomerSnapshotWriter.DELIMITER)) {
+                this.parseDetail(this.pending, customer, cart);
+                this.pending = this.readLine();
+            }
+            return customer;
+        }
+        return null;
+    }
+
+    /**
+     * Passes every remaining customer to the action.
+     *
+     * @param action Receives the customers in snapshot order.
+     */
+    public void forEach(Consumer<? super Customer> action) {
+        Customer customer;
+        while ((customer = this.read()) != null) {
+            action.accept(customer);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.reader.close();
+    }
+
+    private Customer parseCustomer(String line) {
+        try {
+            if (!this.split(line, CustomerSnapshotWriter.CUSTOMER, CUSTOMER_FIELDS)) {
+                return malformed(line, "expected a customer record with " + CUSTOMER_FIELDS + " fields");
+            }
+            Customer customer = new Customer(this.fields.get(1), LocalDate.parse(this.fields.get(3)), null, null, 0);
+            customer.setPoints(Integer.parseInt(this.fields.get(2)));
+            customer.setBalanceMinor(Long.parseLong(this.fields.get(4)));
+            return customer;
+        } catch (RuntimeException e) {
+            return malformed(line, e.getMessage());
+        }
+    }
+
+    private void parseDetail(String line, Customer customer, ShoppingCart cart) {
+        try {
+            if (this.split(line, CustomerSnapshotWriter.ADDRESS, ADDRESS_FIELDS)) {
+                customer.setAddress(new Address(Integer.parseInt(this.fields.get(1)), this.fields.get(2),
+                        this.fields.get(3), this.fields.get(4), this.fields.get(5), customer));
+            } else if (this.split(line, CustomerSnapshotWriter.PRODUCT, PRODUCT_FIELDS)) {
+                Product product = new Product(this.fields.get(1), this.fields.get(2), 0,
+                        Integer.parseInt(this.fields.get(4)), Integer.parseInt(this.fields.get(5)));
+                product.setPriceMinor(Long.parseLong(this.fields.get(3)));
+                cart.addProduct(product);
+            } else {
+                malformed(line, "expected an address or product record");
+            }
+        } catch (RuntimeException e) {
+            malformed(line, e.getMessage());
+        }
+    }
+
+    private void skipDetails() {
+        while (this.pending != null && !this.pending.startsWith(CustomerSnapshotWriter.CUSTOMER + CustomerSnapshotWriter.DELIMITER)) {
+            malformed(this.pending, "belongs to a skipped customer");
+            this.pending = this.readLine();
+        }
+    }
+
+    /**
+     * Splits and unescapes a line into {@link #fields}.
+     *
+     * @return {@code true} if the line is a record of the given tag with the given number of fields.
+     */
+    private boolean split(String line, String tag, int expectedFields) {
+        if (!line.startsWith(tag) || line.length() <= tag.length() || line.charAt(tag.length()) != CustomerSnapshotWriter.DELIMITER) {
+            return false;
+        }
+        this.fields.clear();
+        this.field.setLength(0);
+        boolean isNull = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == CustomerSnapshotWriter.DELIMITER) {
+                this.fields.add(isNull ? null : this.field.toString());
+                this.field.setLength(0);
+                isNull = false;
+            } else if (c == CustomerSnapshotWriter.ESCAPE && i + 1 < line.length()) {
+                char escaped = line.charAt(++i);
+                switch (escaped) {
+                    case 'p' -> this.field.append(CustomerSnapshotWriter.DELIMITER);
+                    case 'n' -> this.field.append('\n');
+                    case 'r' -> this.field.append('\r');
+                    case '0' -> isNull = true;
+                    default -> this.field.append(escaped);
+                }
+            } else {
+                this.field.append(c);
+            }
+        }
+        this.fields.add(isNull ? null : this.field.toString());
+        return this.fields.size() == expectedFields;
+    }
+
+    private String readLine() {
+        try {
+            return this.reader.readLine();
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading customer snapshot.", e);
+        }
+    }
+
+    private static Customer malformed(String line, String error) {
+        System.err.println("Skipping malformed snapshot line: " + line + " Error: " + error);
+        return null;
+    }
+}
@@ -0,0 +1,153 @@
+package org.example.repository;
+
+import org.example.model.Address;
+import org.example.model.Customer;
+import org.example.model.Product;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes customers, including their shopping cart lines and address, to a streaming
+ * snapshot that {@link CustomerSnapshotReader} reads back.
+ * <p>The snapshot is UTF-8 text with a header line followed by one group of lines per
+ * customer, each line a pipe-delimited record tagged by its first field:</p>
+ * <pre>
+ * CUSTOMER-SNAPSHOT|1
+ * C|customerID|points|joinedOn|balanceMinor
+ * A|id|addressLine1|city|province|postalCode        (only if the customer has an address)
+ * P|name|serialNumber|priceMinor|unitPoints|qty      (one per cart line)
+ * </pre>
+ * <p>Amounts are written in exact minor units. In text fields, {@code \}, {@code |}, line
+ * feeds and carriage returns are escaped as {@code \\}, {@code \p}, {@code \n} and
+ * {@code \r}; {@code \0} stands for {@code null}. Each customer is written as soon as it
+ * is passed in, so exporting takes constant memory however large the snapshot is.</p>
+ */
+public class CustomerSnapshotWriter implements Closeable {
+
+    static final String HEADER = "CUSTOMER-SNAPSHOT";
+    static final int VERSION = 1;
+    static final char DELIMITER = '|';
+    static final char ESCAPE = '\\';
+    static final String CUSTOMER = "C";
+    static final String ADDRESS = "A";
+    static final String PRODUCT = "P";
+
+    private final Writer writer;
+    private final StringBuilder line = new StringBuilder();
+    private long count;
+
+    /**
+     * Starts a snapshot on a writer and writes its header.
+     *
+     * @param writer The destination; buffered by the snapshot writer and closed with it.
+     */
+    public CustomerSnapshotWriter(Writer writer) {
+        this.writer = writer instanceof BufferedWriter ? writer : new BufferedWriter(writer);
+        this.line.append(HEADER).append(DELIMITER).append(VERSION);
+        this.writeLine();
+    }
+
+    /**
+     * Exports every customer of a repository to a snapshot file, overwriting it.
+     *
+     * @param repository The repository to export.
+     * @param file The snapshot file.
+     * @return The number of customers written.
+     */
+    public static long export(ICustomerRepository repository, Path file) {
+        try (CustomerSnapshotWriter snapshot = new CustomerSnapshotWriter(Files.newBufferedWriter(file, StandardCharsets.UTF_8))) {
+            repository.forEach(snapshot::write);
+            return snapshot.getCount();
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing customer snapshot: " + file, e);
+        }
+    }
+
+    /**
+     * Appends a customer with its address and cart lines.
+     *
+     * @param customer The customer to write.
+     */
+    public void write(Customer customer) {
+        this.line.append(CUSTOMER);
+        this.field(customer.getCustomerID());
+        this.line.append(DELIMITER).append(customer.getPoints());
+        this.line.append(DELIMITER).append(customer.getJoinedOn());
+        this.line.append(DELIMITER).append(customer.getBalanceMinor());
+        this.writeLine();
+
+        Address address = customer.getAddress();
+        if (address != null) {
+            this.line.append(ADDRESS);
+            this.line.append(DELIMITER).append(address.getId());
+            this.field(address.getAddressLine1());
+            this.field(address.getCity());
+            this.field(address.getProvince());
+            this.field(address.getPostalCode());
+            this.writeLine();
+        }
+
+        if (customer.getShoppingCart() != null) {
+            for (Product product : customer.getShoppingCart().getItems()) {
+                this.line.append(PRODUCT);
+                this.field(product.getName());
+                this.field(product.getSerialNumber());
+                this.line.append(DELIMITER).append(product.getPriceMinor());
+                this.line.append(DELIMITER).append(product.getUnitPoints());
+                this.line.append(DELIMITER).append(product.getQty());
+                this.writeLine();
+            }
+        }
+        this.count++;
+    }
+
+    /**
+     * @return The number of customers written so far.
+     */
+    public long getCount() {
+        return this.count;
+    }
+
+    @Override
+    public void close() {
+        try {
+            this.writer.close();
+        } catch (IOException e) {
+            throw new RuntimeException("Error closing customer snapshot.", e);
+        }
+    }
+
+    private void field(String value) {
+        this.line.append(DELIMITER);
+        if (value == null) {
+            this.line.append(ESCAPE).append('0');
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case ESCAPE -> this.line.append(ESCAPE).append(ESCAPE);
+                case DELIMITER -> this.line.append(ESCAPE).append('p');
+                case '\n' -> this.line.append(ESCAPE).append('n');
+                case '\r' -> this.line.append(ESCAPE).append('r');
+                default -> this.line.append(c);
+            }
+        }
+    }
+
+    private void writeLine() {
+        try {
+            this.line.append('\n');
+            this.writer.append(this.line);
+            this.line.setLength(0);
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing customer snapshot.", e);
+        }
+    }
+}
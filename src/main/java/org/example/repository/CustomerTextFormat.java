@@ -0,0 +1,71 @@
+package org.example.repository;
+
+import org.example.model.Customer;
+import org.example.model.ICustomerDetailsSource;
+import org.example.model.Money;
+
+import java.time.LocalDate;
+import java.util.Optional;
+
+/**
+ * The pipe-delimited text record format shared by the file-backed repositories.
+ * <p>Format: {@code customerID|points|joinedOn|balance[|version]}. The record version is
+ * only written when a repository opts in to storing it (see {@link RecordVersions}), so
+ * files keep the original four-field layout by default. Both layouts are read. As with
+ * the original file repository, ShoppingCart and Address are not part of the record.</p>
+ */
+final class CustomerTextFormat {
+
+    static final String DELIMITER = "|";
+
+    private CustomerTextFormat() {
+    }
+
+    /**
+     * Converts a Customer object into a delimited String for file storage (Serialization).
+     * Format: customerID|points|joinedOn|balance
+     */
+    static String serialize(Customer customer) {
+        return customer.getCustomerID() + DELIMITER +
+                customer.getPoints() + DELIMITER +
+                customer.getJoinedOn().toString() + DELIMITER +
+                customer.getBalance();
+    }
+
+    /**
+     * Converts a Customer object into a delimited String, optionally with its version.
+     * Format: customerID|points|joinedOn|balance[|version]; a version of 0 is never written.
+     */
+    static String serialize(Customer customer, boolean withVersion) {
+        String record = serialize(customer);
+        return !withVersion || customer.getVersion() == 0 ? record : record + DELIMITER + customer.getVersion();
+    }
+
+    /**
+     * Converts a file line (String) back into a Customer object (Deserialization).
+     */
+    static Optional<Customer> deserialize(String line) {
+        try {
+            String[] parts = line.split("\\" + DELIMITER);
+            if (parts.length != 4 && parts.length != 5) return Optional.empty();
+
+            String customerID = parts[0];
+            int points = Integer.parseInt(parts[1]);
+            LocalDate joinedOn = LocalDate.parse(parts[2]);
+            double balance = Double.parseDouble(parts[3]);
+
+            // Note: ShoppingCart and Address are not serialized here; empty ones are created on first access.
+            Customer customer = new Customer(customerID, joinedOn, ICustomerDetailsSource.EMPTY, Money.toMinor(balance));
+            customer.setPoints(points); // Set points after construction
+            if (parts.length == 5) {
+                customer.setVersion(Long.parseLong(parts[4]));
+            }
+            return Optional.of(customer);
+
+        } catch (Exception e) {
+            // Log the error and skip the bad line
+            System.err.println("Skipping malformed data line: " + line + " Error: " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package org.example.repository;
+
+import org.example.exceptions.InsufficientFundsException;
+import org.example.model.Customer;
+import org.example.model.Money;
+
+/**
+ * The in-place changes behind {@link ICustomerRepository#addPoints} and
+ * {@link ICustomerRepository#debitBalance}, shared by all implementations so that they
+ * apply the same rules.
+ */
+final class CustomerUpdates {
+
+    private CustomerUpdates() {
+    }
+
+    /**
+     * Adds points to a customer.
+     *
+     * @throws ArithmeticException if the points would overflow.
+     */
+    static void addPoints(Customer customer, int delta) {
+        customer.setPoints(Math.addExact(customer.getPoints(), delta));
+    }
+
+    /**
+     * Rejects negative debits, which would credit the customer instead.
+     */
+    static void checkDebitAmount(long amountMinor) {
+        if (amountMinor < 0) {
+            throw new IllegalArgumentException("Debit amount must not be negative: " + amountMinor);
+        }
+    }
+
+    /**
+     * Takes an amount off a customer's balance.
+     *
+     * @throws InsufficientFundsException if the balance is smaller than the amount; the customer is left unchanged.
+     */
+    static void debit(Customer customer, long amountMinor) throws InsufficientFundsException {
+        if (customer.getBalanceMinor() < amountMinor) {
+            throw new InsufficientFundsException("Customer " + customer.getCustomerID() + " has a balance of "
+                    + Money.format(customer.getBalanceMinor()) + ", less than " + Money.format(amountMinor));
+        }
+        customer.setBalanceMinor(customer.getBalanceMinor() - amountMinor);
+    }
+}
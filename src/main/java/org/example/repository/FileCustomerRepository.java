@@ -1,20 +1,31 @@
 package org.example.repository;
 
 import org.example.exceptions.CustomerNotFoundException;
-import org.example.model.Address;
+import org.example.exceptions.InsufficientFundsException;
+import org.example.exceptions.StaleCustomerVersionException;
 import org.example.model.Customer;
-import org.example.model.ShoppingCart;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.time.LocalDate;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
@@ -23,14 +34,30 @@ import java.util.stream.Collectors;
  * <p>This implementation handles file I/O and object serialization/deserialization.
  * Note: For simplicity, complex dependencies (ShoppingCart, Address) are omitted
  * from file serialization/deserialization.</p>
+ * <p>Reads and writes are serialized within the repository, and writes give each saved
+ * customer the next record version, which {@link #saveIfCurrent} checks before writing.
+ * Versions are kept in memory unless the repository is opened with {@code storeVersions},
+ * so by default the file keeps its original four-field layout.</p>
  */
 public class FileCustomerRepository implements ICustomerRepository {
 
     // Define the path to the storage file.
     private Path path;
-    private static final String DELIMITER = "|";
+    private final RecordVersions versions;
 
     public FileCustomerRepository(String repoFile) {
+        this(repoFile, false);
+    }
+
+    /**
+     * Opens (or creates) the customer file.
+     *
+     * @param repoFile The path of the customer data file.
+     * @param storeVersions Whether record versions are written to the file, which older
+     *                      readers of customer files cannot read.
+     */
+    public FileCustomerRepository(String repoFile, boolean storeVersions) {
+        this.versions = new RecordVersions(storeVersions);
         // Ensure the file exists when the repository is created
         this.path = Paths.get(repoFile);
         if (!Files.exists(this.path)) {
@@ -44,21 +71,155 @@ public class FileCustomerRepository implements ICustomerRepository {
     }
 
     @Override
-    public Optional<Customer> findById(String customerId) {
+    public synchronized Optional<Customer> findById(String customerId) {
         Map<String, Customer> customers = readAllCustomers();
         return Optional.ofNullable(customers.get(customerId));
     }
 
+    /**
+     * Finds the whole batch in a single pass over the file, only deserializing the
+     * lines of the requested customers.
+     */
     @Override
-    public void save(Customer customer) {
+    public synchronized Map<String, Customer> findAllById(Collection<String> customerIds) {
+        Set<String> wanted = new HashSet<>(customerIds);
+        Map<String, Customer> found = new HashMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(this.path)) {
+            reader.lines()
+                    .filter(line -> {
+                        int idEnd = line.indexOf(CustomerTextFormat.DELIMITER);
+                        return idEnd > 0 && wanted.contains(line.substring(0, idEnd));
+                    })
+                    .map(CustomerTextFormat::deserialize)
+                    .filter(Optional::isPresent)
+                    .map(Optional::get)
+                    .map(this.versions::restore)
+                    .forEach(customer -> found.put(customer.getCustomerID(), customer));
+        } catch (IOException e) {
+            System.err.println("Error reading customer data from file: " + e.getMessage());
+        }
+        return found;
+    }
+
+    @Override
+    public synchronized void save(Customer customer) {
         Map<String, Customer> customers = readAllCustomers();
         // Overwrite existing or add new customer
+        customer.setVersion(nextVersion(customers.get(customer.getCustomerID())));
         customers.put(customer.getCustomerID(), customer);
         writeAllCustomers(customers);
+        this.versions.saved(customer);
     }
 
     @Override
-    public void delete(String customerId) throws CustomerNotFoundException {
+    public synchronized void saveIfCurrent(Customer customer) throws StaleCustomerVersionException {
+        Map<String, Customer> customers = readAllCustomers();
+        Customer stored = customers.get(customer.getCustomerID());
+        long current = stored == null ? 0 : stored.getVersion();
+        if (current != customer.getVersion()) {
+            throw new StaleCustomerVersionException(customer.getCustomerID(), customer.getVersion(), current);
+        }
+        customer.setVersion(current + 1);
+        customers.put(customer.getCustomerID(), customer);
+        writeAllCustomers(customers);
+        this.versions.saved(customer);
+    }
+
+    /**
+     * Saves the whole batch with a single read and a single rewrite of the file.
+     */
+    @Override
+    public synchronized void saveAll(Collection<Customer> batch) {
+        Map<String, Customer> customers = readAllCustomers();
+        for (Customer customer : batch) {
+            customer.setVersion(nextVersion(customers.get(customer.getCustomerID())));
+            customers.put(customer.getCustomerID(), customer);
+        }
+        writeAllCustomers(customers);
+        batch.forEach(this.versions::saved);
+    }
+
+    /**
+     * Checks and saves the whole batch with a single read and a single rewrite of the file.
+     */
+    @Override
+    public synchronized Set<String> saveAllIfCurrent(Collection<Customer> batch) {
+        Map<String, Customer> customers = readAllCustomers();
+        Set<String> stale = new LinkedHashSet<>();
+        List<Customer> saved = new ArrayList<>(batch.size());
+        for (Customer customer : batch) {
+            Customer stored = customers.get(customer.getCustomerID());
+            long current = stored == null ? 0 : stored.getVersion();
+            if (current != customer.getVersion()) {
+                stale.add(customer.getCustomerID());
+                continue;
+            }
+            customer.setVersion(current + 1);
+            customers.put(customer.getCustomerID(), customer);
+            saved.add(customer);
+        }
+        if (!saved.isEmpty()) {
+            writeAllCustomers(customers);
+            saved.forEach(this.versions::saved);
+        }
+        return stale;
+    }
+
+    /**
+     * Applies the saves and the deletes with a single read and a single rewrite of the file.
+     */
+    @Override
+    public synchronized void saveAllAndDeleteAll(Collection<Customer> batch, Collection<String> customerIds) {
+        Map<String, Customer> customers = readAllCustomers();
+        for (Customer customer : batch) {
+            customer.setVersion(nextVersion(customers.get(customer.getCustomerID())));
+            customers.put(customer.getCustomerID(), customer);
+        }
+        for (String customerId : customerIds) {
+            customers.remove(customerId);
+        }
+        writeAllCustomers(customers);
+        batch.forEach(this.versions::saved);
+        customerIds.forEach(this.versions::deleted);
+    }
+
+    /**
+     * Updates the customer with a single read and a single rewrite of the file.
+     */
+    @Override
+    public synchronized Customer addPoints(String customerId, int delta) throws CustomerNotFoundException {
+        Map<String, Customer> customers = readAllCustomers();
+        Customer customer = customers.get(customerId);
+        if (customer == null) {
+            throw new CustomerNotFoundException(customerId);
+        }
+        CustomerUpdates.addPoints(customer, delta);
+        customer.setVersion(customer.getVersion() + 1);
+        writeAllCustomers(customers);
+        this.versions.saved(customer);
+        return customer;
+    }
+
+    /**
+     * Updates the customer with a single read and a single rewrite of the file.
+     */
+    @Override
+    public synchronized Customer debitBalance(String customerId, long amountMinor) throws InsufficientFundsException {
+        CustomerUpdates.checkDebitAmount(amountMinor);
+        Map<String, Customer> customers = readAllCustomers();
+        Customer customer = customers.get(customerId);
+        if (customer == null) {
+            throw new CustomerNotFoundException(customerId);
+        }
+        CustomerUpdates.debit(customer, amountMinor);
+        customer.setVersion(customer.getVersion() + 1);
+        writeAllCustomers(customers);
+        this.versions.saved(customer);
+        return customer;
+    }
+
+    @Override
+    public synchronized void delete(String customerId) throws CustomerNotFoundException {
         Map<String, Customer> customers = readAllCustomers();
 
         if (customers.remove(customerId) == null) {
@@ -67,6 +228,29 @@ public class FileCustomerRepository implements ICustomerRepository {
         }
 
         writeAllCustomers(customers);
+        this.versions.deleted(customerId);
+    }
+
+    /**
+     * Streams the file line by line, so a full scan does not load every customer at once.
+     * Writers wait until the scan has finished.
+     */
+    @Override
+    public synchronized void forEach(Consumer<? super Customer> action) {
+        try (BufferedReader reader = Files.newBufferedReader(this.path)) {
+            reader.lines()
+                    .map(CustomerTextFormat::deserialize)
+                    .filter(Optional::isPresent)
+                    .map(Optional::get)
+                    .map(this.versions::restore)
+                    .forEach(action);
+        } catch (IOException e) {
+            System.err.println("Error reading customer data from file: " + e.getMessage());
+        }
+    }
+
+    private static long nextVersion(Customer stored) {
+        return stored == null ? 1 : stored.getVersion() + 1;
     }
 
     /**
@@ -78,9 +262,10 @@ public class FileCustomerRepository implements ICustomerRepository {
     private Map<String, Customer> readAllCustomers() {
         try (BufferedReader reader = Files.newBufferedReader(this.path)) {
             return reader.lines()
-                    .map(this::deserialize)
+                    .map(CustomerTextFormat::deserialize)
                     .filter(Optional::isPresent)
                     .map(Optional::get)
+                    .map(this.versions::restore)
                     .collect(Collectors.toMap(Customer::getCustomerID, c -> c));
         } catch (IOException e) {
             // If reading fails, return an empty map and log the error
@@ -90,56 +275,32 @@ public class FileCustomerRepository implements ICustomerRepository {
     }
 
     /**
-     * Writes all customer data from a Map back to the disk file, overwriting the contents.
+     * Writes all customer data from a Map to a temporary file next to the data file,
+     * forces it to disk and then atomically renames it over the data file, so a crash
+     * mid-write leaves the previous contents intact.
      *
      * @param customers The map of customers to write.
      */
     private void writeAllCustomers(Map<String, Customer> customers) {
-        try (BufferedWriter writer = Files.newBufferedWriter(this.path)) {
+        Path temp = this.path.resolveSibling(this.path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+             BufferedWriter writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8))) {
             String content = customers.values().stream()
-                    .map(this::serialize)
+                    .map(this.versions::serialize)
                     .collect(Collectors.joining(System.lineSeparator()));
 
             writer.write(content);
+            writer.flush();
+            channel.force(false);
         } catch (IOException e) {
             // In a real app, this should throw a checked exception or be robustly handled.
             throw new RuntimeException("Error writing customer data to file.", e);
         }
-    }
-
-    /**
-     * Converts a Customer object into a delimited String for file storage (Serialization).
-     * Format: customerID|points|joinedOn|balance
-     */
-    private String serialize(Customer customer) {
-        return customer.getCustomerID() + DELIMITER +
-                customer.getPoints() + DELIMITER +
-                customer.getJoinedOn().toString() + DELIMITER +
-                customer.getBalance();
-    }
-
-    /**
-     * Converts a file line (String) back into a Customer object (Deserialization).
-     */
-    private Optional<Customer> deserialize(String line) {
         try {
-            String[] parts = line.split("\\" + DELIMITER);
-            if (parts.length != 4) return Optional.empty();
-
-            String customerID = parts[0];
-            int points = Integer.parseInt(parts[1]);
-            LocalDate joinedOn = LocalDate.parse(parts[2]);
-            double balance = Double.parseDouble(parts[3]);
-
-            // Note: ShoppingCart and Address are null/empty, as they are not serialized here.
-            Customer customer = new Customer(customerID, joinedOn, new ShoppingCart(null), new Address(), balance);
-            customer.setPoints(points); // Set points after construction
-            return Optional.of(customer);
-
-        } catch (Exception e) {
-            // Log the error and skip the bad line
-            System.err.println("Skipping malformed data line: " + line + " Error: " + e.getMessage());
-            return Optional.empty();
+            Files.move(temp, this.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new RuntimeException("Error replacing customer data file: " + this.path, e);
         }
     }
 }
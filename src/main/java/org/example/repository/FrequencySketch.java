@@ -0,0 +1,77 @@
+package org.example.repository;
+
+/**
+ * A count-min sketch of 4-bit counters estimating how often each key was accessed,
+ * used as the TinyLFU admission filter of {@link CachingCustomerRepository}.
+ * <p>All counters are halved once the number of recorded accesses reaches ten times
+ * the cache size, so that the estimate follows recent rather than all-time popularity.
+ * Not thread-safe; callers synchronize.</p>
+ */
+final class FrequencySketch {
+
+    private static final int DEPTH = 4;
+    private static final int MAX_COUNT = 15;
+    private static final int[] SEEDS = {0x97cb3127, 0xb9c3e1d3, 0x5bd1e995, 0x27d4eb2f};
+
+    private final byte[] table;
+    private final int mask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int maximumSize) {
+        int width = Integer.highestOneBit(Math.max(16, maximumSize) * 2 - 1) << 1;
+        this.table = new byte[width * DEPTH];
+        this.mask = width - 1;
+        this.sampleSize = Math.max(10 * maximumSize, 16);
+    }
+
+    /**
+     * Records one access to a key.
+     */
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int row = 0; row < DEPTH; row++) {
+            int slot = this.slot(hash, row);
+            if (this.table[slot] < MAX_COUNT) {
+                this.table[slot]++;
+                added = true;
+            }
+        }
+        if (added && ++this.additions >= this.sampleSize) {
+            this.reset();
+        }
+    }
+
+    /**
+     * @return The estimated number of recent accesses to a key, between 0 and 15.
+     */
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int frequency = MAX_COUNT;
+        for (int row = 0; row < DEPTH; row++) {
+            frequency = Math.min(frequency, this.table[this.slot(hash, row)]);
+        }
+        return frequency;
+    }
+
+    private int slot(int hash, int row) {
+        int h = (hash ^ SEEDS[row]) * SEEDS[(row + 1) % DEPTH];
+        h ^= h >>> 16;
+        return row * (this.mask + 1) + (h & this.mask);
+    }
+
+    private void reset() {
+        for (int i = 0; i < this.table.length; i++) {
+            this.table[i] >>= 1;
+        }
+        this.additions /= 2;
+    }
+
+    private static int spread(int hash) {
+        hash ^= hash >>> 17;
+        hash *= 0xed5ad4bb;
+        hash ^= hash >>> 11;
+        return hash;
+    }
+}
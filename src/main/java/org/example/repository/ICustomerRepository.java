@@ -1,8 +1,17 @@
 package org.example.repository;
 
 import org.example.exceptions.CustomerNotFoundException;
+import org.example.exceptions.InsufficientFundsException;
+import org.example.exceptions.StaleCustomerVersionException;
 import org.example.model.Customer;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Defines the contract for accessing and managing customer data.
@@ -19,6 +28,22 @@ public interface ICustomerRepository {
      */
     Optional<Customer> findById(String customerId);
 
+    /**
+     * Retrieves several customers at once.
+     * <p>The default implementation looks them up one by one; implementations that have to
+     * scan their storage override it to find the whole batch in a single pass.</p>
+     *
+     * @param customerIds The IDs of the customers to find.
+     * @return A Map from customer ID to Customer holding only the customers that were found.
+     */
+    default Map<String, Customer> findAllById(Collection<String> customerIds) {
+        Map<String, Customer> found = new HashMap<>();
+        for (String customerId : customerIds) {
+            findById(customerId).ifPresent(customer -> found.put(customerId, customer));
+        }
+        return found;
+    }
+
     /**
      * Saves a new customer or updates an existing customer.
      *
@@ -26,6 +51,120 @@ public interface ICustomerRepository {
      */
     void save(Customer customer);
 
+    /**
+     * Saves a customer only if the stored record still has the version the customer was
+     * read with ({@link Customer#getVersion()}), i.e. nobody saved it in between. Stored
+     * customers always have a version of at least 1, even when their record carries none,
+     * so a version of 0 means the customer must not exist yet. On success the stored record, and the
+     * given instance, get the next version.
+     * <p>The customer must be the caller's own copy: repositories and decorators that hand
+     * out shared instances cannot tell a change to one from the stored state, so changes
+     * should be made to {@code new Customer(found)}, as {@link OptimisticRetry} does.</p>
+     * <p>Versioned repositories also give the record the next version on every plain
+     * {@code save}, so a conditional save never overwrites an unconditional one unseen.
+     * The default implementation does not support versions.</p>
+     *
+     * @param customer The {@link Customer} object to be persisted.
+     * @throws StaleCustomerVersionException if the stored version differs.
+     * @throws UnsupportedOperationException if the repository does not keep versions.
+     */
+    default void saveIfCurrent(Customer customer) throws StaleCustomerVersionException {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support conditional saves");
+    }
+
+    /**
+     * Saves a batch of customers conditionally: as with {@link #saveIfCurrent}, each
+     * customer is only saved if its stored record still has the version it was read with.
+     * Customers that are stale are left out; all others are saved and get the next version.
+     * <p>The default implementation saves them one by one; file-backed implementations
+     * override it to check the whole batch and persist it with a single write.</p>
+     *
+     * @param customers The caller's own copies of the customers to persist.
+     * @return The IDs of the customers that were not saved because their version was stale.
+     * @throws UnsupportedOperationException if the repository does not keep versions.
+     */
+    default Set<String> saveAllIfCurrent(Collection<Customer> customers) {
+        Set<String> stale = new LinkedHashSet<>();
+        for (Customer customer : customers) {
+            try {
+                saveIfCurrent(customer);
+            } catch (StaleCustomerVersionException e) {
+                stale.add(customer.getCustomerID());
+            }
+        }
+        return stale;
+    }
+
+    /**
+     * Atomically adds loyalty points to a customer; concurrent calls for the same customer
+     * are never lost.
+     * <p>The default implementation retries a read and a {@link #saveIfCurrent} until no
+     * other writer got in between; versioned repositories override it with a single
+     * in-place update.</p>
+     *
+     * @param customerId The ID of the customer.
+     * @param delta The points to add; negative to take points away.
+     * @return The customer after the update.
+     * @throws CustomerNotFoundException if the customer with the given ID does not exist.
+     * @throws UnsupportedOperationException if the repository does not keep versions or is read-only.
+     */
+    default Customer addPoints(String customerId, int delta) throws CustomerNotFoundException {
+        return OptimisticRetry.update(this, customerId, customer -> CustomerUpdates.addPoints(customer, delta));
+    }
+
+    /**
+     * Atomically takes an amount off a customer's balance, unless the balance is too small.
+     * <p>The default implementation retries a read and a {@link #saveIfCurrent} until no
+     * other writer got in between; versioned repositories override it with a single
+     * in-place update.</p>
+     *
+     * @param customerId The ID of the customer.
+     * @param amountMinor The amount to debit, in minor units; must not be negative.
+     * @return The customer after the update.
+     * @throws InsufficientFundsException if the balance is smaller than the amount; nothing is changed.
+     * @throws CustomerNotFoundException if the customer with the given ID does not exist.
+     * @throws UnsupportedOperationException if the repository does not keep versions or is read-only.
+     */
+    default Customer debitBalance(String customerId, long amountMinor) throws InsufficientFundsException {
+        CustomerUpdates.checkDebitAmount(amountMinor);
+        return OptimisticRetry.update(this, customerId, customer -> CustomerUpdates.debit(customer, amountMinor));
+    }
+
+    /**
+     * Saves a batch of new or updated customers.
+     * <p>The default implementation saves them one by one; file-backed implementations
+     * override it to persist the whole batch with a single write.</p>
+     *
+     * @param customers The {@link Customer} objects to be persisted.
+     */
+    default void saveAll(Collection<Customer> customers) {
+        for (Customer customer : customers) {
+            save(customer);
+        }
+    }
+
+    /**
+     * Saves a batch of new or updated customers and deletes a batch of customers together.
+     * <p>The default implementation calls {@link #saveAll} and then deletes the customers
+     * one by one; implementations that rewrite their storage on every change override it
+     * to apply the saves and the deletes with a single write.</p>
+     *
+     * @param customers The {@link Customer} objects to be persisted.
+     * @param customerIds The IDs of the customers to delete; IDs that do not exist are ignored.
+     */
+    default void saveAllAndDeleteAll(Collection<Customer> customers, Collection<String> customerIds) {
+        if (!customers.isEmpty()) {
+            saveAll(customers);
+        }
+        for (String customerId : customerIds) {
+            try {
+                delete(customerId);
+            } catch (CustomerNotFoundException e) {
+                // Nothing to delete.
+            }
+        }
+    }
+
     /**
      * Deletes a customer by their unique ID.
      *
@@ -33,4 +172,11 @@ public interface ICustomerRepository {
      * @throws CustomerNotFoundException if the customer with the given ID does not exist.
      */
     void delete(String customerId) throws CustomerNotFoundException;
+
+    /**
+     * Performs an action for every customer in the repository, in no particular order.
+     *
+     * @param action The action to perform on each {@link Customer}.
+     */
+    void forEach(Consumer<? super Customer> action);
 }
@@ -0,0 +1,41 @@
+package org.example.repository;
+
+import org.example.model.Customer;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * An {@link ICustomerRepository} that can also find customers by ranges of their points,
+ * balance and join date without scanning every customer.
+ * <p>All bounds are inclusive. Results are ordered by the queried field, ascending.</p>
+ */
+public interface IRangeQueryableCustomerRepository extends ICustomerRepository {
+
+    /**
+     * Finds the customers whose loyalty points lie in {@code [min, max]}.
+     *
+     * @param min The smallest number of points.
+     * @param max The largest number of points.
+     * @return The matching customers, by ascending points.
+     */
+    List<Customer> findByPointsBetween(int min, int max);
+
+    /**
+     * Finds the customers whose balance lies in {@code [minMinor, maxMinor]}.
+     *
+     * @param minMinor The smallest balance, in minor units.
+     * @param maxMinor The largest balance, in minor units.
+     * @return The matching customers, by ascending balance.
+     */
+    List<Customer> findByBalanceBetween(long minMinor, long maxMinor);
+
+    /**
+     * Finds the customers who joined between two dates.
+     *
+     * @param from The earliest join date.
+     * @param to The latest join date.
+     * @return The matching customers, by ascending join date.
+     */
+    List<Customer> findByJoinedBetween(LocalDate from, LocalDate to);
+}
@@ -1,17 +1,24 @@
 package org.example.repository;
 
 import org.example.exceptions.CustomerNotFoundException;
+import org.example.exceptions.InsufficientFundsException;
+import org.example.exceptions.StaleCustomerVersionException;
 import org.example.model.Customer;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
         * A working, but simplified (in-memory) implementation of CustomerRepository.
         * This is the FAKE used in testing to simulate database/file persistence
  * without requiring actual I/O.
+ * <p>Access is serialized within the repository. Every write gives the stored customer
+ * the next version, so {@link #saveIfCurrent} can detect concurrent changes, and points
+ * and balance updates are applied in place.</p>
  */
 public class InMemoryCustomerRepository implements ICustomerRepository {
     // Internal state that simulates the database table
@@ -22,30 +29,105 @@ public class InMemoryCustomerRepository implements ICustomerRepository {
      */
     public InMemoryCustomerRepository() {
         // Pre-load a few fake customers
-        customers.put("C1001", new Customer("C1001", LocalDate.now(), null, null, 100.00));
-        customers.put("C1002", new Customer("C1002", LocalDate.now(), null, null, 500.00));
+        preload(new Customer("C1001", LocalDate.now(), null, null, 100.00));
+        preload(new Customer("C1002", LocalDate.now(), null, null, 500.00));
+    }
+
+    private void preload(Customer customer) {
+        // Stored customers have at least version 1; version 0 means "does not exist yet".
+        customer.setVersion(1);
+        customers.put(customer.getCustomerID(), customer);
     }
 
     @Override
-    public Optional<Customer> findById(String customerId) throws CustomerNotFoundException {
+    public synchronized Optional<Customer> findById(String customerId) throws CustomerNotFoundException {
         if (!customers.containsKey(customerId)) {
             throw new CustomerNotFoundException("Customer not found with ID: " + customerId);
         }
         // Returns a copy to simulate reading from storage
         Customer original = customers.get(customerId);
-        return Optional.of(new Customer(original.getCustomerID(), original.getJoinedOn(), original.getShoppingCart(), original.getAddress(), original.getBalance()));
+        return Optional.of(new Customer(original));
+    }
+
+    @Override
+    public synchronized Map<String, Customer> findAllById(Collection<String> customerIds) {
+        // Unlike findById, customers that are not found are simply left out
+        Map<String, Customer> found = new HashMap<>();
+        for (String customerId : customerIds) {
+            Customer original = customers.get(customerId);
+            if (original != null) {
+                found.put(customerId, new Customer(original));
+            }
+        }
+        return found;
     }
 
     @Override
-    public void save(Customer customer) {
+    public synchronized void save(Customer customer) {
         // Simulates writing a record to the database
+        customer.setVersion(nextVersion(customers.get(customer.getCustomerID())));
         customers.put(customer.getCustomerID(), customer);
     }
 
     @Override
-    public void delete(String customerId) throws CustomerNotFoundException {
+    public synchronized void saveIfCurrent(Customer customer) throws StaleCustomerVersionException {
+        Customer stored = customers.get(customer.getCustomerID());
+        if (stored == customer) {
+            throw new IllegalStateException("Conditional save of the stored instance of customer "
+                    + customer.getCustomerID() + "; change a copy of it instead");
+        }
+        long current = stored == null ? 0 : stored.getVersion();
+        if (current != customer.getVersion()) {
+            throw new StaleCustomerVersionException(customer.getCustomerID(), customer.getVersion(), current);
+        }
+        customer.setVersion(current + 1);
+        customers.put(customer.getCustomerID(), new Customer(customer));
+    }
+
+    /**
+     * Adds the points to the stored customer in place.
+     */
+    @Override
+    public synchronized Customer addPoints(String customerId, int delta) throws CustomerNotFoundException {
+        Customer customer = customers.get(customerId);
+        if (customer == null) {
+            throw new CustomerNotFoundException(customerId);
+        }
+        CustomerUpdates.addPoints(customer, delta);
+        customer.setVersion(customer.getVersion() + 1);
+        return new Customer(customer);
+    }
+
+    /**
+     * Debits the stored customer in place; a rejected debit leaves it, and its version, untouched.
+     */
+    @Override
+    public synchronized Customer debitBalance(String customerId, long amountMinor) throws InsufficientFundsException {
+        CustomerUpdates.checkDebitAmount(amountMinor);
+        Customer customer = customers.get(customerId);
+        if (customer == null) {
+            throw new CustomerNotFoundException(customerId);
+        }
+        CustomerUpdates.debit(customer, amountMinor);
+        customer.setVersion(customer.getVersion() + 1);
+        return new Customer(customer);
+    }
+
+    @Override
+    public synchronized void delete(String customerId) throws CustomerNotFoundException {
         if (customers.remove(customerId) == null) {
             throw new CustomerNotFoundException("Customer not found for deletion with ID: " + customerId);
         }
     }
+
+    @Override
+    public synchronized void forEach(Consumer<? super Customer> action) {
+        for (Customer original : customers.values()) {
+            action.accept(new Customer(original));
+        }
+    }
+
+    private static long nextVersion(Customer stored) {
+        return stored == null ? 1 : stored.getVersion() + 1;
+    }
 }
\ No newline at end of file
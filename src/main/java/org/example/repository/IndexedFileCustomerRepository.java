@@ -0,0 +1,551 @@
+package org.example.repository;
+
+import org.example.exceptions.CustomerNotFoundException;
+import org.example.exceptions.InsufficientFundsException;
+import org.example.exceptions.StaleCustomerVersionException;
+import org.example.model.Customer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * A log-structured implementation of the {@link ICustomerRepository} backed by the
+ * same pipe-delimited customer file used by {@link FileCustomerRepository}.
+ * <p>The file is scanned once on startup to build an in-memory index from customer ID
+ * to the position of its latest record. Afterwards {@code findById} reads a single
+ * record, and {@code save}/{@code delete} append one record (or tombstone) to the end
+ * of the file instead of rewriting it. A background task compacts the file once
+ * enough of it is occupied by superseded records.</p>
+ * <p>A compacted file is a plain customer file again. Between compactions the file may
+ * hold several records per customer and tombstones ({@code customerID|-}), so it should
+ * only be read through this class.</p>
+ * <p>Record versions are kept in memory unless the repository is opened with
+ * {@code storeVersions}, so by default records keep the original four-field layout.</p>
+ */
+public class IndexedFileCustomerRepository implements ICustomerRepository, Closeable {
+
+    private static final String TOMBSTONE = "-";
+    private static final byte NEWLINE = '\n';
+    private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+
+    // A record pointer packs the file offset (upper 40 bits) and the record length (lower 24 bits).
+    private static final int LENGTH_BITS = 24;
+    private static final long LENGTH_MASK = (1L << LENGTH_BITS) - 1;
+
+    private static final Duration DEFAULT_COMPACTION_INTERVAL = Duration.ofSeconds(30);
+    private static final double DEFAULT_GARBAGE_RATIO = 0.5;
+    // Do not bother compacting files with less garbage than this, whatever the ratio.
+    private static final long MIN_GARBAGE_BYTES = 64 * 1024;
+
+    private final Path path;
+    private final double garbageRatio;
+    private final RecordVersions versions;
+    private final ScheduledExecutorService compactor;
+    // Serializes compactions; never acquired while holding "this".
+    private final Object compactionLock = new Object();
+
+    // All fields below are guarded by "this".
+    private FileChannel channel;
+    private Map<String, Long> index = new HashMap<>();
+    private long endOffset;
+    private long garbageBytes;
+
+    /**
+     * Opens (or creates) the customer file with the default background compaction settings.
+     *
+     * @param repoFile The path of the customer data file.
+     */
+    public IndexedFileCustomerRepository(String repoFile) {
+        this(repoFile, DEFAULT_COMPACTION_INTERVAL, DEFAULT_GARBAGE_RATIO);
+    }
+
+    /**
+     * Opens (or creates) the customer file and builds the in-memory offset index.
+     *
+     * @param repoFile The path of the customer data file.
+     * @param compactionInterval How often the background task checks whether to compact.
+     * @param garbageRatio The fraction of the file occupied by superseded records and
+     *                     tombstones above which the file is compacted.
+     */
+    public IndexedFileCustomerRepository(String repoFile, Duration compactionInterval, double garbageRatio) {
+        this(repoFile, compactionInterval, garbageRatio, false);
+    }
+
+    /**
+     * Opens (or creates) the customer file and builds the in-memory offset index.
+     *
+     * @param repoFile The path of the customer data file.
+     * @param compactionInterval How often the background task checks whether to compact.
+     * @param garbageRatio The fraction of the file occupied by superseded records and
+     *                     tombstones above which the file is compacted.
+     * @param storeVersions Whether record versions are written to the file, so that they
+     *                      survive reopening it; older readers of customer files cannot read them.
+     */
+    public IndexedFileCustomerRepository(String repoFile, Duration compactionInterval, double garbageRatio,
+                                         boolean storeVersions) {
+        this.path = Paths.get(repoFile);
+        this.garbageRatio = garbageRatio;
+        this.versions = new RecordVersions(storeVersions);
+        try {
+            this.channel = openChannel(this.path);
+            this.endOffset = this.channel.size();
+            this.garbageBytes = scan(this.channel, 0, this.endOffset, 0, this.index);
+            terminateLastLine();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to open customer data file: " + this.path, e);
+        }
+
+        this.compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "customer-file-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = compactionInterval.toMillis();
+        this.compactor.scheduleWithFixedDelay(this::compactIfNeeded, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized Optional<Customer> findById(String customerId) {
+        Long pointer = this.index.get(customerId);
+        if (pointer == null) {
+            return Optional.empty();
+        }
+        try {
+            return CustomerTextFormat.deserialize(readRecord(this.channel, pointer)).map(this.versions::restore);
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading customer " + customerId + " from file.", e);
+        }
+    }
+
+    @Override
+    public synchronized void save(Customer customer) {
+        customer.setVersion(this.storedVersion(customer.getCustomerID()) + 1);
+        this.appendRecord(customer);
+    }
+
+    /**
+     * Checks the version of the latest record with a single read before appending.
+     */
+    @Override
+    public synchronized void saveIfCurrent(Customer customer) throws StaleCustomerVersionException {
+        long current = this.storedVersion(customer.getCustomerID());
+        if (current != customer.getVersion()) {
+            throw new StaleCustomerVersionException(customer.getCustomerID(), customer.getVersion(), current);
+        }
+        customer.setVersion(current + 1);
+        this.appendRecord(customer);
+    }
+
+    /**
+     * Reads the customer's record and appends the updated one; no other record is touched.
+     */
+    @Override
+    public synchronized Customer addPoints(String customerId, int delta) throws CustomerNotFoundException {
+        Customer customer = this.findById(customerId).orElseThrow(() -> new CustomerNotFoundException(customerId));
+        CustomerUpdates.addPoints(customer, delta);
+        customer.setVersion(customer.getVersion() + 1);
+        this.appendRecord(customer);
+        return customer;
+    }
+
+    /**
+     * Reads the customer's record and appends the updated one; no other record is touched.
+     */
+    @Override
+    public synchronized Customer debitBalance(String customerId, long amountMinor) throws InsufficientFundsException {
+        CustomerUpdates.checkDebitAmount(amountMinor);
+        Customer customer = this.findById(customerId).orElseThrow(() -> new CustomerNotFoundException(customerId));
+        CustomerUpdates.debit(customer, amountMinor);
+        customer.setVersion(customer.getVersion() + 1);
+        this.appendRecord(customer);
+        return customer;
+    }
+
+    /**
+     * Appends the whole batch with a single write and forces it to disk once, so the
+     * cost of the sync is shared by every customer in the batch.
+     */
+    @Override
+    public synchronized void saveAll(Collection<Customer> customers) {
+        List<byte[]> records = new ArrayList<>(customers.size());
+        Map<String, Long> versions = new HashMap<>();
+        int size = 0;
+        for (Customer customer : customers) {
+            Long batchVersion = versions.get(customer.getCustomerID());
+            customer.setVersion((batchVersion != null ? batchVersion : this.storedVersion(customer.getCustomerID())) + 1);
+            versions.put(customer.getCustomerID(), customer.getVersion());
+            byte[] record = this.versions.serialize(customer).getBytes(StandardCharsets.UTF_8);
+            records.add(record);
+            size += record.length + 1;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        for (byte[] record : records) {
+            buffer.put(record).put(NEWLINE);
+        }
+        buffer.flip();
+
+        long offset = this.endOffset;
+        try {
+            writeFully(this.channel, offset, buffer);
+            this.channel.force(false);
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing customer data to file.", e);
+        }
+        this.endOffset += size;
+
+        Iterator<byte[]> recordIterator = records.iterator();
+        for (Customer customer : customers) {
+            byte[] record = recordIterator.next();
+            Long previous = this.index.put(customer.getCustomerID(), pointer(offset, record.length));
+            if (previous != null) {
+                this.garbageBytes += recordLength(previous) + 1;
+            }
+            this.versions.saved(customer);
+            offset += record.length + 1;
+        }
+    }
+
+    /**
+     * Checks the versions of the whole batch, then appends the current customers with a
+     * single write and a single sync.
+     */
+    @Override
+    public synchronized Set<String> saveAllIfCurrent(Collection<Customer> customers) {
+        Set<String> stale = new LinkedHashSet<>();
+        List<Customer> current = new ArrayList<>(customers.size());
+        Map<String, Long> versions = new HashMap<>();
+        for (Customer customer : customers) {
+            Long batchVersion = versions.get(customer.getCustomerID());
+            long stored = batchVersion != null ? batchVersion : this.storedVersion(customer.getCustomerID());
+            if (stored != customer.getVersion()) {
+                stale.add(customer.getCustomerID());
+            } else {
+                current.add(customer);
+                versions.put(customer.getCustomerID(), stored + 1);
+            }
+        }
+        if (!current.isEmpty()) {
+            this.saveAll(current);
+        }
+        return stale;
+    }
+
+    @Override
+    public synchronized void delete(String customerId) throws CustomerNotFoundException {
+        Long previous = this.index.remove(customerId);
+        if (previous == null) {
+            throw new CustomerNotFoundException(customerId);
+        }
+        long tombstone = append(customerId + CustomerTextFormat.DELIMITER + TOMBSTONE);
+        this.versions.deleted(customerId);
+        this.garbageBytes += recordLength(previous) + 1 + recordLength(tombstone) + 1;
+    }
+
+    /**
+     * Reads the version of a customer's latest record. Must be called while holding the lock.
+     *
+     * @return The stored version, or 0 if the customer does not exist.
+     */
+    private long storedVersion(String customerId) {
+        Long pointer = this.index.get(customerId);
+        if (pointer == null) {
+            return 0;
+        }
+        try {
+            return CustomerTextFormat.deserialize(readRecord(this.channel, pointer)).map(this.versions::restore).map(Customer::getVersion).orElse(0L);
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading customer " + customerId + " from file.", e);
+        }
+    }
+
+    private void appendRecord(Customer customer) {
+        long pointer = append(this.versions.serialize(customer));
+        this.versions.saved(customer);
+        Long previous = this.index.put(customer.getCustomerID(), pointer);
+        if (previous != null) {
+            this.garbageBytes += recordLength(previous) + 1;
+        }
+    }
+
+    /**
+     * Reads every live record. Writers wait until the scan has finished.
+     */
+    @Override
+    public synchronized void forEach(Consumer<? super Customer> action) {
+        try {
+            for (long pointer : this.index.values()) {
+                CustomerTextFormat.deserialize(readRecord(this.channel, pointer)).map(this.versions::restore).ifPresent(action);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading customer data from file.", e);
+        }
+    }
+
+    /**
+     * Rewrites the file so that it holds exactly one record per live customer.
+     * <p>Live records are copied to a temporary file without blocking readers and writers;
+     * only records appended while the copy was running are transferred under the lock,
+     * after which the temporary file atomically replaces the data file.</p>
+     */
+    public void compact() {
+        synchronized (this.compactionLock) {
+            this.compactLocked();
+        }
+    }
+
+    private void compactLocked() {
+        Map<String, Long> snapshot;
+        long snapshotEnd;
+        FileChannel source;
+        synchronized (this) {
+            snapshot = new HashMap<>(this.index);
+            snapshotEnd = this.endOffset;
+            source = this.channel;
+        }
+
+        Path compacted = this.path.resolveSibling(this.path.getFileName() + ".compact");
+        try (FileChannel target = FileChannel.open(compacted, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // Records in an append-only file never move, so the snapshot stays readable while we copy.
+            Map<String, Long> compactedIndex = new HashMap<>(snapshot.size() * 2);
+            long targetEnd = 0;
+            for (Map.Entry<String, Long> entry : snapshot.entrySet()) {
+                byte[] record = readRecordBytes(source, entry.getValue());
+                compactedIndex.put(entry.getKey(), pointer(targetEnd, record.length));
+                targetEnd += writeLine(target, targetEnd, record);
+            }
+
+            synchronized (this) {
+                // Replay whatever was appended since the snapshot, then swap files.
+                long tailStart = targetEnd;
+                long tailLength = this.endOffset - snapshotEnd;
+                long transferred = 0;
+                target.position(tailStart);
+                while (transferred < tailLength) {
+                    transferred += this.channel.transferTo(snapshotEnd + transferred, tailLength - transferred, target);
+                }
+                long tailGarbage = scan(target, tailStart, tailStart + tailLength, 0, compactedIndex);
+                target.force(true);
+
+                this.channel.close();
+                Files.move(compacted, this.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                this.channel = openChannel(this.path);
+                this.index = compactedIndex;
+                this.endOffset = tailStart + tailLength;
+                this.garbageBytes = tailGarbage;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error compacting customer data file: " + this.path, e);
+        }
+    }
+
+    /**
+     * Stops background compaction and closes the underlying file.
+     */
+    @Override
+    public void close() throws IOException {
+        this.compactor.shutdownNow();
+        synchronized (this) {
+            this.channel.close();
+        }
+    }
+
+    private void compactIfNeeded() {
+        boolean needed;
+        synchronized (this) {
+            needed = this.garbageBytes >= MIN_GARBAGE_BYTES && this.garbageBytes >= this.endOffset * this.garbageRatio;
+        }
+        if (needed) {
+            try {
+                this.compact();
+            } catch (RuntimeException e) {
+                // Keep the scheduled task alive; the next run will try again.
+                System.err.println("Background compaction failed: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Appends one record and its line terminator at the end of the file.
+     *
+     * @return The pointer of the appended record.
+     */
+    private long append(String record) {
+        byte[] bytes = record.getBytes(StandardCharsets.UTF_8);
+        try {
+            long offset = this.endOffset;
+            this.endOffset += writeLine(this.channel, offset, bytes);
+            return pointer(offset, bytes.length);
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing customer data to file.", e);
+        }
+    }
+
+    /**
+     * Makes sure appended records start on a fresh line, as customer files written by
+     * {@link FileCustomerRepository} have no trailing line separator.
+     */
+    private void terminateLastLine() throws IOException {
+        if (this.endOffset == 0) {
+            return;
+        }
+        ByteBuffer last = ByteBuffer.allocate(1);
+        this.channel.read(last, this.endOffset - 1);
+        if (last.get(0) != NEWLINE) {
+            this.endOffset += writeFully(this.channel, this.endOffset, ByteBuffer.wrap(new byte[]{NEWLINE}));
+        }
+    }
+
+    /**
+     * Scans the records in {@code [from, to)} of a channel, applying them to the index in order.
+     *
+     * @return The number of bytes in the scanned range (plus {@code garbage}) that no longer hold live records.
+     */
+    private static long scan(FileChannel channel, long from, long to, long garbage, Map<String, Long> index) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BUFFER_SIZE);
+        byte[] line = new byte[256];
+        int lineLength = 0;
+        long lineStart = from;
+        long position = from;
+
+        while (position < to) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), to - position));
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                byte b = buffer.get();
+                position++;
+                if (b == NEWLINE) {
+                    garbage += applyRecord(line, lineLength, lineStart, index);
+                    lineLength = 0;
+                    lineStart = position;
+                } else {
+                    if (lineLength == line.length) {
+                        line = Arrays.copyOf(line, line.length * 2);
+                    }
+                    line[lineLength++] = b;
+                }
+            }
+        }
+        if (lineLength > 0) {
+            garbage += applyRecord(line, lineLength, lineStart, index);
+        }
+        return garbage;
+    }
+
+    /**
+     * Applies a single scanned record to the index.
+     *
+     * @return The number of bytes made garbage by this record.
+     */
+    private static long applyRecord(byte[] line, int length, long offset, Map<String, Long> index) {
+        // Tolerate files written with Windows line separators.
+        int recordLength = length > 0 && line[length - 1] == '\r' ? length - 1 : length;
+        int idEnd = -1;
+        int delimiters = 0;
+        for (int i = 0; i < recordLength; i++) {
+            if (line[i] == '|') {
+                if (idEnd < 0) {
+                    idEnd = i;
+                }
+                delimiters++;
+            }
+        }
+        boolean tombstone = delimiters == 1 && recordLength == idEnd + 2 && line[idEnd + 1] == TOMBSTONE.charAt(0);
+        if (!tombstone && delimiters != 3 && delimiters != 4) {
+            if (recordLength == 0) {
+                return length + 1;
+            }
+            System.err.println("Skipping malformed data line: " + new String(line, 0, length, StandardCharsets.UTF_8));
+            return length + 1;
+        }
+
+        String customerId = new String(line, 0, idEnd, StandardCharsets.UTF_8);
+        Long previous = tombstone ? index.remove(customerId) : index.put(customerId, pointer(offset, recordLength));
+        long garbage = tombstone ? length + 1 : 0;
+        if (previous != null) {
+            garbage += recordLength(previous) + 1;
+        }
+        return garbage;
+    }
+
+    private static String readRecord(FileChannel channel, long pointer) throws IOException {
+        return new String(readRecordBytes(channel, pointer), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] readRecordBytes(FileChannel channel, long pointer) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(recordLength(pointer));
+        long offset = recordOffset(pointer);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of file at offset " + offset);
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Writes a record followed by a line terminator.
+     *
+     * @return The number of bytes written.
+     */
+    private static int writeLine(FileChannel channel, long offset, byte[] record) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(record.length + 1);
+        buffer.put(record).put(NEWLINE).flip();
+        return writeFully(channel, offset, buffer);
+    }
+
+    private static int writeFully(FileChannel channel, long offset, ByteBuffer buffer) throws IOException {
+        int written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer, offset + written);
+        }
+        return written;
+    }
+
+    private static FileChannel openChannel(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    private static long pointer(long offset, int length) {
+        if (length > LENGTH_MASK) {
+            throw new IllegalArgumentException("Customer record too large: " + length + " bytes");
+        }
+        return (offset << LENGTH_BITS) | length;
+    }
+
+    private static long recordOffset(long pointer) {
+        return pointer >>> LENGTH_BITS;
+    }
+
+    private static int recordLength(long pointer) {
+        return (int) (pointer & LENGTH_MASK);
+    }
+}
@@ -0,0 +1,315 @@
+package org.example.repository;
+
+import org.example.exceptions.CustomerNotFoundException;
+import org.example.model.Customer;
+import org.example.model.ICustomerDetailsSource;
+import org.example.model.Money;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * A read-only implementation of the {@link ICustomerRepository} that memory-maps the
+ * customer data file instead of streaming it through a reader.
+ * <p>The records ({@code customerID|points|joinedOn|balance[|version]}) are parsed straight from
+ * the mapped bytes: the customer ID is the only String created per record, and the
+ * numeric and date fields are decoded without intermediate Strings. The file contents
+ * stay in the page cache rather than on the heap; only an index from customer ID to
+ * record position is kept in memory.</p>
+ * <p>Opening the repository scans the file once, sequentially, to build that index.
+ * Later look-ups only touch the page holding the requested record.</p>
+ */
+public class MappedCustomerRepository implements ICustomerRepository {
+
+    private static final byte DELIMITER = '|';
+    private static final byte NEWLINE = '\n';
+    private static final byte TOMBSTONE = '-';
+
+    // A single mapping cannot exceed Integer.MAX_VALUE bytes, so large files are mapped in segments.
+    private static final long MAX_SEGMENT_SIZE = Integer.MAX_VALUE;
+
+    // Powers of ten that are exactly representable as doubles.
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    // Largest mantissa for which (mantissa / 10^scale) rounds exactly like Double.parseDouble.
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    private final Path path;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+
+    // Each index entry packs the segment number (upper 32 bits) and the record start within it.
+    private final Map<String, Long> index = new HashMap<>();
+
+    /**
+     * Maps the customer data file and indexes its records.
+     *
+     * @param repoFile The path of the customer data file.
+     */
+    public MappedCustomerRepository(String repoFile) {
+        this.path = Paths.get(repoFile);
+        try (FileChannel channel = FileChannel.open(this.path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long start = 0;
+            while (start < size) {
+                long length = Math.min(MAX_SEGMENT_SIZE, size - start);
+                MappedByteBuffer segment = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+                int limit = (int) length;
+                if (start + length < size) {
+                    // Cut the segment after its last complete line; the next segment starts there.
+                    while (limit > 0 && segment.get(limit - 1) != NEWLINE) {
+                        limit--;
+                    }
+                    if (limit == 0) {
+                        throw new IOException("Customer record larger than " + MAX_SEGMENT_SIZE + " bytes");
+                    }
+                }
+                this.indexSegment(segment, this.segments.size(), limit);
+                this.segments.add(segment);
+                start += limit;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to map customer data file: " + this.path, e);
+        }
+    }
+
+    @Override
+    public Optional<Customer> findById(String customerId) {
+        Long pointer = this.index.get(customerId);
+        if (pointer == null) {
+            return Optional.empty();
+        }
+        MappedByteBuffer segment = this.segments.get((int) (pointer >>> 32));
+        return this.parse(segment, (int) (long) pointer, customerId);
+    }
+
+    @Override
+    public void forEach(Consumer<? super Customer> action) {
+        for (Map.Entry<String, Long> entry : this.index.entrySet()) {
+            long pointer = entry.getValue();
+            this.parse(this.segments.get((int) (pointer >>> 32)), (int) pointer, entry.getKey()).ifPresent(action);
+        }
+    }
+
+    /**
+     * Not supported: this repository is a read-only view of the data file.
+     */
+    @Override
+    public void save(Customer customer) {
+        throw new UnsupportedOperationException("Memory-mapped customer repository is read-only: " + this.path);
+    }
+
+    /**
+     * Not supported: this repository is a read-only view of the data file. This also
+     * rejects the point and balance updates, which are built on conditional saves.
+     */
+    @Override
+    public void saveIfCurrent(Customer customer) {
+        throw new UnsupportedOperationException("Memory-mapped customer repository is read-only: " + this.path);
+    }
+
+    /**
+     * Not supported: this repository is a read-only view of the data file.
+     */
+    @Override
+    public void delete(String customerId) throws CustomerNotFoundException {
+        throw new UnsupportedOperationException("Memory-mapped customer repository is read-only: " + this.path);
+    }
+
+    /**
+     * Records the start of every line in the segment against its customer ID. Later
+     * records for the same ID win, and tombstones ({@code customerID|-}) written by
+     * {@link IndexedFileCustomerRepository} remove the customer.
+     */
+    private void indexSegment(MappedByteBuffer segment, int segmentNumber, int limit) {
+        int lineStart = 0;
+        while (lineStart < limit) {
+            int lineEnd = lineStart;
+            int idEnd = -1;
+            while (lineEnd < limit && segment.get(lineEnd) != NEWLINE) {
+                if (idEnd < 0 && segment.get(lineEnd) == DELIMITER) {
+                    idEnd = lineEnd;
+                }
+                lineEnd++;
+            }
+            if (idEnd > lineStart) {
+                String customerId = decode(segment, lineStart, idEnd);
+                int recordEnd = trimCarriageReturn(segment, lineStart, lineEnd);
+                if (recordEnd == idEnd + 2 && segment.get(idEnd + 1) == TOMBSTONE) {
+                    this.index.remove(customerId);
+                } else {
+                    this.index.put(customerId, ((long) segmentNumber << 32) | lineStart);
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+    }
+
+    /**
+     * Parses the record starting at {@code start}, reusing the already decoded customer ID.
+     */
+    private Optional<Customer> parse(MappedByteBuffer segment, int start, String customerId) {
+        int end = start;
+        while (end < segment.limit() && segment.get(end) != NEWLINE) {
+            end++;
+        }
+        end = trimCarriageReturn(segment, start, end);
+
+        int pointsStart = indexOf(segment, DELIMITER, start, end) + 1;
+        int joinedOnStart = indexOf(segment, DELIMITER, pointsStart, end) + 1;
+        int balanceStart = indexOf(segment, DELIMITER, joinedOnStart, end) + 1;
+        int versionStart = balanceStart == 0 ? 0 : indexOf(segment, DELIMITER, balanceStart, end) + 1;
+        int balanceEnd = versionStart == 0 ? end : versionStart - 1;
+        if (pointsStart == 0 || joinedOnStart == 0 || balanceStart == 0
+                || (versionStart > 0 && indexOf(segment, DELIMITER, versionStart, end) >= 0)) {
+            return malformed(segment, start, end, "expected 4 or 5 fields");
+        }
+
+        try {
+            int points = parseInt(segment, pointsStart, joinedOnStart - 1);
+            LocalDate joinedOn = parseDate(segment, joinedOnStart, balanceStart - 1);
+            double balance = parseDouble(segment, balanceStart, balanceEnd);
+
+            // Note: ShoppingCart and Address are not serialized here; empty ones are created on first access.
+            Customer customer = new Customer(customerId, joinedOn, ICustomerDetailsSource.EMPTY, Money.toMinor(balance));
+            customer.setPoints(points);
+            if (versionStart > 0) {
+                customer.setVersion(Long.parseLong(decode(segment, versionStart, end)));
+            }
+            return Optional.of(customer);
+        } catch (RuntimeException e) {
+            return malformed(segment, start, end, e.getMessage());
+        }
+    }
+
+    private static Optional<Customer> malformed(MappedByteBuffer segment, int start, int end, String error) {
+        System.err.println("Skipping malformed data line: " + decode(segment, start, end) + " Error: " + error);
+        return Optional.empty();
+    }
+
+    /**
+     * Parses a decimal int with the same acceptance rules as {@link Integer#parseInt(String)}
+     * for ASCII input.
+     */
+    private static int parseInt(MappedByteBuffer segment, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (segment.get(i) == '-' || segment.get(i) == '+')) {
+            negative = segment.get(i) == '-';
+            i++;
+        }
+        if (i == end) {
+            throw new NumberFormatException("For input string: \"" + decode(segment, start, end) + "\"");
+        }
+        // Accumulate negatively so that Integer.MIN_VALUE does not overflow.
+        int limit = negative ? Integer.MIN_VALUE : -Integer.MAX_VALUE;
+        int result = 0;
+        for (; i < end; i++) {
+            int digit = segment.get(i) - '0';
+            if (digit < 0 || digit > 9 || result < limit / 10 || result * 10 < limit + digit) {
+                throw new NumberFormatException("For input string: \"" + decode(segment, start, end) + "\"");
+            }
+            result = result * 10 - digit;
+        }
+        return negative ? result : -result;
+    }
+
+    /**
+     * Parses an ISO {@code yyyy-MM-dd} date, falling back to {@link LocalDate#parse} for
+     * the rarer extended-year forms.
+     */
+    private static LocalDate parseDate(MappedByteBuffer segment, int start, int end) {
+        if (end - start == 10 && segment.get(start + 4) == '-' && segment.get(start + 7) == '-') {
+            int year = digits(segment, start, start + 4);
+            int month = digits(segment, start + 5, start + 7);
+            int day = digits(segment, start + 8, start + 10);
+            if (year >= 0 && month >= 0 && day >= 0) {
+                return LocalDate.of(year, month, day);
+            }
+        }
+        return LocalDate.parse(decode(segment, start, end));
+    }
+
+    /**
+     * Parses a balance written by {@link Double#toString(double)}. Plain decimals with up to
+     * 15 significant digits are computed as {@code mantissa / 10^scale}, which rounds exactly
+     * like {@link Double#parseDouble(String)}; anything else (exponents, NaN, very long
+     * fractions) falls back to it.
+     */
+    private static double parseDouble(MappedByteBuffer segment, int start, int end) {
+        int i = start;
+        boolean negative = i < end && segment.get(i) == '-';
+        if (negative || (i < end && segment.get(i) == '+')) {
+            i++;
+        }
+        long mantissa = 0;
+        int scale = -1;
+        boolean sawDigit = false;
+        for (; i < end; i++) {
+            byte b = segment.get(i);
+            if (b == '.' && scale < 0) {
+                scale = 0;
+            } else if (b >= '0' && b <= '9' && mantissa < MAX_EXACT_MANTISSA / 10) {
+                mantissa = mantissa * 10 + (b - '0');
+                sawDigit = true;
+                if (scale >= 0) {
+                    scale++;
+                }
+            } else {
+                return Double.parseDouble(decode(segment, start, end));
+            }
+        }
+        if (!sawDigit || scale >= POWERS_OF_TEN.length) {
+            return Double.parseDouble(decode(segment, start, end));
+        }
+        double value = scale > 0 ? mantissa / POWERS_OF_TEN[scale] : mantissa;
+        return negative ? -value : value;
+    }
+
+    /**
+     * @return The value of the ASCII digits in {@code [start, end)}, or -1 if any byte is not a digit.
+     */
+    private static int digits(MappedByteBuffer segment, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = segment.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static int indexOf(MappedByteBuffer segment, byte b, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (segment.get(i) == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int trimCarriageReturn(MappedByteBuffer segment, int start, int end) {
+        return end > start && segment.get(end - 1) == '\r' ? end - 1 : end;
+    }
+
+    private static String decode(MappedByteBuffer segment, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        segment.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,111 @@
+package org.example.repository;
+
+import org.example.exceptions.CustomerNotFoundException;
+import org.example.exceptions.StaleCustomerVersionException;
+import org.example.model.Customer;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Runs read-modify-write updates of a customer with optimistic concurrency: the customer
+ * is read, changed and written back with {@link ICustomerRepository#saveIfCurrent}; if
+ * someone else saved it in between, the whole update is retried on a fresh copy.
+ * <p>The update always works on a private copy of what the repository returned, so it
+ * also is correct with repositories that hand out shared instances, such as
+ * {@link CachingCustomerRepository} or a {@link ConcurrentInMemoryCustomerRepository}
+ * without copy-on-read: a change that loses the race is never seen by anyone else.</p>
+ * <p>No lock is held between the read and the write, so updates of different customers
+ * never wait for each other and updates of the same customer only repeat their work when
+ * they actually collide. Retries back off for a short, random, growing time so that
+ * colliding updaters spread out.</p>
+ */
+public final class OptimisticRetry {
+
+    /**
+     * A change to a customer, which may reject it with a checked exception.
+     *
+     * @param <E> The exception thrown to reject the change.
+     */
+    @FunctionalInterface
+    public interface CustomerUpdate<E extends Exception> {
+        /**
+         * Changes the customer in place.
+         *
+         * @param customer A fresh copy of the stored customer.
+         * @throws E to abandon the update without saving.
+         */
+        void apply(Customer customer) throws E;
+    }
+
+    /**
+     * The number of attempts made by {@link #update(ICustomerRepository, String, CustomerUpdate)}.
+     */
+    public static final int DEFAULT_MAX_ATTEMPTS = 10;
+
+    // The longest back-off between two attempts, in microseconds.
+    private static final int MAX_BACKOFF_MICROS = 1_000;
+
+    private OptimisticRetry() {
+    }
+
+    /**
+     * Applies an update to a customer, retrying up to {@link #DEFAULT_MAX_ATTEMPTS} times.
+     *
+     * @param repository A repository that supports conditional saves.
+     * @param customerId The ID of the customer to update.
+     * @param update Changes the customer in place; may run several times, on fresh copies.
+     * @return The customer as saved.
+     * @throws E if the update rejected the change; nothing is saved.
+     * @throws CustomerNotFoundException if the customer does not exist.
+     * @throws StaleCustomerVersionException if every attempt collided with another writer.
+     */
+    public static <E extends Exception> Customer update(ICustomerRepository repository, String customerId,
+                                                        CustomerUpdate<E> update) throws E {
+        return update(repository, customerId, update, DEFAULT_MAX_ATTEMPTS);
+    }
+
+    /**
+     * Applies an update to a customer, retrying on conflicts.
+     *
+     * @param repository A repository that supports conditional saves.
+     * @param customerId The ID of the customer to update.
+     * @param update Changes the customer in place; may run several times, on fresh copies.
+     * @param maxAttempts The number of attempts before giving up.
+     * @return The customer as saved.
+     * @throws E if the update rejected the change; nothing is saved.
+     * @throws CustomerNotFoundException if the customer does not exist.
+     * @throws StaleCustomerVersionException if every attempt collided with another writer.
+     */
+    public static <E extends Exception> Customer update(ICustomerRepository repository, String customerId,
+                                                        CustomerUpdate<E> update, int maxAttempts) throws E {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("At least one attempt is needed: " + maxAttempts);
+        }
+        for (int attempt = 1; ; attempt++) {
+            Customer customer = new Customer(repository.findById(customerId)
+                    .orElseThrow(() -> new CustomerNotFoundException(customerId)));
+            update.apply(customer);
+            try {
+                repository.saveIfCurrent(customer);
+                return customer;
+            } catch (StaleCustomerVersionException e) {
+                if (attempt == maxAttempts) {
+                    throw e;
+                }
+                backOff(attempt);
+            }
+        }
+    }
+
+    /**
+     * Waits a short, random time before another attempt, growing with the number of
+     * attempts so far. For callers that retry conflicting saves themselves.
+     *
+     * @param attempt The number of the attempt that failed, starting at 1.
+     */
+    public static void backOff(int attempt) {
+        int bound = Math.min(MAX_BACKOFF_MICROS, 1 << Math.min(attempt + 3, 30));
+        LockSupport.parkNanos(ThreadLocalRandom.current().nextInt(bound) * 1_000L);
+    }
+}
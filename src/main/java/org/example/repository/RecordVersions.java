@@ -0,0 +1,86 @@
+package org.example.repository;
+
+import org.example.model.Customer;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the record versions of a file-backed repository.
+ * <p>Text records only carry their version ({@code |version}) when the repository was
+ * opened with {@code storeVersions}. Otherwise the file keeps the original four-field
+ * layout that older readers of customer files expect, and versions live in memory for as
+ * long as the repository is open: a customer that has not been saved since has the
+ * version its record carries, or 1. Binary records never carry a version, so
+ * {@link BinaryFileCustomerRepository} always keeps them in memory.</p>
+ * <p>A stored record always has a version of at least 1, as version 0 stands for a
+ * customer that does not exist yet: a conditional save of a new customer must not
+ * overwrite a record that merely carries no version.</p>
+ * <p>Callers must hold the repository's write lock around each read that is
+ * {@link #restore restored} and around each write, so that a record and its
+ * in-memory version always match.</p>
+ */
+final class RecordVersions {
+
+    // Versions of the customers saved since the file was opened; null if records carry them.
+    private final Map<String, Long> versions;
+
+    /**
+     * @param storeVersions Whether versions are written into the records.
+     */
+    RecordVersions(boolean storeVersions) {
+        this.versions = storeVersions ? null : new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Converts a customer into a record, with its version if versions are stored.
+     */
+    String serialize(Customer customer) {
+        return CustomerTextFormat.serialize(customer, this.versions == null);
+    }
+
+    /**
+     * Gives a customer read from a record the version it was last saved with.
+     *
+     * @return The same customer.
+     */
+    Customer restore(Customer customer) {
+        if (this.versions != null) {
+            Long version = this.versions.get(customer.getCustomerID());
+            if (version != null) {
+                customer.setVersion(version);
+            }
+        }
+        return unversioned(customer);
+    }
+
+    /**
+     * Gives a customer read from a record without a version the first version.
+     *
+     * @return The same customer.
+     */
+    static Customer unversioned(Customer customer) {
+        if (customer.getVersion() == 0) {
+            customer.setVersion(1);
+        }
+        return customer;
+    }
+
+    /**
+     * Remembers the version of a customer that has just been written.
+     */
+    void saved(Customer customer) {
+        if (this.versions != null) {
+            this.versions.put(customer.getCustomerID(), customer.getVersion());
+        }
+    }
+
+    /**
+     * Forgets the version of a customer that has just been deleted.
+     */
+    void deleted(String customerId) {
+        if (this.versions != null) {
+            this.versions.remove(customerId);
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package org.example.repository;
+
+import org.example.exceptions.CustomerNotFoundException;
+import org.example.exceptions.InsufficientFundsException;
+import org.example.exceptions.StaleCustomerVersionException;
+import org.example.model.Customer;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.ToLongFunction;
+
+/**
+ * An {@link ICustomerRepository} decorator that keeps sorted secondary indexes on points,
+ * balance and join date, answering the range queries of
+ * {@link IRangeQueryableCustomerRepository} in O(log n + k).
+ * <p>Each index maps a value to the IDs of the customers holding it. The indexes are built
+ * with one scan of the underlying repository when the decorator is created and are then
+ * updated by every {@code save}, {@code saveAll} and {@code delete} that goes through it;
+ * writes made to the underlying repository directly are not seen.</p>
+ * <p>The indexes hold the values as they were last saved. Matching customers are loaded
+ * with a single {@link ICustomerRepository#findAllById} call and checked against the range
+ * again, so a customer changed in memory but not yet saved is not returned by mistake.</p>
+ */
+public class SecondaryIndexCustomerRepository implements IRangeQueryableCustomerRepository {
+
+    private static final ToLongFunction<Customer> POINTS = Customer::getPoints;
+    private static final ToLongFunction<Customer> BALANCE = Customer::getBalanceMinor;
+    private static final ToLongFunction<Customer> JOINED_ON = customer -> customer.getJoinedOn().toEpochDay();
+
+    /**
+     * The indexed values of one customer, as last saved, so that its old index entries
+     * can be found and removed when it is saved again or deleted.
+     */
+    private static final class IndexedValues {
+        private final long points;
+        private final long balance;
+        private final long joinedOn;
+
+        private IndexedValues(Customer customer) {
+            this.points = POINTS.applyAsLong(customer);
+            this.balance = BALANCE.applyAsLong(customer);
+            this.joinedOn = JOINED_ON.applyAsLong(customer);
+        }
+    }
+
+    private final ICustomerRepository delegate;
+
+    // Writes hold the write lock across the delegate call and the index update, so the
+    // indexes always match the order in which the delegate saw the writes.
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, IndexedValues> values = new HashMap<>();
+    private final NavigableMap<Long, Set<String>> byPoints = new TreeMap<>();
+    private final NavigableMap<Long, Set<String>> byBalance = new TreeMap<>();
+    private final NavigableMap<Long, Set<String>> byJoinedOn = new TreeMap<>();
+
+    /**
+     * Wraps a repository and indexes the customers it already holds.
+     *
+     * @param delegate The repository to read from and write to.
+     */
+    public SecondaryIndexCustomerRepository(ICustomerRepository delegate) {
+        this.delegate = delegate;
+        delegate.forEach(this::index);
+    }
+
+    @Override
+    public Optional<Customer> findById(String customerId) {
+        return this.delegate.findById(customerId);
+    }
+
+    @Override
+    public Map<String, Customer> findAllById(Collection<String> customerIds) {
+        return this.delegate.findAllById(customerIds);
+    }
+
+    @Override
+    public void save(Customer customer) {
+        this.lock.writeLock().lock();
+        try {
+            this.delegate.save(customer);
+            this.index(customer);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void saveIfCurrent(Customer customer) throws StaleCustomerVersionException {
+        this.lock.writeLock().lock();
+        try {
+            this.delegate.saveIfCurrent(customer);
+            this.index(customer);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Customer addPoints(String customerId, int delta) throws CustomerNotFoundException {
+        this.lock.writeLock().lock();
+        try {
+            Customer updated = this.delegate.addPoints(customerId, delta);
+            this.index(updated);
+            return updated;
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Customer debitBalance(String customerId, long amountMinor) throws InsufficientFundsException {
+        this.lock.writeLock().lock();
+        try {
+            Customer updated = this.delegate.debitBalance(customerId, amountMinor);
+            this.index(updated);
+            return updated;
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void saveAll(Collection<Customer> customers) {
+        this.lock.writeLock().lock();
+        try {
+            this.delegate.saveAll(customers);
+            for (Customer customer : customers) {
+                this.index(customer);
+            }
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Set<String> saveAllIfCurrent(Collection<Customer> customers) {
+        this.lock.writeLock().lock();
+        try {
+            Set<String> stale = this.delegate.saveAllIfCurrent(customers);
+            for (Customer customer : customers) {
+                if (!stale.contains(customer.getCustomerID())) {
+                    this.index(customer);
+                }
+            }
+            return stale;
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void delete(String customerId) throws CustomerNotFoundException {
+        this.lock.writeLock().lock();
+        try {
+            this.delegate.delete(customerId);
+            this.unindex(customerId);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void forEach(Consumer<? super Customer> action) {
+        this.delegate.forEach(action);
+    }
+
+    @Override
+    public List<Customer> findByPointsBetween(int min, int max) {
+        return this.findBetween(this.byPoints, POINTS, min, max);
+    }
+
+    @Override
+    public List<Customer> findByBalanceBetween(long minMinor, long maxMinor) {
+        return this.findBetween(this.byBalance, BALANCE, minMinor, maxMinor);
+    }
+
+    @Override
+    public List<Customer> findByJoinedBetween(LocalDate from, LocalDate to) {
+        return this.findBetween(this.byJoinedOn, JOINED_ON, from.toEpochDay(), to.toEpochDay());
+    }
+
+    private List<Customer> findBetween(NavigableMap<Long, Set<String>> index, ToLongFunction<Customer> field, long min, long max) {
+        if (min > max) {
+            return List.of();
+        }
+        List<String> customerIds = new ArrayList<>();
+        this.lock.readLock().lock();
+        try {
+            for (Set<String> ids : index.subMap(min, true, max, true).values()) {
+                customerIds.addAll(ids);
+            }
+        } finally {
+            this.lock.readLock().unlock();
+        }
+
+        Map<String, Customer> found = this.delegate.findAllById(customerIds);
+        List<Customer> matches = new ArrayList<>(found.size());
+        for (String customerId : customerIds) {
+            Customer customer = found.get(customerId);
+            if (customer != null) {
+                long value = field.applyAsLong(customer);
+                if (value >= min && value <= max) {
+                    matches.add(customer);
+                }
+            }
+        }
+        matches.sort((a, b) -> Long.compare(field.applyAsLong(a), field.applyAsLong(b)));
+        return matches;
+    }
+
+    /**
+     * Adds a customer to the indexes, replacing its previous entries. Must be called while
+     * holding the write lock (or from the constructor).
+     */
+    private void index(Customer customer) {
+        String customerId = customer.getCustomerID();
+        this.unindex(customerId);
+        IndexedValues indexed = new IndexedValues(customer);
+        this.values.put(customerId, indexed);
+        this.byPoints.computeIfAbsent(indexed.points, value -> new HashSet<>()).add(customerId);
+        this.byBalance.computeIfAbsent(indexed.balance, value -> new HashSet<>()).add(customerId);
+        this.byJoinedOn.computeIfAbsent(indexed.joinedOn, value -> new HashSet<>()).add(customerId);
+    }
+
+    /**
+     * Removes a customer from the indexes. Must be called while holding the write lock.
+     */
+    private void unindex(String customerId) {
+        IndexedValues indexed = this.values.remove(customerId);
+        if (indexed != null) {
+            remove(this.byPoints, indexed.points, customerId);
+            remove(this.byBalance, indexed.balance, customerId);
+            remove(this.byJoinedOn, indexed.joinedOn, customerId);
+        }
+    }
+
+    private static void remove(NavigableMap<Long, Set<String>> index, long value, String customerId) {
+        Set<String> ids = index.get(value);
+        ids.remove(customerId);
+        if (ids.isEmpty()) {
+            index.remove(value);
+        }
+    }
+}
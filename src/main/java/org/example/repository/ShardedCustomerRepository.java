@@ -0,0 +1,259 @@
+package org.example.repository;
+
+import org.example.exceptions.CustomerNotFoundException;
+import org.example.exceptions.InsufficientFundsException;
+import org.example.exceptions.StaleCustomerVersionException;
+import org.example.model.Customer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * An {@link ICustomerRepository} that hash-partitions customers across several shard
+ * repositories, typically one file each.
+ * <p>A customer lives in shard {@code floorMod(customerID.hashCode(), shardCount)}, so
+ * {@code findById}, {@code save} and {@code delete} touch a single shard and operations
+ * on different shards do not contend. Batch operations ({@code findAllById},
+ * {@code saveAll}) and {@link #parallelForEach} split their work by shard and run the
+ * shards in parallel on a pool of one thread per shard; each shard receives a single batch
+ * call. {@link #forEach} scans the shards one after another on the calling thread.</p>
+ * <p>The number of shards is fixed when the repository is created: opening existing shard
+ * files with a different count would look customers up in the wrong shard.</p>
+ */
+public class ShardedCustomerRepository implements ICustomerRepository, Closeable {
+
+    private final List<ICustomerRepository> shards;
+    private final ExecutorService executor;
+
+    /**
+     * Opens (or creates) {@code shardCount} text shard files, {@code shard-000.txt},
+     * {@code shard-001.txt} and so on, each managed by a {@link FileCustomerRepository}.
+     *
+     * @param directory The directory holding the shard files; created if missing.
+     * @param shardCount The number of shards.
+     */
+    public ShardedCustomerRepository(String directory, int shardCount) {
+        this(shardCount, shard -> new FileCustomerRepository(shardFile(directory, shard).toString()));
+    }
+
+    /**
+     * Creates a repository over shards supplied by a factory, for example to store the
+     * shards in the binary format.
+     *
+     * @param shardCount The number of shards.
+     * @param shardFactory Creates the repository of each shard from its number.
+     */
+    public ShardedCustomerRepository(int shardCount, IntFunction<? extends ICustomerRepository> shardFactory) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Shard count must be positive: " + shardCount);
+        }
+        this.shards = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            this.shards.add(shardFactory.apply(shard));
+        }
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(shardCount, runnable -> {
+            Thread thread = new Thread(runnable, "customer-shard-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * @return The number of shards.
+     */
+    public int getShardCount() {
+        return shards.size();
+    }
+
+    /**
+     * @param customerId A customer ID.
+     * @return The number of the shard that holds the customer.
+     */
+    public int shardOf(String customerId) {
+        return Math.floorMod(customerId.hashCode(), this.shards.size());
+    }
+
+    @Override
+    public Optional<Customer> findById(String customerId) {
+        return this.shardFor(customerId).findById(customerId);
+    }
+
+    /**
+     * Looks the IDs up in their shards in parallel, with one {@code findAllById} call per shard.
+     */
+    @Override
+    public Map<String, Customer> findAllById(Collection<String> customerIds) {
+        List<List<String>> idsByShard = this.partition(customerIds, id -> id);
+        List<Map<String, Customer>> results = this.onShards(shard -> () ->
+                idsByShard.get(shard).isEmpty() ? Map.of() : this.shards.get(shard).findAllById(idsByShard.get(shard)));
+        Map<String, Customer> found = new HashMap<>();
+        results.forEach(found::putAll);
+        return found;
+    }
+
+    @Override
+    public void save(Customer customer) {
+        this.shardFor(customer.getCustomerID()).save(customer);
+    }
+
+    @Override
+    public void saveIfCurrent(Customer customer) throws StaleCustomerVersionException {
+        this.shardFor(customer.getCustomerID()).saveIfCurrent(customer);
+    }
+
+    @Override
+    public Customer addPoints(String customerId, int delta) throws CustomerNotFoundException {
+        return this.shardFor(customerId).addPoints(customerId, delta);
+    }
+
+    @Override
+    public Customer debitBalance(String customerId, long amountMinor) throws InsufficientFundsException {
+        return this.shardFor(customerId).debitBalance(customerId, amountMinor);
+    }
+
+    /**
+     * Saves the batch with one {@code saveAll} call per shard, running the shards in parallel.
+     */
+    @Override
+    public void saveAll(Collection<Customer> customers) {
+        List<List<Customer>> byShard = this.partition(customers, Customer::getCustomerID);
+        this.onShards(shard -> () -> {
+            if (!byShard.get(shard).isEmpty()) {
+                this.shards.get(shard).saveAll(byShard.get(shard));
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Saves the batch with one {@code saveAllIfCurrent} call per shard, running the shards in parallel.
+     */
+    @Override
+    public Set<String> saveAllIfCurrent(Collection<Customer> customers) {
+        List<List<Customer>> byShard = this.partition(customers, Customer::getCustomerID);
+        List<Set<String>> results = this.onShards(shard ->
+                () -> byShard.get(shard).isEmpty() ? Set.of() : this.shards.get(shard).saveAllIfCurrent(byShard.get(shard)));
+        Set<String> stale = new LinkedHashSet<>();
+        results.forEach(stale::addAll);
+        return stale;
+    }
+
+    @Override
+    public void delete(String customerId) throws CustomerNotFoundException {
+        this.shardFor(customerId).delete(customerId);
+    }
+
+    /**
+     * Scans the shards one after another on the calling thread, so the action need not be
+     * thread-safe and may itself read or write the repository. Use {@link #parallelForEach}
+     * for thread-safe actions that do not touch the repository.
+     */
+    @Override
+    public void forEach(Consumer<? super Customer> action) {
+        for (ICustomerRepository shard : this.shards) {
+            shard.forEach(action);
+        }
+    }
+
+    /**
+     * Scans the shards in parallel, calling the action concurrently from one thread per shard.
+     * <p>Each shard holds its own lock while it is scanned, so the action must not write to
+     * the repository: a write to another shard would wait for that shard's scan, which may
+     * in turn be waiting on this one.</p>
+     *
+     * @param action The thread-safe action to perform on each {@link Customer}.
+     */
+    public void parallelForEach(Consumer<? super Customer> action) {
+        this.onShards(shard -> () -> {
+            this.shards.get(shard).forEach(action);
+            return null;
+        });
+    }
+
+    /**
+     * Stops the shard threads. Shards that hold resources of their own and are
+     * {@link Closeable} are closed as well.
+     */
+    @Override
+    public void close() {
+        this.executor.shutdown();
+        for (ICustomerRepository shard : this.shards) {
+            if (shard instanceof Closeable closeable) {
+                try {
+                    closeable.close();
+                } catch (IOException e) {
+                    throw new RuntimeException("Error closing customer shard.", e);
+                }
+            }
+        }
+    }
+
+    private ICustomerRepository shardFor(String customerId) {
+        return this.shards.get(this.shardOf(customerId));
+    }
+
+    private <T> List<List<T>> partition(Collection<T> items, Function<T, String> customerId) {
+        List<List<T>> byShard = new ArrayList<>(this.shards.size());
+        for (int shard = 0; shard < this.shards.size(); shard++) {
+            byShard.add(new ArrayList<>());
+        }
+        for (T item : items) {
+            byShard.get(this.shardOf(customerId.apply(item))).add(item);
+        }
+        return byShard;
+    }
+
+    /**
+     * Runs one task per shard on the shard threads and waits for all of them, rethrowing
+     * the first failure.
+     */
+    private <T> List<T> onShards(IntFunction<Supplier<T>> task) {
+        List<CompletableFuture<T>> futures = new ArrayList<>(this.shards.size());
+        for (int shard = 0; shard < this.shards.size(); shard++) {
+            futures.add(CompletableFuture.supplyAsync(task.apply(shard), this.executor));
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (CompletableFuture<T> future : futures) {
+                results.add(future.join());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        return results;
+    }
+
+    private static Path shardFile(String directory, int shard) {
+        Path dir = Paths.get(directory);
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to create customer shard directory: " + dir, e);
+        }
+        return dir.resolve(String.format("shard-%03d.txt", shard));
+    }
+}
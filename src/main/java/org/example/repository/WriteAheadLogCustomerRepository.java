@@ -0,0 +1,392 @@
+package org.example.repository;
+
+import org.example.exceptions.CustomerNotFoundException;
+import org.example.exceptions.InsufficientFundsException;
+import org.example.exceptions.StaleCustomerVersionException;
+import org.example.model.Customer;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+/**
+ * A crash-safe implementation of the {@link ICustomerRepository} that keeps a plain
+ * customer file as a checkpoint and records every change in a write-ahead log next to it.
+ * <p>{@code save}, {@code saveAll} and {@code delete} append one line per change to
+ * {@code <repoFile>.wal} and force it to disk before returning, so a change costs one
+ * small synced append instead of a rewrite of the whole file. Once the log exceeds
+ * {@code checkpointBytes}, the current state is written to {@code <repoFile>.tmp}, forced,
+ * and atomically renamed over the checkpoint, after which the log is emptied. A crash at
+ * any point leaves either the old or the new checkpoint in place, never a partial one.</p>
+ * <p>On startup the checkpoint is loaded and the log replayed on top of it. Each log line
+ * carries a CRC32C of its contents; replay stops at the first torn or corrupt line (the
+ * tail of a write interrupted by a crash) and truncates the log there. Replaying a log
+ * whose changes already reached the checkpoint is harmless, as it ends in the same state.</p>
+ * <p>Every save gives the customer the next record version, which is logged with it and
+ * checked by {@link #saveIfCurrent}. The checkpoint only carries versions when the
+ * repository is opened with {@code storeVersions}, so by default it keeps the original
+ * four-field layout and versions start again from 1 (or from the log) after a restart.</p>
+ * <p>Customers are held in memory between checkpoints, so reads never touch the disk.
+ * Like the other file repositories, shopping carts and addresses are not persisted.</p>
+ */
+public class WriteAheadLogCustomerRepository implements ICustomerRepository, Closeable {
+
+    private static final long DEFAULT_CHECKPOINT_BYTES = 4 * 1024 * 1024;
+    private static final char SAVE = 'S';
+    private static final char DELETE = 'D';
+    private static final byte NEWLINE = '\n';
+
+    private final Path path;
+    private final Path logPath;
+    private final Path checkpointTempPath;
+    private final long checkpointBytes;
+    private final boolean storeVersions;
+
+    // All fields below are guarded by "this".
+    private final Map<String, Customer> customers = new HashMap<>();
+    private final FileChannel log;
+    private long logSize;
+
+    /**
+     * Opens (or creates) the customer file and its log with the default checkpoint size.
+     *
+     * @param repoFile The path of the customer data (checkpoint) file.
+     */
+    public WriteAheadLogCustomerRepository(String repoFile) {
+        this(repoFile, DEFAULT_CHECKPOINT_BYTES);
+    }
+
+    /**
+     * Opens (or creates) the customer file and its log, recovering any changes logged
+     * since the last checkpoint.
+     *
+     * @param repoFile The path of the customer data (checkpoint) file.
+     * @param checkpointBytes The log size above which a checkpoint is taken.
+     */
+    public WriteAheadLogCustomerRepository(String repoFile, long checkpointBytes) {
+        this(repoFile, checkpointBytes, false);
+    }
+
+    /**
+     * Opens (or creates) the customer file and its log, recovering any changes logged
+     * since the last checkpoint.
+     *
+     * @param repoFile The path of the customer data (checkpoint) file.
+     * @param checkpointBytes The log size above which a checkpoint is taken.
+     * @param storeVersions Whether record versions are written to the checkpoint, which
+     *                      older readers of customer files cannot read.
+     */
+    public WriteAheadLogCustomerRepository(String repoFile, long checkpointBytes, boolean storeVersions) {
+        this.storeVersions = storeVersions;
+        this.path = Paths.get(repoFile);
+        this.logPath = this.path.resolveSibling(this.path.getFileName() + ".wal");
+        this.checkpointTempPath = this.path.resolveSibling(this.path.getFileName() + ".tmp");
+        this.checkpointBytes = checkpointBytes;
+        try {
+            // A leftover temporary file is a checkpoint that never completed its rename.
+            Files.deleteIfExists(this.checkpointTempPath);
+            if (Files.exists(this.path)) {
+                this.loadCheckpoint();
+            }
+            this.log = FileChannel.open(this.logPath, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            this.logSize = this.replayLog();
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to recover customer data file: " + this.path, e);
+        }
+    }
+
+    @Override
+    public synchronized Optional<Customer> findById(String customerId) {
+        Customer customer = this.customers.get(customerId);
+        return customer == null ? Optional.empty() : Optional.of(new Customer(customer));
+    }
+
+    @Override
+    public synchronized void save(Customer customer) {
+        customer.setVersion(this.storedVersion(customer.getCustomerID()) + 1);
+        this.appendAndSync(logLine(SAVE, CustomerTextFormat.serialize(customer, true)));
+        this.customers.put(customer.getCustomerID(), new Customer(customer));
+        this.checkpointIfNeeded();
+    }
+
+    @Override
+    public synchronized void saveIfCurrent(Customer customer) throws StaleCustomerVersionException {
+        long current = this.storedVersion(customer.getCustomerID());
+        if (current != customer.getVersion()) {
+            throw new StaleCustomerVersionException(customer.getCustomerID(), customer.getVersion(), current);
+        }
+        this.save(customer);
+    }
+
+    /**
+     * Updates the customer in memory and logs the new state with one synced append.
+     */
+    @Override
+    public synchronized Customer addPoints(String customerId, int delta) throws CustomerNotFoundException {
+        Customer customer = this.findById(customerId).orElseThrow(() -> new CustomerNotFoundException(customerId));
+        CustomerUpdates.addPoints(customer, delta);
+        this.save(customer);
+        return customer;
+    }
+
+    /**
+     * Updates the customer in memory and logs the new state with one synced append.
+     */
+    @Override
+    public synchronized Customer debitBalance(String customerId, long amountMinor) throws InsufficientFundsException {
+        CustomerUpdates.checkDebitAmount(amountMinor);
+        Customer customer = this.findById(customerId).orElseThrow(() -> new CustomerNotFoundException(customerId));
+        CustomerUpdates.debit(customer, amountMinor);
+        this.save(customer);
+        return customer;
+    }
+
+    /**
+     * Logs the whole batch with a single write and a single sync.
+     */
+    @Override
+    public synchronized void saveAll(Collection<Customer> batch) {
+        StringBuilder lines = new StringBuilder();
+        Map<String, Long> versions = new HashMap<>();
+        for (Customer customer : batch) {
+            Long batchVersion = versions.get(customer.getCustomerID());
+            customer.setVersion((batchVersion != null ? batchVersion : this.storedVersion(customer.getCustomerID())) + 1);
+            versions.put(customer.getCustomerID(), customer.getVersion());
+            lines.append(logLine(SAVE, CustomerTextFormat.serialize(customer, true)));
+        }
+        this.appendAndSync(lines.toString());
+        for (Customer customer : batch) {
+            this.customers.put(customer.getCustomerID(), new Customer(customer));
+        }
+        this.checkpointIfNeeded();
+    }
+
+    /**
+     * Checks the versions of the whole batch, then logs the current customers with a
+     * single write and a single sync.
+     */
+    @Override
+    public synchronized Set<String> saveAllIfCurrent(Collection<Customer> customers) {
+        Set<String> stale = new LinkedHashSet<>();
+        List<Customer> current = new ArrayList<>(customers.size());
+        Map<String, Long> versions = new HashMap<>();
+        for (Customer customer : customers) {
+            Long batchVersion = versions.get(customer.getCustomerID());
+            long stored = batchVersion != null ? batchVersion : this.storedVersion(customer.getCustomerID());
+            if (stored != customer.getVersion()) {
+                stale.add(customer.getCustomerID());
+            } else {
+                current.add(customer);
+                versions.put(customer.getCustomerID(), stored + 1);
+            }
+        }
+        if (!current.isEmpty()) {
+            this.saveAll(current);
+        }
+        return stale;
+    }
+
+    @Override
+    public synchronized void delete(String customerId) throws CustomerNotFoundException {
+        if (!this.customers.containsKey(customerId)) {
+            throw new CustomerNotFoundException(customerId);
+        }
+        this.appendAndSync(logLine(DELETE, customerId));
+        this.customers.remove(customerId);
+        this.checkpointIfNeeded();
+    }
+
+    /**
+     * Visits a copy of every customer. Writers wait until the scan has finished.
+     */
+    @Override
+    public synchronized void forEach(Consumer<? super Customer> action) {
+        for (Customer customer : this.customers.values()) {
+            action.accept(new Customer(customer));
+        }
+    }
+
+    /**
+     * Writes the current state to a new checkpoint file, atomically replaces the old one
+     * with it and empties the log. The directory is forced to disk before the log is
+     * emptied, so that the log is never lost while the rename could still be.
+     */
+    public synchronized void checkpoint() {
+        try (FileChannel channel = FileChannel.open(this.checkpointTempPath, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             BufferedWriter writer = new BufferedWriter(Channels.newWriter(channel, StandardCharsets.UTF_8))) {
+            for (Customer customer : this.customers.values()) {
+                writer.write(CustomerTextFormat.serialize(customer, this.storeVersions));
+                writer.write(NEWLINE);
+            }
+            writer.flush();
+            channel.force(false);
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing customer checkpoint: " + this.checkpointTempPath, e);
+        }
+        try {
+            Files.move(this.checkpointTempPath, this.path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            try (FileChannel directory = FileChannel.open(this.path.toAbsolutePath().getParent(), StandardOpenOption.READ)) {
+                directory.force(true);
+            }
+            // Only now is every logged change durably in the checkpoint, so the log can go.
+            this.log.truncate(0);
+            this.log.force(false);
+            this.logSize = 0;
+        } catch (IOException e) {
+            throw new RuntimeException("Error replacing customer data file: " + this.path, e);
+        }
+    }
+
+    /**
+     * @return The number of bytes logged since the last checkpoint.
+     */
+    public synchronized long getLogSize() {
+        return logSize;
+    }
+
+    /**
+     * Closes the log. Changes are already durable, so no checkpoint is taken.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        this.log.close();
+    }
+
+    private long storedVersion(String customerId) {
+        Customer stored = this.customers.get(customerId);
+        return stored == null ? 0 : stored.getVersion();
+    }
+
+    private void checkpointIfNeeded() {
+        if (this.logSize >= this.checkpointBytes) {
+            this.checkpoint();
+        }
+    }
+
+    private void appendAndSync(String lines) {
+        ByteBuffer buffer = ByteBuffer.wrap(lines.getBytes(StandardCharsets.UTF_8));
+        try {
+            long position = this.logSize;
+            while (buffer.hasRemaining()) {
+                position += this.log.write(buffer, position);
+            }
+            this.log.force(false);
+            this.logSize = position;
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing customer change log: " + this.logPath, e);
+        }
+    }
+
+    private void loadCheckpoint() throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(this.path)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    CustomerTextFormat.deserialize(line)
+                            .map(RecordVersions::unversioned)
+                            .ifPresent(customer -> this.customers.put(customer.getCustomerID(), customer));
+                }
+            }
+        }
+    }
+
+    /**
+     * Applies every intact log line to the in-memory state and cuts the log after the last one.
+     *
+     * @return The length of the intact part of the log.
+     */
+    private long replayLog() throws IOException {
+        long size = this.log.size();
+        ByteBuffer buffer = ByteBuffer.allocate((int) size);
+        while (buffer.hasRemaining() && this.log.read(buffer, buffer.position()) >= 0) {
+            // Keep reading until the whole log is in memory.
+        }
+        byte[] bytes = buffer.array();
+
+        long valid = 0;
+        int lineStart = 0;
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] != NEWLINE) {
+                continue;
+            }
+            String line = new String(bytes, lineStart, i - lineStart, StandardCharsets.UTF_8);
+            if (!this.applyLogLine(line)) {
+                break;
+            }
+            lineStart = i + 1;
+            valid = lineStart;
+        }
+        if (valid < size) {
+            System.err.println("Truncating customer change log " + this.logPath + " after " + valid + " of " + size + " bytes");
+            this.log.truncate(valid);
+            this.log.force(false);
+        }
+        return valid;
+    }
+
+    /**
+     * Applies one log line ({@code crc|op|payload}).
+     *
+     * @return {@code false} if the line is torn or corrupt.
+     */
+    private boolean applyLogLine(String line) {
+        int crcEnd = line.indexOf(CustomerTextFormat.DELIMITER);
+        if (crcEnd != 8 || line.length() < crcEnd + 3 || line.charAt(crcEnd + 2) != CustomerTextFormat.DELIMITER.charAt(0)) {
+            return false;
+        }
+        String body = line.substring(crcEnd + 1);
+        long expected;
+        try {
+            expected = Long.parseLong(line, 0, crcEnd, 16);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        if (crc(body) != expected) {
+            return false;
+        }
+
+        String payload = body.substring(2);
+        switch (body.charAt(0)) {
+            case SAVE -> CustomerTextFormat.deserialize(payload)
+                    .ifPresent(customer -> this.customers.put(customer.getCustomerID(), customer));
+            case DELETE -> this.customers.remove(payload);
+            default -> {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String logLine(char operation, String payload) {
+        String body = operation + CustomerTextFormat.DELIMITER + payload;
+        return String.format("%08x", crc(body)) + CustomerTextFormat.DELIMITER + body + (char) NEWLINE;
+    }
+
+    private static long crc(String body) {
+        CRC32C crc = new CRC32C();
+        crc.update(body.getBytes(StandardCharsets.UTF_8));
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,387 @@
+package org.example.repository;
+
+import org.example.exceptions.CustomerNotFoundException;
+import org.example.exceptions.InsufficientFundsException;
+import org.example.exceptions.StaleCustomerVersionException;
+import org.example.model.Customer;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * An {@link ICustomerRepository} decorator that queues writes and persists them to the
+ * underlying repository in batches (write-behind with group commit).
+ * <p>{@code save} and {@code delete} return as soon as the change is queued. Repeated
+ * writes to the same customer ID are coalesced, so only the latest state is written.
+ * A batch is flushed once it holds {@code maxBatchSize} customers or once the oldest
+ * queued write is {@code maxDelay} old: all saves and deletes of the batch go to the
+ * delegate's {@link ICustomerRepository#saveAllAndDeleteAll} in a single call, which
+ * file-backed repositories persist with one synced write.</p>
+ * <p>Callers that need durability use {@link #saveAsync}/{@link #deleteAsync}; the returned
+ * future completes once the change (or a later change to the same customer that
+ * superseded it) has been written. Reads see queued writes immediately. If a batch cannot
+ * be written, its futures complete exceptionally, but its writes are not lost: they go back
+ * into the queue (behind any newer write to the same customer, which wins), stay visible to
+ * readers and are retried after a growing delay. {@link #flush} throws while they cannot be
+ * written; writes queued meanwhile are accepted as usual.</p>
+ * <p>Customers are written as they are at flush time, so callers should not keep
+ * mutating an instance after saving it. A queued write has no stored version to check
+ * against until it is flushed, so conditional saves and the atomic point and balance
+ * updates first write the customer's queued change, if any, and then go straight to the
+ * delegate. A plain {@code save} queued at the same time still wins over them once it is
+ * flushed.</p>
+ */
+public class WriteBehindCustomerRepository implements ICustomerRepository, Closeable {
+
+    private static final int DEFAULT_MAX_BATCH_SIZE = 1_000;
+    private static final Duration DEFAULT_MAX_DELAY = Duration.ofMillis(50);
+    // The longest delay before a failed batch is retried.
+    private static final long MAX_RETRY_DELAY_MILLIS = 5_000;
+
+    private final ICustomerRepository delegate;
+    private final int maxBatchSize;
+    private final long maxDelayMillis;
+
+    // A single thread, so that batches are written one after another and in order.
+    private final ScheduledExecutorService flusher;
+
+    private final Object lock = new Object();
+    // Writes waiting for the next flush, keyed by customer ID; guarded by "lock".
+    private Map<String, PendingWrite> pending = new LinkedHashMap<>();
+    // The batch currently being written, still visible to readers; guarded by "lock".
+    private Map<String, PendingWrite> flushing = Map.of();
+    // The number of batches that failed in a row; only used by the flusher thread.
+    private int failedBatches;
+
+    /**
+     * A queued change to one customer: the customer to save, or {@code null} for a delete.
+     */
+    private static final class PendingWrite {
+        private Customer customer;
+        private final CompletableFuture<Void> written = new CompletableFuture<>();
+
+        private PendingWrite(Customer customer) {
+            this.customer = customer;
+        }
+    }
+
+    /**
+     * Wraps a repository with the default batch size and flush delay.
+     *
+     * @param delegate The repository the batches are written to.
+     */
+    public WriteBehindCustomerRepository(ICustomerRepository delegate) {
+        this(delegate, DEFAULT_MAX_BATCH_SIZE, DEFAULT_MAX_DELAY);
+    }
+
+    /**
+     * Wraps a repository.
+     *
+     * @param delegate The repository the batches are written to.
+     * @param maxBatchSize The number of distinct queued customers that triggers a flush.
+     * @param maxDelay The longest time a queued write waits before it is flushed.
+     */
+    public WriteBehindCustomerRepository(ICustomerRepository delegate, int maxBatchSize, Duration maxDelay) {
+        this.delegate = delegate;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayMillis = maxDelay.toMillis();
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "customer-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public Optional<Customer> findById(String customerId) {
+        synchronized (this.lock) {
+            PendingWrite write = this.pending.get(customerId);
+            if (write == null) {
+                write = this.flushing.get(customerId);
+            }
+            if (write != null) {
+                return Optional.ofNullable(write.customer);
+            }
+        }
+        return this.delegate.findById(customerId);
+    }
+
+    @Override
+    public Map<String, Customer> findAllById(Collection<String> customerIds) {
+        Map<String, Customer> found = new HashMap<>();
+        List<String> notQueued = new ArrayList<>();
+        synchronized (this.lock) {
+            for (String customerId : customerIds) {
+                PendingWrite write = this.pending.get(customerId);
+                if (write == null) {
+                    write = this.flushing.get(customerId);
+                }
+                if (write == null) {
+                    notQueued.add(customerId);
+                } else if (write.customer != null) {
+                    found.put(customerId, write.customer);
+                }
+            }
+        }
+        if (!notQueued.isEmpty()) {
+            found.putAll(this.delegate.findAllById(notQueued));
+        }
+        return found;
+    }
+
+    @Override
+    public void save(Customer customer) {
+        this.saveAsync(customer);
+    }
+
+    @Override
+    public void saveAll(Collection<Customer> customers) {
+        for (Customer customer : customers) {
+            this.saveAsync(customer);
+        }
+    }
+
+    @Override
+    public void delete(String customerId) throws CustomerNotFoundException {
+        this.deleteAsync(customerId);
+    }
+
+    /**
+     * Writes the customer's queued change first, then saves it conditionally in the delegate.
+     */
+    @Override
+    public void saveIfCurrent(Customer customer) throws StaleCustomerVersionException {
+        this.flushIfQueued(customer.getCustomerID());
+        this.delegate.saveIfCurrent(customer);
+    }
+
+    /**
+     * Writes the queued changes first if any of the customers has one, then saves the
+     * batch conditionally in the delegate.
+     */
+    @Override
+    public Set<String> saveAllIfCurrent(Collection<Customer> customers) {
+        boolean queued;
+        synchronized (this.lock) {
+            queued = customers.stream().anyMatch(customer -> this.isQueued(customer.getCustomerID()));
+        }
+        if (queued) {
+            this.flush();
+        }
+        return this.delegate.saveAllIfCurrent(customers);
+    }
+
+    /**
+     * Writes the customer's queued change first, then updates it in the delegate.
+     */
+    @Override
+    public Customer addPoints(String customerId, int delta) throws CustomerNotFoundException {
+        this.flushIfQueued(customerId);
+        return this.delegate.addPoints(customerId, delta);
+    }
+
+    /**
+     * Writes the customer's queued change first, then updates it in the delegate.
+     */
+    @Override
+    public Customer debitBalance(String customerId, long amountMinor) throws InsufficientFundsException {
+        this.flushIfQueued(customerId);
+        return this.delegate.debitBalance(customerId, amountMinor);
+    }
+
+    /**
+     * Flushes the queued writes first, so that the underlying repository holds every change.
+     */
+    @Override
+    public void forEach(Consumer<? super Customer> action) {
+        this.flush();
+        this.delegate.forEach(action);
+    }
+
+    /**
+     * Queues a save.
+     *
+     * @param customer The {@link Customer} object to be persisted.
+     * @return A future that completes once the customer has been written to the delegate.
+     */
+    public CompletableFuture<Void> saveAsync(Customer customer) {
+        return this.enqueue(customer.getCustomerID(), customer);
+    }
+
+    /**
+     * Queues a delete.
+     *
+     * @param customerId The ID of the customer to delete.
+     * @return A future that completes once the deletion has been written to the delegate.
+     * @throws CustomerNotFoundException if the customer does not exist, taking queued writes into account.
+     */
+    public CompletableFuture<Void> deleteAsync(String customerId) throws CustomerNotFoundException {
+        if (this.findById(customerId).isEmpty()) {
+            throw new CustomerNotFoundException(customerId);
+        }
+        return this.enqueue(customerId, null);
+    }
+
+    /**
+     * Writes everything queued so far and waits until it has been written.
+     *
+     * @throws IllegalStateException if the queued writes could not be written; they stay queued.
+     */
+    public void flush() {
+        RuntimeException failure;
+        try {
+            failure = this.flusher.submit(this::flushPending).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while flushing customer writes.", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Error flushing customer writes.", e.getCause());
+        }
+        if (failure != null) {
+            throw new IllegalStateException("Queued customer writes could not be written and will be retried: "
+                    + failure.getMessage(), failure);
+        }
+    }
+
+    /**
+     * Flushes all queued writes and stops the background flusher.
+     */
+    @Override
+    public void close() {
+        try {
+            this.flush();
+        } finally {
+            this.flusher.shutdown();
+        }
+    }
+
+    private void flushIfQueued(String customerId) {
+        boolean queued;
+        synchronized (this.lock) {
+            queued = this.isQueued(customerId);
+        }
+        if (queued) {
+            this.flush();
+        }
+    }
+
+    /**
+     * Must be called while holding the lock.
+     */
+    private boolean isQueued(String customerId) {
+        return this.pending.containsKey(customerId) || this.flushing.containsKey(customerId);
+    }
+
+    private CompletableFuture<Void> enqueue(String customerId, Customer customer) {
+        boolean first;
+        boolean full;
+        PendingWrite write;
+        synchronized (this.lock) {
+            first = this.pending.isEmpty();
+            write = this.pending.get(customerId);
+            if (write == null) {
+                write = new PendingWrite(customer);
+                this.pending.put(customerId, write);
+            } else {
+                // Coalesce: the newer state replaces the queued one and shares its future.
+                write.customer = customer;
+            }
+            full = this.pending.size() >= this.maxBatchSize;
+        }
+        if (full) {
+            this.flusher.execute(this::flushPending);
+        } else if (first) {
+            this.flusher.schedule(this::flushPending, this.maxDelayMillis, TimeUnit.MILLISECONDS);
+        }
+        return write.written;
+    }
+
+    /**
+     * Writes the queued batch to the delegate, saves and deletes together. Only ever runs
+     * on the flusher thread.
+     *
+     * @return The error that kept the batch from being written, or {@code null}.
+     */
+    private RuntimeException flushPending() {
+        Map<String, PendingWrite> batch;
+        synchronized (this.lock) {
+            if (this.pending.isEmpty()) {
+                return null;
+            }
+            batch = this.pending;
+            this.flushing = batch;
+            this.pending = new LinkedHashMap<>();
+        }
+
+        try {
+            List<Customer> saves = new ArrayList<>(batch.size());
+            List<String> deletes = new ArrayList<>();
+            for (Map.Entry<String, PendingWrite> entry : batch.entrySet()) {
+                if (entry.getValue().customer != null) {
+                    saves.add(entry.getValue().customer);
+                } else {
+                    deletes.add(entry.getKey());
+                }
+            }
+            // A delete of a customer that was saved and deleted within the same batch never
+            // reached the delegate, which ignores it.
+            this.delegate.saveAllAndDeleteAll(saves, deletes);
+        } catch (RuntimeException e) {
+            System.err.println("Error writing batch of " + batch.size() + " customers: " + e.getMessage());
+            this.requeue(batch);
+            for (PendingWrite write : batch.values()) {
+                write.written.completeExceptionally(e);
+            }
+            return e;
+        }
+        synchronized (this.lock) {
+            this.flushing = Map.of();
+        }
+        this.failedBatches = 0;
+        for (PendingWrite write : batch.values()) {
+            write.written.complete(null);
+        }
+        return null;
+    }
+
+    /**
+     * Puts the writes of a failed batch back in front of the queue, except where a newer
+     * write to the same customer has been queued meanwhile, and schedules a retry.
+     */
+    private void requeue(Map<String, PendingWrite> batch) {
+        synchronized (this.lock) {
+            Map<String, PendingWrite> requeued = new LinkedHashMap<>();
+            for (Map.Entry<String, PendingWrite> entry : batch.entrySet()) {
+                if (!this.pending.containsKey(entry.getKey())) {
+                    // A new future: the failed batch's futures report the failure.
+                    requeued.put(entry.getKey(), new PendingWrite(entry.getValue().customer));
+                }
+            }
+            requeued.putAll(this.pending);
+            this.pending = requeued;
+            this.flushing = Map.of();
+        }
+        this.failedBatches++;
+        long delay = Math.min(MAX_RETRY_DELAY_MILLIS, Math.max(1, this.maxDelayMillis) << Math.min(this.failedBatches, 16));
+        try {
+            this.flusher.schedule(this::flushPending, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // Closed: the caller of close() has been told that the writes could not be written.
+        }
+    }
+}
@@ -0,0 +1,492 @@
+package org.example.service;
+
+import org.example.model.Customer;
+import org.example.model.Money;
+import org.example.model.ShoppingCart;
+import org.example.repository.ICustomerRepository;
+import org.example.repository.OptimisticRetry;
+import org.example.utils.Printer;
+
+import java.io.Closeable;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Checks customers out through a pipeline of stages: price, debit balance, award points,
+ * persist, audit and receipt.
+ * <p>Each stage runs on its own thread and is connected to the next by a bounded queue.
+ * A stage takes everything waiting in its queue, up to {@code maxBatchSize} orders, and
+ * handles it as one batch: one {@code findAllById} to price, one to debit, one
+ * {@code findAllById} and one {@code saveAllIfCurrent} to persist, one audit record and one
+ * flush of the receipts. The stages
+ * work on different batches at the same time, so under load the throughput is set by the
+ * slowest stage rather than by the sum of all of them, and the batches grow by themselves
+ * in front of a slow stage. When a queue is full, the stage feeding it (and, for the first
+ * queue, {@link #submit}) waits.</p>
+ * <p>Carts are priced as {@link ShoppingCartService#calculateTotal} does. A customer with
+ * orders in flight is kept in memory between the debit and the persist stage, so the debit
+ * of a later order sees the balance left by earlier ones even before they are saved. A
+ * checkout that fails after its debit gives the amount (and any points) back to that copy.</p>
+ * <p>The persist stage applies the debits and points of each customer's orders in the batch
+ * to a fresh copy of the stored customer and saves all of them with one conditional
+ * {@link ICustomerRepository#saveAllIfCurrent}, so other writers of the same customers are
+ * never overwritten; only the customers another writer saved in between are read and
+ * saved again. If another writer spent the balance in the meantime, those orders are
+ * rejected for insufficient funds there.</p>
+ * <p>The repository must therefore support conditional saves, as the in-memory, file-backed,
+ * write-ahead log and write-behind repositories (and the decorators over them) do; the
+ * file-backed ones check and write the whole batch with a single write. It must also keep
+ * the customers' shopping carts, which the file formats do not store.</p>
+ */
+public class CheckoutPipeline implements Closeable {
+
+    private static final int DEFAULT_QUEUE_CAPACITY = 1_024;
+    private static final int DEFAULT_MAX_BATCH_SIZE = 256;
+
+    /**
+     * One checkout on its way through the stages. Each field is written by one stage and
+     * read by later ones; the queues between the stages make the writes visible.
+     */
+    private static final class Order {
+        private final String customerId;
+        private final CompletableFuture<CheckoutResult> result = new CompletableFuture<>();
+        private Customer customer;
+        private ShoppingCart cart;
+        private long totalMinor;
+        private int points;
+        private boolean debited;
+        private boolean awarded;
+        // Null while the checkout is still going; set by the stage that ends it.
+        private CheckoutResult.Status status;
+        private String message;
+
+        private Order(String customerId) {
+            this.customerId = customerId;
+        }
+
+        private boolean isActive() {
+            return this.status == null;
+        }
+
+        private void fail(CheckoutResult.Status status, String message) {
+            this.status = status;
+            this.message = message;
+        }
+    }
+
+    /**
+     * Passed down the stages by {@link #close()}; each stage finishes its batch, forwards it and stops.
+     */
+    private static final Order END = new Order(null);
+
+    /**
+     * A private copy of a customer, held in memory while it has orders between the debit
+     * and the persist stage; changed only while holding the lock of {@code inFlight}.
+     */
+    private static final class InFlight {
+        private final Customer customer;
+        private int pending;
+
+        private InFlight(Customer customer) {
+            this.customer = customer;
+        }
+    }
+
+    @FunctionalInterface
+    private interface StageHandler {
+        void process(List<Order> batch);
+    }
+
+    private final ICustomerRepository customerRepository;
+    private final IAuditService auditService;
+    private final PrintStream receipts;
+    private final int maxBatchSize;
+
+    private final BlockingQueue<Order> input;
+    private final List<Thread> stages = new ArrayList<>();
+    // Customers debited but not yet persisted, keyed by customer ID; guarded by itself.
+    private final Map<String, InFlight> inFlight = new HashMap<>();
+
+    private final Object submitLock = new Object();
+    // Guarded by "submitLock".
+    private boolean closed;
+
+    /**
+     * Creates a pipeline with the default queue capacity and batch size.
+     *
+     * @param customerRepository Where customers are read from and saved to.
+     * @param auditService Receives one summary record per batch.
+     * @param receipts Where receipts are printed, or {@code null} to skip printing.
+     */
+    public CheckoutPipeline(ICustomerRepository customerRepository, IAuditService auditService, PrintStream receipts) {
+        this(customerRepository, auditService, receipts, DEFAULT_QUEUE_CAPACITY, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    /**
+     * Creates a pipeline and starts its stage threads.
+     *
+     * @param customerRepository Where customers are read from and saved to.
+     * @param auditService Receives one summary record per batch.
+     * @param receipts Where receipts are printed, or {@code null} to skip printing.
+     * @param queueCapacity The number of orders each queue between two stages holds.
+     * @param maxBatchSize The largest number of orders a stage handles at once.
+     */
+    public CheckoutPipeline(ICustomerRepository customerRepository, IAuditService auditService, PrintStream receipts,
+                            int queueCapacity, int maxBatchSize) {
+        if (queueCapacity < 1 || maxBatchSize < 1) {
+            throw new IllegalArgumentException("Queue capacity and batch size must be positive: "
+                    + queueCapacity + ", " + maxBatchSize);
+        }
+        this.customerRepository = customerRepository;
+        this.auditService = auditService;
+        this.receipts = receipts;
+        this.maxBatchSize = maxBatchSize;
+
+        this.input = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<Order> priced = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<Order> debited = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<Order> awarded = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<Order> persisted = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<Order> audited = new ArrayBlockingQueue<>(queueCapacity);
+        this.startStage("price", this.input, priced, this::price);
+        this.startStage("debit", priced, debited, this::debit);
+        this.startStage("award", debited, awarded, this::award);
+        this.startStage("persist", awarded, persisted, this::persist);
+        this.startStage("audit", persisted, audited, this::audit);
+        this.startStage("receipt", audited, null, this::receipt);
+    }
+
+    /**
+     * Queues the checkout of a customer's cart, waiting if the pipeline is full.
+     *
+     * @param customerID The ID of the customer checking out.
+     * @return A future completed with the outcome once the receipt stage has handled the order.
+     * @throws IllegalStateException if the pipeline has been closed.
+     */
+    public CompletableFuture<CheckoutResult> submit(String customerID) {
+        Order order = new Order(customerID);
+        synchronized (this.submitLock) {
+            if (this.closed) {
+                throw new IllegalStateException("Checkout pipeline is closed");
+            }
+            try {
+                this.input.put(order);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while submitting a checkout.", e);
+            }
+        }
+        return order.result;
+    }
+
+    /**
+     * Stops accepting checkouts, lets every queued checkout finish and stops the stage threads.
+     */
+    @Override
+    public void close() {
+        synchronized (this.submitLock) {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            try {
+                this.input.put(END);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while closing the checkout pipeline.", e);
+            }
+        }
+        try {
+            for (Thread stage : this.stages) {
+                stage.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while closing the checkout pipeline.", e);
+        }
+    }
+
+    private void startStage(String name, BlockingQueue<Order> in, BlockingQueue<Order> out, StageHandler handler) {
+        Thread thread = new Thread(() -> this.runStage(name, in, out, handler), "checkout-" + name);
+        thread.setDaemon(true);
+        this.stages.add(thread);
+        thread.start();
+    }
+
+    private void runStage(String name, BlockingQueue<Order> in, BlockingQueue<Order> out, StageHandler handler) {
+        List<Order> batch = new ArrayList<>(this.maxBatchSize);
+        try {
+            boolean end = false;
+            while (!end) {
+                batch.add(in.take());
+                in.drainTo(batch, this.maxBatchSize - 1);
+                if (batch.get(batch.size() - 1) == END) {
+                    // Nothing is queued after END, so it always ends the batch.
+                    batch.remove(batch.size() - 1);
+                    end = true;
+                }
+                if (!batch.isEmpty()) {
+                    try {
+                        handler.process(batch);
+                    } catch (RuntimeException e) {
+                        System.err.println("Checkout stage " + name + " failed for a batch of " + batch.size() + ": " + e.getMessage());
+                        for (Order order : batch) {
+                            if (order.isActive()) {
+                                order.fail(CheckoutResult.Status.FAILED, name + " failed: " + e.getMessage());
+                            }
+                        }
+                    }
+                }
+                if (out != null) {
+                    for (Order order : batch) {
+                        out.put(order);
+                    }
+                    if (end) {
+                        out.put(END);
+                    }
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Loads the batch's customers with one look-up and prices their carts.
+     */
+    private void price(List<Order> batch) {
+        Set<String> customerIds = new LinkedHashSet<>();
+        for (Order order : batch) {
+            customerIds.add(order.customerId);
+        }
+        Map<String, Customer> customers = this.customerRepository.findAllById(customerIds);
+        for (Order order : batch) {
+            Customer customer = customers.get(order.customerId);
+            if (customer == null) {
+                order.fail(CheckoutResult.Status.CUSTOMER_NOT_FOUND, "Customer not found with ID: " + order.customerId);
+                continue;
+            }
+            order.cart = customer.getShoppingCart();
+            order.totalMinor = ShoppingCartService.priceCart(customer);
+            order.points = order.cart.getPoints();
+        }
+    }
+
+    /**
+     * Takes the totals off the balances, reading customers with orders in flight from
+     * memory and all others with one look-up.
+     */
+    private void debit(List<Order> batch) {
+        Map<String, Customer> customers = new HashMap<>();
+        Set<String> toLoad = new LinkedHashSet<>();
+        synchronized (this.inFlight) {
+            for (Order order : batch) {
+                InFlight held = this.inFlight.get(order.customerId);
+                if (held != null) {
+                    customers.put(order.customerId, held.customer);
+                } else if (order.isActive()) {
+                    toLoad.add(order.customerId);
+                }
+            }
+        }
+        if (!toLoad.isEmpty()) {
+            // Only this stage adds to "inFlight", so none of these can have appeared meanwhile.
+            this.customerRepository.findAllById(toLoad)
+                    .forEach((customerId, customer) -> customers.put(customerId, new Customer(customer)));
+        }
+
+        synchronized (this.inFlight) {
+            for (Order order : batch) {
+                if (!order.isActive()) {
+                    continue;
+                }
+                Customer customer = customers.get(order.customerId);
+                if (customer == null) {
+                    order.fail(CheckoutResult.Status.CUSTOMER_NOT_FOUND, "Customer not found with ID: " + order.customerId);
+                } else if (customer.getBalanceMinor() < order.totalMinor) {
+                    order.fail(CheckoutResult.Status.INSUFFICIENT_FUNDS, "Customer " + order.customerId + " has a balance of "
+                            + Money.format(customer.getBalanceMinor()) + ", less than " + Money.format(order.totalMinor));
+                } else {
+                    customer.setBalanceMinor(customer.getBalanceMinor() - order.totalMinor);
+                    order.customer = customer;
+                    order.debited = true;
+                    this.inFlight.computeIfAbsent(order.customerId, id -> new InFlight(customer)).pending++;
+                }
+            }
+        }
+    }
+
+    private void award(List<Order> batch) {
+        synchronized (this.inFlight) {
+            for (Order order : batch) {
+                if (!order.isActive()) {
+                    continue;
+                }
+                try {
+                    order.customer.setPoints(Math.addExact(order.customer.getPoints(), order.points));
+                    order.awarded = true;
+                } catch (ArithmeticException e) {
+                    order.fail(CheckoutResult.Status.FAILED, "award failed: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Saves the customers of the batch, with the debits and points of all their orders,
+     * then releases them from memory. Orders that did not complete are undone in
+     * memory, so later orders of the same customer do not pay for them.
+     */
+    private void persist(List<Order> batch) {
+        Map<String, List<Order>> ordersByCustomer = new LinkedHashMap<>();
+        for (Order order : batch) {
+            if (order.isActive()) {
+                ordersByCustomer.computeIfAbsent(order.customerId, id -> new ArrayList<>()).add(order);
+            }
+        }
+        try {
+            this.save(ordersByCustomer);
+        } finally {
+            synchronized (this.inFlight) {
+                for (Order order : batch) {
+                    if (order.debited) {
+                        InFlight held = this.inFlight.get(order.customerId);
+                        if (order.status != CheckoutResult.Status.COMPLETED) {
+                            held.customer.setBalanceMinor(held.customer.getBalanceMinor() + order.totalMinor);
+                            if (order.awarded) {
+                                held.customer.setPoints(held.customer.getPoints() - order.points);
+                            }
+                        }
+                        if (--held.pending == 0) {
+                            this.inFlight.remove(order.customerId);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the customers with one look-up, applies their orders to fresh copies and saves
+     * them with one {@code saveAllIfCurrent}. Customers that another writer saved in between
+     * are read and saved again, up to {@link OptimisticRetry#DEFAULT_MAX_ATTEMPTS} times.
+     */
+    private void save(Map<String, List<Order>> ordersByCustomer) {
+        Map<String, List<Order>> remaining = ordersByCustomer;
+        for (int attempt = 1; !remaining.isEmpty(); attempt++) {
+            if (attempt > OptimisticRetry.DEFAULT_MAX_ATTEMPTS) {
+                remaining.values().forEach(orders -> orders.forEach(order ->
+                        order.fail(CheckoutResult.Status.FAILED, "persist failed: customer kept changing")));
+                return;
+            }
+            if (attempt > 1) {
+                OptimisticRetry.backOff(attempt - 1);
+            }
+            Map<String, Customer> stored = this.customerRepository.findAllById(remaining.keySet());
+            Map<String, Customer> updated = new LinkedHashMap<>();
+            for (Map.Entry<String, List<Order>> entry : remaining.entrySet()) {
+                Customer customer = stored.get(entry.getKey());
+                if (customer == null) {
+                    entry.getValue().forEach(order -> order.fail(CheckoutResult.Status.CUSTOMER_NOT_FOUND,
+                            "Customer not found with ID: " + order.customerId));
+                } else {
+                    customer = new Customer(customer);
+                    if (apply(customer, entry.getValue())) {
+                        updated.put(entry.getKey(), customer);
+                    }
+                }
+            }
+
+            Set<String> stale = updated.isEmpty() ? Set.of() : this.customerRepository.saveAllIfCurrent(updated.values());
+            Map<String, List<Order>> conflicting = new LinkedHashMap<>();
+            for (String customerId : updated.keySet()) {
+                if (stale.contains(customerId)) {
+                    conflicting.put(customerId, remaining.get(customerId));
+                } else {
+                    remaining.get(customerId).forEach(order -> order.status = CheckoutResult.Status.COMPLETED);
+                }
+            }
+            remaining = conflicting;
+        }
+    }
+
+    /**
+     * Applies the debits and points of a customer's orders to a copy of the stored customer.
+     *
+     * @return Whether the orders can be saved; if not, they have been failed.
+     */
+    private static boolean apply(Customer customer, List<Order> orders) {
+        long debit = 0;
+        long award = 0;
+        for (Order order : orders) {
+            debit += order.totalMinor;
+            award += order.points;
+        }
+        if (customer.getBalanceMinor() < debit) {
+            String message = "Customer " + customer.getCustomerID() + " has a balance of "
+                    + Money.format(customer.getBalanceMinor()) + ", less than " + Money.format(debit);
+            orders.forEach(order -> order.fail(CheckoutResult.Status.INSUFFICIENT_FUNDS, message));
+            return false;
+        }
+        try {
+            customer.setPoints(Math.toIntExact(customer.getPoints() + award));
+        } catch (ArithmeticException e) {
+            orders.forEach(order -> order.fail(CheckoutResult.Status.FAILED, "persist failed: " + e.getMessage()));
+            return false;
+        }
+        customer.setBalanceMinor(customer.getBalanceMinor() - debit);
+        return true;
+    }
+
+    private void audit(List<Order> batch) {
+        int completed = 0;
+        int rejected = 0;
+        int failed = 0;
+        long total = 0;
+        for (Order order : batch) {
+            switch (order.status) {
+                case COMPLETED -> {
+                    completed++;
+                    total += order.totalMinor;
+                }
+                case CUSTOMER_NOT_FOUND, INSUFFICIENT_FUNDS -> rejected++;
+                default -> failed++;
+            }
+        }
+        this.auditService.logInfo("CHECKOUT_BATCH", "%d checkouts completed, %d rejected, %d failed, total %s",
+                completed, rejected, failed, Money.format(total));
+    }
+
+    /**
+     * Prints the receipts of the completed checkouts with one flush and completes every
+     * order's future.
+     */
+    private void receipt(List<Order> batch) {
+        try {
+            if (this.receipts != null) {
+                for (Order order : batch) {
+                    if (order.status == CheckoutResult.Status.COMPLETED) {
+                        Printer.checkoutPrinter(this.receipts, order.cart, Money.toMajor(order.totalMinor));
+                    }
+                }
+                this.receipts.flush();
+            }
+        } finally {
+            for (Order order : batch) {
+                boolean completed = order.status == CheckoutResult.Status.COMPLETED;
+                order.result.complete(new CheckoutResult(order.customerId, order.status, order.totalMinor,
+                        completed ? order.points : 0, order.message));
+            }
+        }
+    }
+}
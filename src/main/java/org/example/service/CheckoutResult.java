@@ -0,0 +1,87 @@
+package org.example.service;
+
+import org.example.model.Money;
+
+/**
+ * The outcome of one checkout run through a {@link CheckoutPipeline}.
+ */
+public final class CheckoutResult {
+
+    /**
+     * How a checkout ended.
+     */
+    public enum Status {
+        /**
+         * The cart was paid from the balance, the points awarded and the customer saved.
+         */
+        COMPLETED,
+        /**
+         * The repository holds no customer with the given ID.
+         */
+        CUSTOMER_NOT_FOUND,
+        /**
+         * The balance was smaller than the cart total; nothing was changed.
+         */
+        INSUFFICIENT_FUNDS,
+        /**
+         * An unexpected error, e.g. while saving; see {@link #getMessage()}.
+         */
+        FAILED
+    }
+
+    private final String customerID;
+    private final Status status;
+    private final long totalMinor;
+    private final int pointsAwarded;
+    private final String message;
+
+    CheckoutResult(String customerID, Status status, long totalMinor, int pointsAwarded, String message) {
+        this.customerID = customerID;
+        this.status = status;
+        this.totalMinor = totalMinor;
+        this.pointsAwarded = pointsAwarded;
+        this.message = message;
+    }
+
+    /**
+     * @return The ID of the customer who checked out.
+     */
+    public String getCustomerID() {
+        return customerID;
+    }
+
+    /**
+     * @return How the checkout ended.
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * @return The discounted, taxed cart total, or 0 if the cart could not be priced.
+     */
+    public double getTotal() {
+        return Money.toMajor(totalMinor);
+    }
+
+    /**
+     * @return The discounted, taxed cart total in minor units.
+     */
+    public long getTotalMinor() {
+        return totalMinor;
+    }
+
+    /**
+     * @return The loyalty points awarded; 0 unless the checkout completed.
+     */
+    public int getPointsAwarded() {
+        return pointsAwarded;
+    }
+
+    /**
+     * @return Why the checkout did not complete, or {@code null} if it did.
+     */
+    public String getMessage() {
+        return message;
+    }
+}
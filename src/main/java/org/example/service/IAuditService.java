@@ -1,6 +1,41 @@
 package org.example.service;
 
+import org.example.model.Money;
+
 public interface IAuditService {
     void logInfo(String eventType, String message);
     void logError(String eventType, String message);
+
+    /**
+     * Logs an informational event whose message is {@code String.format(format, args)}.
+     * <p>Implementations may defer the formatting, e.g. to a background writer, so callers
+     * should only pass arguments that are not modified afterwards. By default the message
+     * is formatted immediately.</p>
+     */
+    default void logInfo(String eventType, String format, Object... args) {
+        logInfo(eventType, String.format(format, args));
+    }
+
+    /**
+     * Logs an error event whose message is {@code String.format(format, args)}.
+     *
+     * @see #logInfo(String, String, Object...)
+     */
+    default void logError(String eventType, String format, Object... args) {
+        logError(eventType, String.format(format, args));
+    }
+
+    /**
+     * Logs a structured event about an amount of money concerning a customer.
+     * <p>Implementations that store records rather than text, such as a binary audit log,
+     * keep the customer ID and amount as fields. By default the event is logged as an
+     * informational message.</p>
+     *
+     * @param eventType The type of the event.
+     * @param customerId The customer the event is about.
+     * @param amountMinor The amount, in minor units.
+     */
+    default void logEvent(String eventType, String customerId, long amountMinor) {
+        logInfo(eventType, "%s for customer %s", Money.format(amountMinor), customerId);
+    }
 }
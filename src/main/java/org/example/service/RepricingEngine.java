@@ -0,0 +1,165 @@
+package org.example.service;
+
+import org.example.model.Customer;
+import org.example.repository.ICustomerRepository;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Re-prices the carts of many customers in parallel, using the discount and tax rules of
+ * {@link ShoppingCartService}.
+ * <p>The customers are split into shards of at most {@code shardSize} on a
+ * {@link ForkJoinPool} with the configured parallelism. Each shard prices its customers
+ * and collects its own {@link RepricingSummary}; the summaries are merged pairwise along
+ * the same split tree. The split depends only on the number of customers and the shard
+ * size, never on the parallelism. Totals are summed in exact minor units, so the sum does
+ * not depend on the order of the merges either: a parallel run returns exactly what
+ * {@link #repriceSequentially} returns.</p>
+ */
+public class RepricingEngine {
+
+    private static final int DEFAULT_SHARD_SIZE = 4_096;
+    private static final double DEFAULT_BUCKET_WIDTH = 100.0;
+    private static final int DEFAULT_BUCKETS = 50;
+
+    private final int parallelism;
+    private final int shardSize;
+    private final double bucketWidth;
+    private final int buckets;
+
+    /**
+     * Creates an engine using every available core and the default shard and histogram sizes.
+     */
+    public RepricingEngine() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_SHARD_SIZE, DEFAULT_BUCKET_WIDTH, DEFAULT_BUCKETS);
+    }
+
+    /**
+     * Creates an engine.
+     *
+     * @param parallelism The number of worker threads.
+     * @param shardSize The largest number of customers priced by one task.
+     * @param bucketWidth The width of each bucket of the totals histogram.
+     * @param buckets The number of buckets of the totals histogram.
+     */
+    public RepricingEngine(int parallelism, int shardSize, double bucketWidth, int buckets) {
+        if (parallelism < 1 || shardSize < 1 || bucketWidth <= 0 || buckets < 1) {
+            throw new IllegalArgumentException("Parallelism, shard size, bucket width and buckets must be positive");
+        }
+        this.parallelism = parallelism;
+        this.shardSize = shardSize;
+        this.bucketWidth = bucketWidth;
+        this.buckets = buckets;
+    }
+
+    /**
+     * Re-prices every customer of a repository.
+     *
+     * @param repository The repository to scan.
+     * @return The totals and summary statistics.
+     */
+    public RepricingResult reprice(ICustomerRepository repository) {
+        List<Customer> customers = new ArrayList<>();
+        repository.forEach(customers::add);
+        return this.reprice(customers);
+    }
+
+    /**
+     * Re-prices the given customers in parallel.
+     *
+     * @param customers The customers to price; should support fast random access.
+     * @return The totals and summary statistics, in the order of {@code customers}.
+     */
+    public RepricingResult reprice(List<Customer> customers) {
+        ForkJoinPool pool = new ForkJoinPool(this.parallelism);
+        try {
+            return this.run(customers, pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Re-prices the given customers on the calling thread, splitting and merging exactly
+     * like {@link #reprice(List)}.
+     *
+     * @param customers The customers to price.
+     * @return The totals and summary statistics, in the order of {@code customers}.
+     */
+    public RepricingResult repriceSequentially(List<Customer> customers) {
+        return this.run(customers, null);
+    }
+
+    private RepricingResult run(List<Customer> customers, ForkJoinPool pool) {
+        long[] totals = new long[customers.size()];
+        int[] points = new int[customers.size()];
+        ShardTask task = new ShardTask(customers, totals, points, 0, customers.size());
+        RepricingSummary summary = pool == null ? task.compute() : pool.invoke(task);
+        List<String> customerIDs = new AbstractList<>() {
+            @Override
+            public String get(int index) {
+                return customers.get(index).getCustomerID();
+            }
+
+            @Override
+            public int size() {
+                return customers.size();
+            }
+        };
+        return new RepricingResult(customerIDs, totals, points, summary);
+    }
+
+    /**
+     * Prices the customers in {@code [from, to)}, splitting in halves until a shard is small enough.
+     */
+    private final class ShardTask extends RecursiveTask<RepricingSummary> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Customer> customers;
+        private final long[] totals;
+        private final int[] points;
+        private final int from;
+        private final int to;
+
+        private ShardTask(List<Customer> customers, long[] totals, int[] points, int from, int to) {
+            this.customers = customers;
+            this.totals = totals;
+            this.points = points;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected RepricingSummary compute() {
+            if (this.to - this.from <= shardSize) {
+                RepricingSummary summary = new RepricingSummary(bucketWidth, buckets);
+                for (int i = this.from; i < this.to; i++) {
+                    Customer customer = this.customers.get(i);
+                    this.totals[i] = ShoppingCartService.priceCart(customer);
+                    this.points[i] = customer.getShoppingCart().getPoints();
+                    summary.add(this.totals[i], this.points[i]);
+                }
+                return summary;
+            }
+
+            int middle = (this.from + this.to) >>> 1;
+            ShardTask left = new ShardTask(this.customers, this.totals, this.points, this.from, middle);
+            ShardTask right = new ShardTask(this.customers, this.totals, this.points, middle, this.to);
+            RepricingSummary summary;
+            if (!inForkJoinPool()) {
+                summary = left.compute();
+                summary.merge(right.compute());
+            } else {
+                left.fork();
+                RepricingSummary rightSummary = right.compute();
+                summary = left.join();
+                summary.merge(rightSummary);
+            }
+            return summary;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package org.example.service;
+
+import org.example.model.Money;
+
+import java.util.List;
+
+/**
+ * The outcome of a {@link RepricingEngine} run: the total and loyalty points of every
+ * customer, in the order the customers were given, plus the merged summary statistics.
+ */
+public class RepricingResult {
+
+    private final List<String> customerIDs;
+    private final long[] totals;
+    private final int[] points;
+    private final RepricingSummary summary;
+
+    RepricingResult(List<String> customerIDs, long[] totals, int[] points, RepricingSummary summary) {
+        this.customerIDs = customerIDs;
+        this.totals = totals;
+        this.points = points;
+        this.summary = summary;
+    }
+
+    /**
+     * @return The number of customers priced.
+     */
+    public int size() {
+        return totals.length;
+    }
+
+    /**
+     * @param index The position of the customer in the input.
+     * @return The customer ID at that position.
+     */
+    public String getCustomerID(int index) {
+        return customerIDs.get(index);
+    }
+
+    /**
+     * @param index The position of the customer in the input.
+     * @return The discounted, taxed cart total, as {@link ShoppingCartService#calculateTotal} computes it.
+     */
+    public double getTotal(int index) {
+        return Money.toMajor(totals[index]);
+    }
+
+    /**
+     * @param index The position of the customer in the input.
+     * @return The discounted, taxed cart total in minor units.
+     */
+    public long getTotalMinor(int index) {
+        return totals[index];
+    }
+
+    /**
+     * @param index The position of the customer in the input.
+     * @return The loyalty points the customer's cart awards.
+     */
+    public int getPoints(int index) {
+        return points[index];
+    }
+
+    /**
+     * @return The summary statistics over all totals.
+     */
+    public RepricingSummary getSummary() {
+        return summary;
+    }
+}
@@ -0,0 +1,119 @@
+package org.example.service;
+
+import org.example.model.Money;
+
+import java.util.Arrays;
+
+/**
+ * Summary statistics over the cart totals of a re-pricing run: count, sum, minimum,
+ * maximum, loyalty points awarded and a fixed-width histogram of the totals.
+ * <p>Each shard of a {@link RepricingEngine} run fills its own summary; shards are then
+ * merged pairwise. Totals are kept in exact minor units, so merging is associative and
+ * the result does not depend on how the work was split.</p>
+ */
+public class RepricingSummary {
+
+    private final long bucketWidth;
+    private final long[] histogram;
+    private long count;
+    private long sum;
+    private long min = Long.MAX_VALUE;
+    private long max = Long.MIN_VALUE;
+    private long totalPoints;
+
+    RepricingSummary(double bucketWidth, int buckets) {
+        this.bucketWidth = Math.max(Money.toMinor(bucketWidth), 1);
+        this.histogram = new long[buckets];
+    }
+
+    /**
+     * Adds one customer's total, in minor units, and the loyalty points awarded for the cart.
+     */
+    void add(long total, int points) {
+        this.count++;
+        this.sum = Math.addExact(this.sum, total);
+        this.min = Math.min(this.min, total);
+        this.max = Math.max(this.max, total);
+        this.totalPoints += points;
+        // Totals below zero go to the first bucket, totals past the end to the last.
+        int bucket = (int) Math.min(Math.max(total / this.bucketWidth, 0), this.histogram.length - 1L);
+        this.histogram[bucket]++;
+    }
+
+    /**
+     * Adds the statistics of another shard to this one.
+     */
+    void merge(RepricingSummary other) {
+        this.count += other.count;
+        this.sum = Math.addExact(this.sum, other.sum);
+        this.min = Math.min(this.min, other.min);
+        this.max = Math.max(this.max, other.max);
+        this.totalPoints += other.totalPoints;
+        for (int i = 0; i < this.histogram.length; i++) {
+            this.histogram[i] += other.histogram[i];
+        }
+    }
+
+    /**
+     * @return The number of customers priced.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return The sum of all totals.
+     */
+    public double getSum() {
+        return Money.toMajor(sum);
+    }
+
+    /**
+     * @return The exact sum of all totals, in minor units.
+     */
+    public long getSumMinor() {
+        return sum;
+    }
+
+    /**
+     * @return The smallest total, or {@code NaN} if no customer was priced.
+     */
+    public double getMin() {
+        return count == 0 ? Double.NaN : Money.toMajor(min);
+    }
+
+    /**
+     * @return The largest total, or {@code NaN} if no customer was priced.
+     */
+    public double getMax() {
+        return count == 0 ? Double.NaN : Money.toMajor(max);
+    }
+
+    /**
+     * @return The loyalty points awarded across all carts.
+     */
+    public long getTotalPoints() {
+        return totalPoints;
+    }
+
+    /**
+     * @return The width of each histogram bucket; bucket {@code i} counts the totals in
+     * {@code [i * width, (i + 1) * width)}, and the last bucket also counts larger totals.
+     */
+    public double getBucketWidth() {
+        return Money.toMajor(bucketWidth);
+    }
+
+    /**
+     * @return A copy of the histogram counts.
+     */
+    public long[] getHistogram() {
+        return histogram.clone();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RepricingSummary{count=%d, sum=%.2f, min=%.2f, max=%.2f, points=%d, histogram=%s}",
+                count, getSum(), getMin(), getMax(), totalPoints, Arrays.toString(histogram));
+    }
+}
@@ -1,14 +1,21 @@
 package org.example.service;
 
 import org.example.model.Customer;
+import org.example.model.Money;
 import org.example.model.ShoppingCart;
 import org.example.repository.ICustomerRepository;
 
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
 
 public class ShoppingCartService {
-    private static final double TAX = 0.15;
-    private static final double MAX_POINTS = 20_000;
+    // Tax rate, as a percentage of the discounted total.
+    private static final long TAX_PERCENT = 15;
+    private static final int MAX_POINTS = 20_000;
+    // Every 1000 points take 1% off the cart, i.e. the discount fraction is points / 100_000.
+    private static final long POINTS_PER_WHOLE_DISCOUNT = 100_000;
     private ICustomerRepository customerRepository;
     private IAuditService auditService;
     public ShoppingCartService(ICustomerRepository customerRepository, IAuditService auditService) {
@@ -18,13 +25,53 @@ public class ShoppingCartService {
     public double calculateTotal(String customerID) {
         Optional<Customer> customer = customerRepository.findById(customerID);
         Customer customerInstance = customer.get();
-        ShoppingCart shoppingCart = customerInstance.getShoppingCart();
-        double total = shoppingCart.getTotal();
-        double discountPointsFlour = Math.min((double) customerInstance.getPoints(), MAX_POINTS);
-        double discountFraction = ( discountPointsFlour / 1000) / 100;
-        total = total - total * discountFraction;
-        double totalAfterTax = total + TAX * total;
-        auditService.logInfo("CALCULATION_SUCCESS", String.format("%.1f for customer %s", totalAfterTax, customerID));
+        double totalAfterTax = Money.toMajor(priceCart(customerInstance));
+        auditService.logInfo("CALCULATION_SUCCESS", "%.1f for customer %s", totalAfterTax, customerID);
         return totalAfterTax;
     }
+
+    /**
+     * Calculates the discounted, taxed cart totals of many customers at once.
+     * <p>The customers are fetched with a single {@link ICustomerRepository#findAllById}
+     * call and a single audit record summarizes the whole batch. Customers that cannot
+     * be found are left out of the result and counted in the audit record.</p>
+     *
+     * @param customerIDs The IDs of the customers to price.
+     * @return The total of each customer found, in the order of {@code customerIDs}.
+     */
+    public Map<String, Double> calculateTotals(Collection<String> customerIDs) {
+        Map<String, Customer> customers = customerRepository.findAllById(customerIDs);
+        Map<String, Double> totals = new LinkedHashMap<>();
+        long sum = 0;
+        int notFound = 0;
+        for (String customerID : customerIDs) {
+            Customer customerInstance = customers.get(customerID);
+            if (customerInstance == null) {
+                notFound++;
+            } else if (!totals.containsKey(customerID)) {
+                long totalAfterTax = priceCart(customerInstance);
+                totals.put(customerID, Money.toMajor(totalAfterTax));
+                sum += totalAfterTax;
+            }
+        }
+        auditService.logInfo("BATCH_CALCULATION_SUCCESS",
+                "%d totals calculated, %d customers not found, sum %.1f", totals.size(), notFound, Money.toMajor(sum));
+        return totals;
+    }
+
+    /**
+     * Applies the loyalty discount (capped at {@code MAX_POINTS}) and the tax to a
+     * customer's cart. Shared with {@link RepricingEngine}.
+     * <p>The calculation runs in minor units: the discount and the tax are each rounded
+     * half away from zero to whole cents.</p>
+     *
+     * @return The total after discount and tax, in minor units.
+     */
+    static long priceCart(Customer customerInstance) {
+        ShoppingCart shoppingCart = customerInstance.getShoppingCart();
+        long total = shoppingCart.getTotalMinor();
+        int discountPointsFlour = Math.min(customerInstance.getPoints(), MAX_POINTS);
+        total = total - Money.applyRate(total, discountPointsFlour, POINTS_PER_WHOLE_DISCOUNT);
+        return total + Money.applyRate(total, TAX_PERCENT, 100);
+    }
 }
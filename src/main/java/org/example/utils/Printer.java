@@ -3,18 +3,31 @@ package org.example.utils;
 import org.example.model.Product;
 import org.example.model.ShoppingCart;
 
+import java.io.PrintStream;
 import java.util.List;
 
 public class Printer {
     public static void checkoutPrinter(ShoppingCart shoppingCart, double total) {
+        checkoutPrinter(System.out, shoppingCart, total);
+    }
+
+    /**
+     * Prints the checkout receipt of a cart to the given stream, e.g. a buffered stream
+     * shared by a batch of receipts.
+     *
+     * @param out Where the receipt is printed.
+     * @param shoppingCart The cart whose items are listed.
+     * @param total The total shown at the bottom of the receipt.
+     */
+    public static void checkoutPrinter(PrintStream out, ShoppingCart shoppingCart, double total) {
         List<Product> products = shoppingCart.getItems();
-        System.out.print("Item\t Qty\t \t \t Price\n");
-        System.out.println();
+        out.print("Item\t Qty\t \t \t Price\n");
+        out.println();
         for (Product p : products) {
-            System.out.printf("%s\t x%d\t \t \t \t %.2f\n", p.getName(), p.getQty(), p.getPrice());
+            out.printf("%s\t x%d\t \t \t \t %.2f\n", p.getName(), p.getQty(), p.getPrice());
         }
-        System.out.println();
-        System.out.println("==============================");
-        System.out.printf("Total\t \t \t \t \t %.2f\n", total);
+        out.println();
+        out.println("==============================");
+        out.printf("Total\t \t \t \t \t %.2f\n", total);
     }
 }
@@ -0,0 +1,117 @@
+package org.example.analytics;
+
+import org.example.model.Customer;
+import org.example.repository.ICustomerRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class CustomerColumnsTest {
+
+    private static List<Customer> randomCustomers(int count) {
+        Random random = new Random(7);
+        List<Customer> customers = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            LocalDate joinedOn = LocalDate.of(2015, 1, 1).plusDays(random.nextInt(3_000));
+            Customer customer = new Customer("CUST-" + random.nextInt(1_000_000) + "-" + i, joinedOn, null, null, 0);
+            customer.setPoints(random.nextInt(30_000));
+            customer.setBalanceMinor(random.nextInt(1_000_000) - 100_000);
+            customers.add(customer);
+        }
+        return customers;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static CustomerColumns snapshotOf(List<Customer> customers) {
+        ICustomerRepository repository = mock(ICustomerRepository.class);
+        doAnswer(invocation -> {
+            customers.forEach(invocation.getArgument(0, Consumer.class));
+            return null;
+        }).when(repository).forEach(any());
+        return CustomerColumns.snapshot(repository);
+    }
+
+    @Test
+    void test_rows_are_sorted_by_id_and_keep_their_values() {
+        List<Customer> customers = randomCustomers(2_000);
+        CustomerColumns columns = snapshotOf(customers);
+
+        assertEquals(customers.size(), columns.size());
+        for (int row = 1; row < columns.size(); row++) {
+            assertTrue(columns.getCustomerID(row - 1).compareTo(columns.getCustomerID(row)) < 0);
+        }
+        for (Customer customer : customers) {
+            int row = columns.indexOf(customer.getCustomerID());
+            assertEquals(customer.getPoints(), columns.getPoints(row));
+            assertEquals(customer.getJoinedOn(), columns.getJoinedOn(row));
+            assertEquals(customer.getBalanceMinor(), columns.getBalanceMinor(row));
+        }
+        assertTrue(columns.indexOf("UNKNOWN") < 0);
+    }
+
+    @Test
+    void test_filters_and_aggregates_match_a_scan_of_the_objects() {
+        List<Customer> customers = randomCustomers(5_000);
+        CustomerColumns columns = snapshotOf(customers);
+        LocalDate from = LocalDate.of(2018, 3, 1);
+        LocalDate to = LocalDate.of(2020, 2, 29);
+
+        RowSelection selection = columns.wherePointsBetween(1_000, 20_000)
+                .and(columns.whereJoinedBetween(from, to))
+                .and(columns.whereBalanceBetween(0, Long.MAX_VALUE));
+
+        long expectedBalance = 0;
+        long expectedPoints = 0;
+        int expectedCount = 0;
+        for (Customer customer : customers) {
+            if (customer.getPoints() >= 1_000 && customer.getPoints() <= 20_000
+                    && !customer.getJoinedOn().isBefore(from) && !customer.getJoinedOn().isAfter(to)
+                    && customer.getBalanceMinor() >= 0) {
+                expectedBalance += customer.getBalanceMinor();
+                expectedPoints += customer.getPoints();
+                expectedCount++;
+            }
+        }
+        assertEquals(expectedCount, selection.count());
+        assertEquals(expectedBalance, columns.sumBalanceMinor(selection));
+        assertEquals(expectedPoints, columns.sumPoints(selection));
+        assertEquals(columns.sumBalanceMinor(), columns.sumBalanceMinor(columns.all()));
+        assertEquals(columns.size() - expectedCount, selection.not().count());
+    }
+
+    @Test
+    void test_group_by_join_year_and_points_bucket() {
+        List<Customer> customers = randomCustomers(3_000);
+        CustomerColumns columns = snapshotOf(customers);
+
+        GroupedTotals cohorts = columns.groupByJoinYear(columns.all());
+        GroupedTotals buckets = columns.groupByPoints(5_000, columns.wherePointsBetween(0, 29_999));
+
+        long[] yearCounts = new long[cohorts.getGroupCount()];
+        long[] yearBalances = new long[cohorts.getGroupCount()];
+        long[] bucketPoints = new long[buckets.getGroupCount()];
+        for (Customer customer : customers) {
+            int year = customer.getJoinedOn().getYear() - cohorts.getFirstKey();
+            yearCounts[year]++;
+            yearBalances[year] += customer.getBalanceMinor();
+            bucketPoints[customer.getPoints() / 5_000 - buckets.getFirstKey()] += customer.getPoints();
+        }
+        assertEquals(2015, cohorts.getFirstKey());
+        for (int i = 0; i < cohorts.getGroupCount(); i++) {
+            assertEquals(yearCounts[i], cohorts.getCount(i));
+            assertEquals(yearBalances[i], cohorts.getBalanceSumMinor(i));
+        }
+        assertEquals(6, buckets.getGroupCount());
+        for (int i = 0; i < buckets.getGroupCount(); i++) {
+            assertEquals(bucketPoints[i], buckets.getPointsSum(i));
+        }
+    }
+}
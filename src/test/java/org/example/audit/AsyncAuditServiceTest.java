@@ -0,0 +1,115 @@
+package org.example.audit;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncAuditServiceTest {
+
+    @Test
+    void test_events_are_formatted_and_written_in_order_on_the_writer_thread() {
+        List<String> formattedOn = new ArrayList<>();
+        Object threadRecorder = new Object() {
+            @Override
+            public String toString() {
+                formattedOn.add(Thread.currentThread().getName());
+                return "CUST-1008";
+            }
+        };
+        StringWriter out = new StringWriter();
+        AsyncAuditService auditService = new AsyncAuditService(new WriterAuditSink(out));
+
+        auditService.logInfo("CALCULATION_SUCCESS", "%.1f for customer %s", 2300.0, threadRecorder);
+        auditService.logError("CALCULATION_FAILED", "customer not found");
+        auditService.flush();
+
+        assertEquals(List.of("audit-writer"), formattedOn);
+        String[] lines = out.toString().split(System.lineSeparator());
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].endsWith("|INFO|CALCULATION_SUCCESS|2300.0 for customer CUST-1008"));
+        assertTrue(lines[1].endsWith("|ERROR|CALCULATION_FAILED|customer not found"));
+        auditService.close();
+    }
+
+    @Test
+    void test_drop_policy_discards_events_while_the_buffer_is_full() throws Exception {
+        CountDownLatch sinkEntered = new CountDownLatch(1);
+        CountDownLatch releaseSink = new CountDownLatch(1);
+        List<String> written = new ArrayList<>();
+        AsyncAuditService auditService = new AsyncAuditService(events -> {
+            sinkEntered.countDown();
+            try {
+                releaseSink.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            for (AuditEvent event : events) {
+                written.add(event.getMessage());
+            }
+        }, 2, BackpressurePolicy.DROP);
+
+        auditService.logInfo("EVENT", "1");
+        assertTrue(sinkEntered.await(5, TimeUnit.SECONDS));
+        auditService.logInfo("EVENT", "2");
+        auditService.logInfo("EVENT", "3");
+        auditService.logInfo("EVENT", "4");
+        auditService.logInfo("EVENT", "5");
+        releaseSink.countDown();
+        auditService.close();
+
+        assertEquals(List.of("1", "2", "3"), written);
+        assertEquals(2, auditService.getDroppedCount());
+    }
+
+    @Test
+    void test_block_policy_loses_nothing_with_many_producers() throws Exception {
+        List<AuditEvent> written = new ArrayList<>();
+        AsyncAuditService auditService = new AsyncAuditService(written::addAll, 4, BackpressurePolicy.BLOCK);
+        Thread[] producers = new Thread[4];
+        for (int p = 0; p < producers.length; p++) {
+            producers[p] = new Thread(() -> {
+                for (int i = 0; i < 1_000; i++) {
+                    auditService.logInfo("EVENT", "%d", i);
+                }
+            });
+            producers[p].start();
+        }
+        for (Thread producer : producers) {
+            producer.join();
+        }
+        auditService.close();
+
+        assertEquals(4_000, written.size());
+        assertEquals(0, auditService.getDroppedCount());
+    }
+
+    @Test
+    void test_idle_writer_parks_until_an_event_arrives() throws Exception {
+        List<AuditEvent> written = new CopyOnWriteArrayList<>();
+        AsyncAuditService auditService = new AsyncAuditService(written::addAll);
+        Thread writer = Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().equals("audit-writer") && thread.isAlive())
+                .findFirst().orElseThrow();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (writer.getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(Thread.State.WAITING, writer.getState());
+
+        auditService.logInfo("EVENT", "1");
+        while (written.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+
+        assertEquals(1, written.size());
+        auditService.close();
+    }
+}
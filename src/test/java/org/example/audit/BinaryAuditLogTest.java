@@ -0,0 +1,88 @@
+package org.example.audit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryAuditLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void test_records_rotate_across_segments_and_replay_in_order() throws IOException {
+        AtomicLong clock = new AtomicLong(1_000);
+        BinaryAuditLog log = new BinaryAuditLog(this.directory.toString(), 256, false, clock::getAndIncrement);
+        for (int i = 0; i < 20; i++) {
+            log.logEvent("CHECKOUT", "CUST-" + i, 100L * i);
+        }
+        log.logError("CALCULATION_FAILED", "customer not found");
+        log.close();
+
+        assertTrue(BinaryAuditFormat.listSegments(this.directory).size() > 1);
+        List<AuditRecord> records = new ArrayList<>();
+        new BinaryAuditLogReader(this.directory.toString()).replay(records::add);
+
+        assertEquals(21, records.size());
+        for (int i = 0; i < 20; i++) {
+            assertEquals("CHECKOUT", records.get(i).getEventType());
+            assertEquals("CUST-" + i, records.get(i).getCustomerId());
+            assertEquals(100L * i, records.get(i).getAmountMinor());
+        }
+        assertEquals(AuditEvent.Level.ERROR, records.get(20).getLevel());
+        assertEquals("customer not found", records.get(20).getMessage());
+    }
+
+    @Test
+    void test_scan_returns_only_the_requested_time_range() {
+        AtomicLong clock = new AtomicLong();
+        BinaryAuditLog log = new BinaryAuditLog(this.directory.toString(), 200, false, clock::get);
+        for (int i = 0; i < 50; i++) {
+            clock.set(10_000L + i * 10);
+            log.logEvent("CHECKOUT", "CUST-" + i, i);
+        }
+        log.close();
+
+        List<AuditRecord> records = new ArrayList<>();
+        new BinaryAuditLogReader(this.directory.toString()).scan(10_100, 10_200, records::add);
+
+        assertEquals(10, records.size());
+        assertEquals(10, records.get(0).getAmountMinor());
+        assertEquals(19, records.get(9).getAmountMinor());
+    }
+
+    @Test
+    void test_reopening_appends_after_the_last_intact_record() throws IOException {
+        BinaryAuditLog log = new BinaryAuditLog(this.directory.toString());
+        log.logEvent("CHECKOUT", "CUST-1", 100);
+        log.logEvent("REFUND", "CUST-1", -100);
+        log.close();
+
+        // Simulate a crash in the middle of a write: a frame header without its payload.
+        Path segment = BinaryAuditFormat.listSegments(this.directory).get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.allocate(8).putInt(0, 40).putInt(4, 0x7F));
+        }
+
+        log = new BinaryAuditLog(this.directory.toString());
+        log.logEvent("CHECKOUT", "CUST-2", 250);
+        log.close();
+
+        List<AuditRecord> records = new ArrayList<>();
+        new BinaryAuditLogReader(this.directory.toString()).replay(records::add);
+        assertEquals(3, records.size());
+        assertEquals("REFUND", records.get(1).getEventType());
+        assertEquals("CUST-2", records.get(2).getCustomerId());
+        assertEquals(1, BinaryAuditFormat.listSegments(this.directory).size());
+    }
+}
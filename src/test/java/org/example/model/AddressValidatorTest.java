@@ -6,6 +6,12 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Pattern;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class AddressValidatorTest {
@@ -54,5 +60,65 @@ class AddressValidatorTest {
         Exception excetion = assertThrows(InvalidCivicAddressException.class, () -> this.addressValidator.isValidAddress(address));
     }
 
+    @Test
+    void test_postal_code_and_civic_address_match_reference_rules() {
+        // The original regex, trim() and parseInt based rules.
+        Pattern postalCode = Pattern.compile("(?i)^[ABCEGHJKLMNPRSTVWXYZ]\\d[ABCEGHJKLMNPRSTVXY]\\s?\\d[ABCEGHJKLMNPRSTVXY]\\d$");
+        Set<String> streetTypes = Set.of("St.", "Ave.", "Blvd.", "Dr.", "Rd.");
+        String alphabet = "ABCWZDabwz019 \t\n-+.\u0663\u00e9";
+        Random random = new Random(42);
+        for (int n = 0; n < 100_000; n++) {
+            StringBuilder candidate = new StringBuilder();
+            int length = random.nextInt(10);
+            for (int i = 0; i < length; i++) {
+                candidate.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            String text = candidate.toString();
+            assertEquals(postalCode.matcher(text.trim()).matches(), this.addressValidator.isPostalCodeValid(text), text);
+
+            // Also mutate a valid code, so that near-misses are well covered.
+            StringBuilder mutated = new StringBuilder(random.nextBoolean() ? "B3H 1A5" : "k1a0b1");
+            mutated.setCharAt(random.nextInt(mutated.length()), alphabet.charAt(random.nextInt(alphabet.length())));
+            text = mutated.toString();
+            assertEquals(postalCode.matcher(text.trim()).matches(), this.addressValidator.isPostalCodeValid(text), text);
+        }
+        for (String streetNumber : new String[]{"0", "-12", "+7", "-", "+", "", "12a", "\u0661\u0662", "2147483647", "2147483648", "-2147483648", "-2147483649"}) {
+            for (String streetType : new String[]{"St.", "Ave.", "Blvd.", "Dr.", "Rd.", "St", "Ave", "Sx.", "Bl.", "Avenue"}) {
+                String address = streetNumber + " Main " + streetType;
+                boolean numberValid;
+                try {
+                    Integer.parseInt(streetNumber);
+                    numberValid = true;
+                } catch (NumberFormatException e) {
+                    numberValid = false;
+                }
+                assertEquals(numberValid && streetTypes.contains(streetType), this.addressValidator.isCivicAddressValid(address), address);
+            }
+        }
+        assertTrue(this.addressValidator.isPostalCodeValid(" b3h\t1a5 "));
+        assertFalse(this.addressValidator.isPostalCodeValid(null));
+    }
+
+    @Test
+    void test_validate_all_reports_every_error_without_throwing() {
+        List<Address> addresses = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            addresses.add(new Address(i, "6050 University Ave.", "Halifax", "NS", "B3H 1A5", null));
+        }
+        addresses.set(17, new Address(17, "University Avenue", "Halifax", "NS", "B3H 1A5", null));
+        addresses.set(4242, new Address(4242, "X6050 University Ave.", "Halifax", "NS", "Z3H", null));
+        addresses.set(9999, null);
+
+        AddressValidationReport report = this.addressValidator.validateAll(addresses);
 
-}
\ No newline at end of file
+        assertEquals(10_000, report.size());
+        assertEquals(3, report.getInvalidCount());
+        assertArrayEquals(new int[]{17, 4242, 9999}, report.getInvalidIndexes());
+        assertEquals(Set.of(AddressValidationError.INVALID_CIVIC_ADDRESS), report.getErrors(17));
+        assertEquals(Set.of(AddressValidationError.INVALID_CIVIC_ADDRESS, AddressValidationError.INVALID_POSTAL_CODE), report.getErrors(4242));
+        assertEquals(Set.of(AddressValidationError.MISSING_ADDRESS), report.getErrors(9999));
+        assertEquals(2, report.getErrorCount(AddressValidationError.INVALID_CIVIC_ADDRESS));
+        assertEquals(1, report.getErrorCount(AddressValidationError.INVALID_POSTAL_CODE));
+        assertTrue(report.isValid(0));
+    }
+}
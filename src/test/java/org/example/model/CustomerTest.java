@@ -0,0 +1,124 @@
+package org.example.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomerTest {
+
+    /**
+     * Counts how often each detail is loaded.
+     */
+    static class CountingSource implements ICustomerDetailsSource {
+        int cartLoads;
+        int addressLoads;
+
+        @Override
+        public ShoppingCart loadShoppingCart(Customer customer) {
+            this.cartLoads++;
+            return new ShoppingCart(customer);
+        }
+
+        @Override
+        public Address loadAddress(Customer customer) {
+            this.addressLoads++;
+            return new Address();
+        }
+    }
+
+    @Test
+    void test_reading_points_and_balance_does_not_load_details() {
+        CountingSource source = new CountingSource();
+        Customer customer = new Customer("C1", LocalDate.of(2020, 1, 1), source, 1234);
+        customer.setPoints(50);
+
+        assertEquals(50, customer.getPoints());
+        assertEquals(1234, customer.getBalanceMinor());
+        assertFalse(customer.isDetailsLoaded());
+        assertEquals(0, source.cartLoads);
+        assertEquals(0, source.addressLoads);
+    }
+
+    @Test
+    void test_details_are_loaded_once_on_first_access() {
+        CountingSource source = new CountingSource();
+        Customer customer = new Customer("C1", LocalDate.of(2020, 1, 1), source, 0);
+
+        ShoppingCart cart = customer.getShoppingCart();
+        assertSame(cart, customer.getShoppingCart());
+        assertSame(customer, cart.getCustomer());
+        assertEquals(1, source.cartLoads);
+        assertFalse(customer.isDetailsLoaded());
+
+        customer.getAddress();
+        customer.getAddress();
+        assertEquals(1, source.addressLoads);
+        assertTrue(customer.isDetailsLoaded());
+    }
+
+    @Test
+    void test_setting_a_detail_skips_its_load() {
+        CountingSource source = new CountingSource();
+        Customer customer = new Customer("C1", LocalDate.of(2020, 1, 1), source, 0);
+        Address address = new Address();
+
+        customer.setAddress(address);
+        assertSame(address, customer.getAddress());
+        assertEquals(0, source.addressLoads);
+
+        Customer copy = new Customer(customer);
+        assertSame(address, copy.getAddress());
+        copy.getShoppingCart();
+        assertEquals(1, source.cartLoads);
+    }
+
+    @Test
+    void test_shared_instance_loads_its_cart_once_across_threads() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        ICustomerDetailsSource slowSource = new ICustomerDetailsSource() {
+            @Override
+            public ShoppingCart loadShoppingCart(Customer customer) {
+                loads.incrementAndGet();
+                loading.countDown();
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return new ShoppingCart(customer);
+            }
+
+            @Override
+            public Address loadAddress(Customer customer) {
+                return new Address();
+            }
+        };
+        Customer customer = new Customer("C1", LocalDate.of(2020, 1, 1), slowSource, 0);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<ShoppingCart>> carts = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                carts.add(executor.submit(customer::getShoppingCart));
+            }
+            assertTrue(loading.await(5, TimeUnit.SECONDS));
+            for (Future<ShoppingCart> cart : carts) {
+                assertSame(customer.getShoppingCart(), cart.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(1, loads.get());
+    }
+}
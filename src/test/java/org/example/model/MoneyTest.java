@@ -0,0 +1,17 @@
+package org.example.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    @Test
+    void test_to_minor_rounds_half_cents_away_from_zero() {
+        assertEquals(29, Money.toMinor(0.285));
+        assertEquals(101, Money.toMinor(1.005));
+        assertEquals(-29, Money.toMinor(-0.285));
+        assertEquals(1999, Money.toMinor(19.99));
+        assertEquals(28, Money.toMinor(0.2849));
+    }
+}
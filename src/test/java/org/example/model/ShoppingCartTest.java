@@ -0,0 +1,129 @@
+package org.example.model;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShoppingCartTest {
+
+    ShoppingCart shoppingCart;
+
+    @BeforeEach
+    void setUp() {
+        this.shoppingCart = new ShoppingCart(null);
+    }
+
+    @Test
+    void test_totals_follow_added_and_removed_products() {
+        Product gpu = new Product("RTX 4090", "1111", 2000.0, 10, 1);
+        Product cable = new Product("HDMI cable", "2222", 15.5, 1, 2);
+
+        this.shoppingCart.addProduct(gpu);
+        this.shoppingCart.addProduct(cable);
+        assertEquals(2031.0, this.shoppingCart.getTotal());
+        assertEquals(12, this.shoppingCart.getPoints());
+
+        assertTrue(this.shoppingCart.removeProduct(gpu));
+        assertFalse(this.shoppingCart.removeProduct(gpu));
+        assertEquals(31.0, this.shoppingCart.getTotal());
+        assertEquals(2, this.shoppingCart.getPoints());
+    }
+
+    @Test
+    void test_totals_follow_changes_to_contained_products() {
+        Product cable = new Product("HDMI cable", "2222", 15.5, 1, 2);
+        this.shoppingCart.addProduct(cable);
+
+        cable.setQty(4);
+        assertEquals(62.0, this.shoppingCart.getTotal());
+        assertEquals(4, this.shoppingCart.getPoints());
+
+        cable.setPrice(10.0);
+        cable.setPoints(3);
+        assertEquals(40.0, this.shoppingCart.getTotal());
+        assertEquals(12, this.shoppingCart.getPoints());
+
+        this.shoppingCart.removeProduct(cable);
+        cable.setQty(100);
+        assertEquals(0.0, this.shoppingCart.getTotal());
+    }
+
+    @Test
+    void test_totals_are_exact_in_minor_units() {
+        for (int i = 0; i < 10; i++) {
+            this.shoppingCart.addProduct(new Product("Sticker", "S" + i, 0.1, 0, 1));
+        }
+
+        assertEquals(100, this.shoppingCart.getTotalMinor());
+        assertEquals(1.0, this.shoppingCart.getTotal());
+    }
+
+    @Test
+    void test_set_items_recomputes_totals() {
+        this.shoppingCart.setItems(List.of(new Product("A", "1", 1.25, 1, 2), new Product("B", "2", 3.0, 2, 1)));
+
+        assertEquals(5.5, this.shoppingCart.getTotal());
+        assertEquals(4, this.shoppingCart.getPoints());
+        assertThrows(UnsupportedOperationException.class, () -> this.shoppingCart.getItems().clear());
+    }
+
+    @Test
+    void test_products_with_same_serial_are_merged_into_one_line() {
+        Product cable = new Product("HDMI cable", "2222", 15.5, 1, 2);
+        Product moreCables = new Product("HDMI cable", "2222", 15.5, 1, 3);
+
+        this.shoppingCart.addProduct(cable);
+        this.shoppingCart.addProduct(moreCables);
+
+        assertEquals(1, this.shoppingCart.getItems().size());
+        assertEquals(5, this.shoppingCart.getProduct("2222").getQty());
+        assertEquals(77.5, this.shoppingCart.getTotal());
+
+        assertTrue(this.shoppingCart.removeProduct(moreCables));
+        assertEquals(2, this.shoppingCart.getProduct("2222").getQty());
+        assertEquals(31.0, this.shoppingCart.getTotal());
+    }
+
+    @Test
+    void test_same_serial_at_a_different_price_is_rejected() {
+        Product cable = new Product("HDMI cable", "2222", 15.5, 1, 2);
+        this.shoppingCart.addProduct(cable);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> this.shoppingCart.addProduct(new Product("HDMI cable", "2222", 12.0, 1, 1)));
+        assertEquals(2, cable.getQty());
+        assertEquals(31.0, this.shoppingCart.getTotal());
+    }
+
+    @Test
+    void test_adding_the_same_product_again_is_rejected() {
+        Product cable = new Product("HDMI cable", "2222", 15.5, 1, 2);
+        this.shoppingCart.addProduct(cable);
+
+        assertThrows(IllegalArgumentException.class, () -> this.shoppingCart.addProduct(cable));
+        assertEquals(2, cable.getQty());
+        assertEquals(31.0, this.shoppingCart.getTotal());
+        assertEquals(2, this.shoppingCart.getPoints());
+    }
+
+    @Test
+    void test_update_qty_and_remove_by_serial() {
+        this.shoppingCart.addProduct(new Product("RTX 4090", "1111", 2000.0, 10, 1));
+        this.shoppingCart.addProduct(new Product("HDMI cable", "2222", 15.5, 1, 2));
+
+        assertTrue(this.shoppingCart.updateQty("1111", 3));
+        assertEquals(6031.0, this.shoppingCart.getTotal());
+        assertEquals(32, this.shoppingCart.getPoints());
+        assertFalse(this.shoppingCart.updateQty("9999", 3));
+
+        assertTrue(this.shoppingCart.updateQty("2222", 0));
+        assertNull(this.shoppingCart.getProduct("2222"));
+        assertTrue(this.shoppingCart.removeBySerial("1111"));
+        assertFalse(this.shoppingCart.removeBySerial("1111"));
+        assertEquals(0.0, this.shoppingCart.getTotal());
+        assertEquals(0, this.shoppingCart.getPoints());
+    }
+}
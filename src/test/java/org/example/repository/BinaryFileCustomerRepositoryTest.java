@@ -0,0 +1,124 @@
+package org.example.repository;
+
+import org.example.exceptions.CustomerNotFoundException;
+import org.example.exceptions.InsufficientFundsException;
+import org.example.exceptions.StaleCustomerVersionException;
+import org.example.model.Customer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinaryFileCustomerRepositoryTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void test_save_find_and_delete_round_trip() throws CustomerNotFoundException {
+        BinaryFileCustomerRepository repository = new BinaryFileCustomerRepository(this.directory.resolve("customers.bin").toString());
+        Customer customer = new Customer("CUST-ü", LocalDate.of(1969, 12, 31), null, null, -12.34);
+        customer.setPoints(-7);
+        repository.save(customer);
+        repository.save(new Customer("CUST-2", LocalDate.of(2024, 2, 29), null, null, 1e9));
+
+        Customer found = repository.findById("CUST-ü").orElseThrow();
+        assertEquals(-7, found.getPoints());
+        assertEquals(LocalDate.of(1969, 12, 31), found.getJoinedOn());
+        assertEquals(-1234, found.getBalanceMinor());
+        assertEquals(100_000_000_000L, repository.findById("CUST-2").orElseThrow().getBalanceMinor());
+
+        repository.delete("CUST-ü");
+        assertTrue(repository.findById("CUST-ü").isEmpty());
+        assertThrows(CustomerNotFoundException.class, () -> repository.delete("CUST-ü"));
+    }
+
+    @Test
+    void test_convert_from_text_streams_across_buffer_boundaries_and_shrinks_the_file() throws IOException {
+        Path text = this.directory.resolve("customer_data.txt");
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            lines.add("CUST-" + i + "|" + (i % 5_000) + "|2024-01-01|" + (i % 100_000) / 100.0);
+        }
+        Files.write(text, lines);
+        Path binary = this.directory.resolve("customers.bin");
+
+        BinaryFileCustomerRepository repository = BinaryFileCustomerRepository.convert(text.toString(), binary.toString());
+
+        List<Customer> customers = new ArrayList<>();
+        repository.forEach(customers::add);
+        assertEquals(20_000, customers.size());
+        assertEquals(12_345 % 5_000, repository.findById("CUST-12345").orElseThrow().getPoints());
+        assertEquals(12_345, repository.findById("CUST-12345").orElseThrow().getBalanceMinor());
+        assertTrue(Files.size(binary) < Files.size(text));
+    }
+
+    @Test
+    void test_corrupt_record_is_skipped() throws IOException {
+        Path file = this.directory.resolve("customers.bin");
+        BinaryFileCustomerRepository repository = new BinaryFileCustomerRepository(file.toString());
+        repository.saveAll(List.of(
+                new Customer("CUST-1", LocalDate.of(2024, 1, 1), null, null, 1),
+                new Customer("CUST-2", LocalDate.of(2024, 1, 1), null, null, 2)));
+
+        // Flip a byte of the first record's customer ID; its checksum no longer matches.
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[CustomerBinaryFormat.HEADER_SIZE + 3] ^= 0x01;
+        Files.write(file, bytes);
+
+        List<Customer> customers = new ArrayList<>();
+        repository.forEach(customers::add);
+        assertEquals(1, customers.size());
+        assertEquals("CUST-2", customers.get(0).getCustomerID());
+    }
+
+    @Test
+    void test_corrupt_record_length_ends_the_scan_without_allocating_it() throws IOException {
+        Path file = this.directory.resolve("customers.bin");
+        BinaryFileCustomerRepository repository = new BinaryFileCustomerRepository(file.toString());
+        repository.saveAll(List.of(
+                new Customer("CUST-1", LocalDate.of(2024, 1, 1), null, null, 1),
+                new Customer("CUST-2", LocalDate.of(2024, 1, 1), null, null, 2)));
+
+        // Replace the first record's length with a varint of 0x7FFFFFF0.
+        byte[] bytes = Files.readAllBytes(file);
+        byte[] corrupt = new byte[bytes.length + 4];
+        System.arraycopy(bytes, 0, corrupt, 0, CustomerBinaryFormat.HEADER_SIZE);
+        byte[] length = {(byte) 0xF0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07};
+        System.arraycopy(length, 0, corrupt, CustomerBinaryFormat.HEADER_SIZE, length.length);
+        System.arraycopy(bytes, CustomerBinaryFormat.HEADER_SIZE + 1, corrupt, CustomerBinaryFormat.HEADER_SIZE + length.length,
+                bytes.length - CustomerBinaryFormat.HEADER_SIZE - 1);
+        Files.write(file, corrupt);
+
+        List<Customer> customers = new ArrayList<>();
+        repository.forEach(customers::add);
+        assertTrue(customers.isEmpty());
+    }
+
+    @Test
+    void test_point_and_balance_updates_are_versioned() throws InsufficientFundsException {
+        BinaryFileCustomerRepository repository = new BinaryFileCustomerRepository(this.directory.resolve("customers.bin").toString());
+        repository.save(new Customer("CUST-1", LocalDate.of(2024, 1, 1), null, null, 10));
+        Customer stale = repository.findById("CUST-1").orElseThrow();
+
+        IntStream.range(0, 100).parallel().forEach(i -> repository.addPoints("CUST-1", 1));
+        repository.debitBalance("CUST-1", 250);
+
+        Customer stored = repository.findById("CUST-1").orElseThrow();
+        assertEquals(100, stored.getPoints());
+        assertEquals(750, stored.getBalanceMinor());
+        assertEquals(102, stored.getVersion());
+        assertThrows(InsufficientFundsException.class, () -> repository.debitBalance("CUST-1", 751));
+        stale.setPoints(1);
+        assertThrows(StaleCustomerVersionException.class, () -> repository.saveIfCurrent(stale));
+        assertEquals(100, repository.findById("CUST-1").orElseThrow().getPoints());
+    }
+}
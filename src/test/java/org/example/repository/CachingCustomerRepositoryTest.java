@@ -0,0 +1,101 @@
+package org.example.repository;
+
+import org.example.model.Customer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CachingCustomerRepositoryTest {
+
+    private ICustomerRepository delegate;
+    private final AtomicLong clock = new AtomicLong();
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(ICustomerRepository.class);
+        for (String id : new String[]{"CUST-1", "CUST-2", "CUST-3"}) {
+            when(delegate.findById(id)).thenAnswer(invocation -> Optional.of(new Customer(id, LocalDate.now(), null, null, 0)));
+        }
+        when(delegate.findById("CUST-404")).thenReturn(Optional.empty());
+    }
+
+    private CachingCustomerRepository cache(int size, CachingCustomerRepository.EvictionPolicy policy, Duration ttl) {
+        return new CachingCustomerRepository(delegate, size, policy, ttl, clock::get);
+    }
+
+    @Test
+    void test_repeated_lookups_are_served_from_cache() {
+        CachingCustomerRepository repository = cache(10, CachingCustomerRepository.EvictionPolicy.LRU, Duration.ZERO);
+
+        Customer first = repository.findById("CUST-1").orElseThrow();
+        Customer second = repository.findById("CUST-1").orElseThrow();
+        repository.findById("CUST-404");
+
+        assertSame(first, second);
+        verify(delegate, times(1)).findById("CUST-1");
+        CacheStats stats = repository.stats();
+        assertEquals(1, stats.getHitCount());
+        assertEquals(2, stats.getMissCount());
+        assertEquals(1, stats.getSize());
+    }
+
+    @Test
+    void test_lru_evicts_least_recently_used() {
+        CachingCustomerRepository repository = cache(2, CachingCustomerRepository.EvictionPolicy.LRU, Duration.ZERO);
+
+        repository.findById("CUST-1");
+        repository.findById("CUST-2");
+        repository.findById("CUST-1");
+        repository.findById("CUST-3");
+        repository.findById("CUST-1");
+        repository.findById("CUST-2");
+
+        verify(delegate, times(1)).findById("CUST-1");
+        verify(delegate, times(2)).findById("CUST-2");
+        assertEquals(2, repository.stats().getEvictionCount());
+    }
+
+    @Test
+    void test_tiny_lfu_keeps_frequently_used_customer() {
+        CachingCustomerRepository repository = cache(1, CachingCustomerRepository.EvictionPolicy.TINY_LFU, Duration.ZERO);
+
+        for (int i = 0; i < 5; i++) {
+            repository.findById("CUST-1");
+        }
+        repository.findById("CUST-2");
+        repository.findById("CUST-1");
+
+        verify(delegate, times(1)).findById("CUST-1");
+        assertEquals(0, repository.stats().getEvictionCount());
+    }
+
+    @Test
+    void test_entries_expire_after_ttl() {
+        CachingCustomerRepository repository = cache(10, CachingCustomerRepository.EvictionPolicy.LRU, Duration.ofSeconds(1));
+
+        repository.findById("CUST-1");
+        clock.addAndGet(Duration.ofSeconds(2).toNanos());
+        repository.findById("CUST-1");
+
+        verify(delegate, times(2)).findById("CUST-1");
+    }
+
+    @Test
+    void test_save_writes_through_and_invalidates() {
+        CachingCustomerRepository repository = cache(10, CachingCustomerRepository.EvictionPolicy.LRU, Duration.ZERO);
+        Customer customer = repository.findById("CUST-1").orElseThrow();
+
+        repository.save(customer);
+        repository.findById("CUST-1");
+
+        verify(delegate).save(customer);
+        verify(delegate, times(2)).findById("CUST-1");
+    }
+}
@@ -0,0 +1,70 @@
+package org.example.repository;
+
+import org.example.exceptions.CustomerNotFoundException;
+import org.example.exceptions.InsufficientFundsException;
+import org.example.model.Customer;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentInMemoryCustomerRepositoryTest {
+
+    @Test
+    void test_concurrent_updates_are_not_lost() {
+        ConcurrentInMemoryCustomerRepository repository = new ConcurrentInMemoryCustomerRepository();
+        repository.save(new Customer("CUST-1", LocalDate.now(), null, null, 0));
+
+        IntStream.range(0, 10_000).parallel().forEach(i -> repository.update("CUST-1", customer -> {
+            customer.setPoints(customer.getPoints() + 1);
+            return customer;
+        }));
+
+        assertEquals(10_000, repository.findById("CUST-1").orElseThrow().getPoints());
+    }
+
+    @Test
+    void test_copy_on_read_returns_private_copies() {
+        ConcurrentInMemoryCustomerRepository repository = new ConcurrentInMemoryCustomerRepository(true);
+        Customer customer = new Customer("CUST-1", LocalDate.now(), null, null, 0);
+        customer.setPoints(5);
+        repository.save(customer);
+
+        Customer read = repository.findById("CUST-1").orElseThrow();
+        read.setPoints(99);
+
+        assertNotSame(customer, read);
+        assertEquals(5, repository.findById("CUST-1").orElseThrow().getPoints());
+    }
+
+    @Test
+    void test_updates_replace_the_stored_instance_instead_of_changing_it() throws InsufficientFundsException {
+        ConcurrentInMemoryCustomerRepository repository = new ConcurrentInMemoryCustomerRepository();
+        repository.save(new Customer("CUST-1", LocalDate.now(), null, null, 10));
+        Customer read = repository.findById("CUST-1").orElseThrow();
+
+        repository.addPoints("CUST-1", 5);
+        repository.debitBalance("CUST-1", 100);
+        repository.update("CUST-1", customer -> {
+            customer.setPoints(customer.getPoints() + 1);
+            return customer;
+        });
+
+        assertEquals(0, read.getPoints());
+        assertEquals(1_000, read.getBalanceMinor());
+        assertEquals(1, read.getVersion());
+        Customer stored = repository.findById("CUST-1").orElseThrow();
+        assertEquals(6, stored.getPoints());
+        assertEquals(900, stored.getBalanceMinor());
+        assertEquals(4, stored.getVersion());
+    }
+
+    @Test
+    void test_update_of_unknown_customer_throws() {
+        ConcurrentInMemoryCustomerRepository repository = new ConcurrentInMemoryCustomerRepository();
+        assertThrows(CustomerNotFoundException.class, () -> repository.update("CUST-404", customer -> customer));
+        assertThrows(CustomerNotFoundException.class, () -> repository.delete("CUST-404"));
+    }
+}
@@ -0,0 +1,95 @@
+package org.example.repository;
+
+import org.example.model.Address;
+import org.example.model.Customer;
+import org.example.model.Product;
+import org.example.model.ShoppingCart;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomerSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void test_customers_round_trip_with_cart_and_address() {
+        Customer customer = new Customer("CUST|1", LocalDate.of(2024, 2, 29), null, null, 12.34);
+        customer.setPoints(2500);
+        customer.setAddress(new Address(7, "6050 University Ave.\nUnit \\3", "Halifax", null, "B3H 1A5", customer));
+        ShoppingCart cart = new ShoppingCart(customer);
+        cart.addProduct(new Product("RTX 4090", "111", 2000.0, 10, 1));
+        cart.addProduct(new Product("Cable | 2m", "222", 15.5, 1, 3));
+        customer.setShoppingCart(cart);
+        Customer bare = new Customer("CUST-2", LocalDate.of(2024, 1, 1), null, null, -0.5);
+
+        StringWriter out = new StringWriter();
+        try (CustomerSnapshotWriter writer = new CustomerSnapshotWriter(out)) {
+            writer.write(customer);
+            writer.write(bare);
+        }
+        List<Customer> customers = new ArrayList<>();
+        new CustomerSnapshotReader(new StringReader(out.toString())).forEach(customers::add);
+
+        assertEquals(2, customers.size());
+        Customer read = customers.get(0);
+        assertEquals("CUST|1", read.getCustomerID());
+        assertEquals(2500, read.getPoints());
+        assertEquals(LocalDate.of(2024, 2, 29), read.getJoinedOn());
+        assertEquals(1234, read.getBalanceMinor());
+        assertEquals("6050 University Ave.\nUnit \\3", read.getAddress().getAddressLine1());
+        assertNull(read.getAddress().getProvince());
+        assertEquals(7, read.getAddress().getId());
+        assertEquals(2, read.getShoppingCart().getItems().size());
+        assertEquals("Cable | 2m", read.getShoppingCart().getProduct("222").getName());
+        assertEquals(cart.getTotalMinor(), read.getShoppingCart().getTotalMinor());
+        assertEquals(cart.getPoints(), read.getShoppingCart().getPoints());
+        assertSame(read, read.getShoppingCart().getCustomer());
+
+        assertNull(customers.get(1).getAddress());
+        assertTrue(customers.get(1).getShoppingCart().getItems().isEmpty());
+        assertEquals(-50, customers.get(1).getBalanceMinor());
+    }
+
+    @Test
+    void test_malformed_customer_is_skipped_with_its_details() {
+        String snapshot = "CUSTOMER-SNAPSHOT|1\n"
+                + "C|CUST-1|not-a-number|2024-01-01|100\n"
+                + "P|RTX 4090|111|200000|10|1\n"
+                + "C|CUST-2|5|2024-01-01|100\n"
+                + "P|Cable|222|1550|1|2\n"
+                + "X|unknown\n";
+
+        List<Customer> customers = new ArrayList<>();
+        new CustomerSnapshotReader(new StringReader(snapshot)).forEach(customers::add);
+
+        assertEquals(1, customers.size());
+        assertEquals("CUST-2", customers.get(0).getCustomerID());
+        assertEquals(3100, customers.get(0).getShoppingCart().getTotalMinor());
+        assertThrows(IllegalArgumentException.class, () -> new CustomerSnapshotReader(new StringReader("CUST-1|5|2024-01-01|1.0\n")));
+    }
+
+    @Test
+    void test_export_and_import_between_repositories() {
+        ConcurrentInMemoryCustomerRepository source = new ConcurrentInMemoryCustomerRepository();
+        for (int i = 0; i < 25; i++) {
+            source.save(new Customer("CUST-" + i, LocalDate.of(2024, 1, 1), new ShoppingCart(null), null, i));
+        }
+        Path file = this.directory.resolve("customers.snapshot");
+
+        assertEquals(25, CustomerSnapshotWriter.export(source, file));
+        ConcurrentInMemoryCustomerRepository target = new ConcurrentInMemoryCustomerRepository();
+        assertEquals(25, CustomerSnapshotReader.importInto(file, target, 10));
+
+        assertEquals(2400, target.findById("CUST-24").orElseThrow().getBalanceMinor());
+    }
+}
@@ -0,0 +1,73 @@
+package org.example.repository;
+
+import org.example.exceptions.CustomerNotFoundException;
+import org.example.exceptions.InsufficientFundsException;
+import org.example.model.Customer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CustomerUpdatesTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void test_concurrent_increments_of_a_hot_customer_are_not_lost() throws IOException {
+        ConcurrentInMemoryCustomerRepository inMemory = new ConcurrentInMemoryCustomerRepository(true);
+        inMemory.save(new Customer("CUST-1", LocalDate.now(), null, null, 0));
+        IntStream.range(0, 10_000).parallel().forEach(i -> inMemory.addPoints("CUST-1", 1));
+        assertEquals(10_000, inMemory.findById("CUST-1").orElseThrow().getPoints());
+
+        try (WriteAheadLogCustomerRepository logged = new WriteAheadLogCustomerRepository(this.directory.resolve("customers.txt").toString())) {
+            logged.save(new Customer("CUST-1", LocalDate.now(), null, null, 0));
+            IntStream.range(0, 200).parallel().forEach(i -> logged.addPoints("CUST-1", 5));
+            assertEquals(1_000, logged.findById("CUST-1").orElseThrow().getPoints());
+        }
+    }
+
+    @Test
+    void test_debit_rejects_insufficient_funds_without_changing_the_customer() throws IOException, InsufficientFundsException {
+        try (IndexedFileCustomerRepository repository = new IndexedFileCustomerRepository(this.directory.resolve("customers.txt").toString())) {
+            repository.save(new Customer("CUST-1", LocalDate.now(), null, null, 10.00));
+
+            Customer debited = repository.debitBalance("CUST-1", 750);
+            assertEquals(250, debited.getBalanceMinor());
+            assertThrows(InsufficientFundsException.class, () -> repository.debitBalance("CUST-1", 251));
+            assertThrows(IllegalArgumentException.class, () -> repository.debitBalance("CUST-1", -1));
+            assertThrows(CustomerNotFoundException.class, () -> repository.debitBalance("CUST-404", 1));
+
+            Customer stored = repository.findById("CUST-1").orElseThrow();
+            assertEquals(250, stored.getBalanceMinor());
+            assertEquals(2, stored.getVersion());
+        }
+    }
+
+    @Test
+    void test_concurrent_debits_never_overdraw() {
+        ConcurrentInMemoryCustomerRepository delegate = new ConcurrentInMemoryCustomerRepository(true);
+        delegate.save(new Customer("CUST-1", LocalDate.now(), null, null, 10.00));
+        // Goes through the caching decorator to the in-place debit of the delegate.
+        ICustomerRepository repository = new CachingCustomerRepository(delegate, 10, CachingCustomerRepository.EvictionPolicy.LRU);
+        AtomicInteger accepted = new AtomicInteger();
+
+        IntStream.range(0, 1_000).parallel().forEach(i -> {
+            try {
+                repository.debitBalance("CUST-1", 3);
+                accepted.incrementAndGet();
+            } catch (InsufficientFundsException e) {
+                // Expected once the balance runs out.
+            }
+        });
+
+        assertEquals(333, accepted.get());
+        assertEquals(1, repository.findById("CUST-1").orElseThrow().getBalanceMinor());
+    }
+}
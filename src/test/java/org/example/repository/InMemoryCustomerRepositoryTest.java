@@ -0,0 +1,74 @@
+package org.example.repository;
+
+import org.example.exceptions.InsufficientFundsException;
+import org.example.exceptions.StaleCustomerVersionException;
+import org.example.model.Customer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryCustomerRepositoryTest {
+
+    @Test
+    void test_find_all_by_id_returns_full_copies() {
+        InMemoryCustomerRepository repository = new InMemoryCustomerRepository();
+        Customer customer = repository.findById("C1001").orElseThrow();
+        customer.setPoints(42);
+        repository.save(customer);
+
+        Map<String, Customer> found = repository.findAllById(List.of("C1001", "C9999"));
+
+        assertEquals(1, found.size());
+        assertEquals(42, found.get("C1001").getPoints());
+        assertNotSame(customer, found.get("C1001"));
+    }
+
+    @Test
+    void test_for_each_visits_full_copies() {
+        InMemoryCustomerRepository repository = new InMemoryCustomerRepository();
+        Customer customer = repository.findById("C1002").orElseThrow();
+        customer.setPoints(7);
+        repository.save(customer);
+
+        List<Customer> visited = new ArrayList<>();
+        repository.forEach(visited::add);
+
+        Customer copy = visited.stream().filter(c -> c.getCustomerID().equals("C1002")).findFirst().orElseThrow();
+        assertEquals(7, copy.getPoints());
+        assertNotSame(customer, copy);
+    }
+
+    @Test
+    void test_concurrent_point_and_balance_updates_are_not_lost() throws InsufficientFundsException {
+        InMemoryCustomerRepository repository = new InMemoryCustomerRepository();
+
+        IntStream.range(0, 1_000).parallel().forEach(i -> {
+            repository.addPoints("C1001", 1);
+            OptimisticRetry.update(repository, "C1002", customer -> customer.setPoints(customer.getPoints() + 1), 1_000);
+        });
+        repository.debitBalance("C1001", 2_500);
+
+        Customer c1001 = repository.findById("C1001").orElseThrow();
+        assertEquals(1_000, c1001.getPoints());
+        assertEquals(7_500, c1001.getBalanceMinor());
+        assertEquals(1_000, repository.findById("C1002").orElseThrow().getPoints());
+        assertThrows(InsufficientFundsException.class, () -> repository.debitBalance("C1001", 7_501));
+        assertEquals(7_500, repository.findById("C1001").orElseThrow().getBalanceMinor());
+    }
+
+    @Test
+    void test_stale_conditional_save_is_rejected() {
+        InMemoryCustomerRepository repository = new InMemoryCustomerRepository();
+        Customer stale = repository.findById("C1001").orElseThrow();
+        repository.addPoints("C1001", 5);
+
+        stale.setPoints(1);
+        assertThrows(StaleCustomerVersionException.class, () -> repository.saveIfCurrent(stale));
+        assertEquals(5, repository.findById("C1001").orElseThrow().getPoints());
+    }
+}
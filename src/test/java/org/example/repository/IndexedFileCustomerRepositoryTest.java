@@ -0,0 +1,88 @@
+package org.example.repository;
+
+import org.example.exceptions.CustomerNotFoundException;
+import org.example.model.Customer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexedFileCustomerRepositoryTest {
+
+    @TempDir
+    Path tempDir;
+
+    private IndexedFileCustomerRepository open(Path file) {
+        return new IndexedFileCustomerRepository(file.toString(), Duration.ofHours(1), 0.5);
+    }
+
+    @Test
+    void test_reads_existing_file_with_last_record_winning() throws IOException {
+        Path file = tempDir.resolve("customers.txt");
+        Files.writeString(file, "CUST-1001|10|2023-08-15|55.75\nCUST-1002|150|2024-01-20|1200.00\nCUST-1002|150|2024-09-20|1200.00");
+
+        try (IndexedFileCustomerRepository repository = open(file)) {
+            Customer customer = repository.findById("CUST-1002").orElseThrow();
+            assertEquals(LocalDate.of(2024, 9, 20), customer.getJoinedOn());
+            assertEquals(10, repository.findById("CUST-1001").orElseThrow().getPoints());
+        }
+    }
+
+    @Test
+    void test_save_and_delete_append_and_survive_reopen() throws IOException {
+        Path file = tempDir.resolve("customers.txt");
+        Files.writeString(file, "CUST-1001|10|2023-08-15|55.75");
+
+        try (IndexedFileCustomerRepository repository = open(file)) {
+            Customer customer = new Customer("CUST-2000", LocalDate.of(2024, 1, 1), null, null, 42.5);
+            customer.setPoints(7);
+            repository.save(customer);
+            repository.delete("CUST-1001");
+        }
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals("CUST-1001|10|2023-08-15|55.75", lines.get(0));
+        assertEquals("CUST-1001|-", lines.get(lines.size() - 1));
+
+        try (IndexedFileCustomerRepository repository = open(file)) {
+            assertEquals(Optional.empty(), repository.findById("CUST-1001"));
+            Customer reloaded = repository.findById("CUST-2000").orElseThrow();
+            assertEquals(7, reloaded.getPoints());
+            assertEquals(42.5, reloaded.getBalance());
+        }
+    }
+
+    @Test
+    void test_delete_of_unknown_customer_throws() throws IOException {
+        try (IndexedFileCustomerRepository repository = open(tempDir.resolve("customers.txt"))) {
+            assertThrows(CustomerNotFoundException.class, () -> repository.delete("CUST-404"));
+        }
+    }
+
+    @Test
+    void test_compaction_keeps_only_live_records() throws IOException {
+        Path file = tempDir.resolve("customers.txt");
+        try (IndexedFileCustomerRepository repository = open(file)) {
+            for (int i = 0; i < 5; i++) {
+                Customer customer = new Customer("CUST-1", LocalDate.of(2024, 1, 1), null, null, i);
+                repository.save(customer);
+            }
+            repository.save(new Customer("CUST-2", LocalDate.of(2024, 2, 1), null, null, 1));
+            repository.delete("CUST-2");
+
+            repository.compact();
+
+            assertEquals(List.of("CUST-1|0|2024-01-01|4.0"), Files.readAllLines(file));
+            assertEquals(4.0, repository.findById("CUST-1").orElseThrow().getBalance());
+            assertEquals(Optional.empty(), repository.findById("CUST-2"));
+        }
+    }
+}
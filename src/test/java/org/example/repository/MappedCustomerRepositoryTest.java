@@ -0,0 +1,54 @@
+package org.example.repository;
+
+import org.example.model.Customer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedCustomerRepositoryTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void test_parses_fields_like_the_text_repository() throws IOException {
+        Path file = tempDir.resolve("customers.txt");
+        Files.writeString(file, "CUST-1001|10|2023-08-15|55.75\r\n"
+                + "CUST-1002|-150|2024-01-20|1.2345678E7\n"
+                + "CUST-1003|2147483647|2024-09-01|0.1\n"
+                + "broken line\n"
+                + "CUST-1004|1|2024-02-30|9.99");
+
+        MappedCustomerRepository repository = new MappedCustomerRepository(file.toString());
+
+        Customer first = repository.findById("CUST-1001").orElseThrow();
+        assertEquals(10, first.getPoints());
+        assertEquals(LocalDate.of(2023, 8, 15), first.getJoinedOn());
+        assertEquals(55.75, first.getBalance());
+        assertEquals(-150, repository.findById("CUST-1002").orElseThrow().getPoints());
+        assertEquals(1.2345678E7, repository.findById("CUST-1002").orElseThrow().getBalance());
+        assertEquals(Integer.MAX_VALUE, repository.findById("CUST-1003").orElseThrow().getPoints());
+        assertEquals(0.1, repository.findById("CUST-1003").orElseThrow().getBalance());
+        assertEquals(Optional.empty(), repository.findById("CUST-1004"));
+        assertEquals(Optional.empty(), repository.findById("CUST-404"));
+    }
+
+    @Test
+    void test_later_records_and_tombstones_win() throws IOException {
+        Path file = tempDir.resolve("customers.txt");
+        Files.writeString(file, "CUST-1|1|2024-01-01|1.0\nCUST-2|2|2024-01-01|2.0\nCUST-1|5|2024-01-01|1.0\nCUST-2|-\n");
+
+        MappedCustomerRepository repository = new MappedCustomerRepository(file.toString());
+
+        assertEquals(5, repository.findById("CUST-1").orElseThrow().getPoints());
+        assertEquals(Optional.empty(), repository.findById("CUST-2"));
+        assertThrows(UnsupportedOperationException.class, () -> repository.delete("CUST-1"));
+    }
+}
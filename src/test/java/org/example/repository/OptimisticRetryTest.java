@@ -0,0 +1,168 @@
+package org.example.repository;
+
+import org.example.exceptions.StaleCustomerVersionException;
+import org.example.model.Customer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OptimisticRetryTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void test_concurrent_retried_updates_are_not_lost() {
+        ConcurrentInMemoryCustomerRepository repository = new ConcurrentInMemoryCustomerRepository(true);
+        repository.save(new Customer("CUST-1", LocalDate.now(), null, null, 0));
+
+        IntStream.range(0, 2_000).parallel().forEach(i ->
+                OptimisticRetry.update(repository, "CUST-1", customer -> customer.setPoints(customer.getPoints() + 1), 1_000));
+
+        Customer stored = repository.findById("CUST-1").orElseThrow();
+        assertEquals(2_000, stored.getPoints());
+        assertEquals(2_001, stored.getVersion());
+    }
+
+    @Test
+    void test_stale_conditional_save_is_rejected() {
+        ConcurrentInMemoryCustomerRepository repository = new ConcurrentInMemoryCustomerRepository(true);
+        repository.save(new Customer("CUST-1", LocalDate.now(), null, null, 0));
+        Customer first = repository.findById("CUST-1").orElseThrow();
+        Customer second = repository.findById("CUST-1").orElseThrow();
+
+        first.setPoints(10);
+        repository.saveIfCurrent(first);
+        second.setPoints(20);
+
+        assertThrows(StaleCustomerVersionException.class, () -> repository.saveIfCurrent(second));
+        assertEquals(10, repository.findById("CUST-1").orElseThrow().getPoints());
+        assertThrows(StaleCustomerVersionException.class,
+                () -> repository.saveIfCurrent(new Customer("CUST-1", LocalDate.now(), null, null, 0)));
+    }
+
+    @Test
+    void test_stored_versions_survive_reopening_a_file_repository() throws IOException {
+        String file = this.directory.resolve("customer_data.txt").toString();
+        try (IndexedFileCustomerRepository repository = new IndexedFileCustomerRepository(file, Duration.ofHours(1), 0.5, true)) {
+            Customer customer = new Customer("CUST-1", LocalDate.now(), null, null, 5);
+            repository.saveIfCurrent(customer);
+            repository.save(customer);
+            assertEquals(2, customer.getVersion());
+        }
+
+        try (IndexedFileCustomerRepository reopened = new IndexedFileCustomerRepository(file, Duration.ofHours(1), 0.5, true)) {
+            Customer stale = reopened.findById("CUST-1").orElseThrow();
+            assertEquals(2, stale.getVersion());
+            OptimisticRetry.update(reopened, "CUST-1", customer -> customer.setBalanceMinor(900));
+            assertThrows(StaleCustomerVersionException.class, () -> reopened.saveIfCurrent(stale));
+            assertEquals(900, new MappedCustomerRepository(file).findById("CUST-1").orElseThrow().getBalanceMinor());
+        }
+    }
+
+    @Test
+    void test_versions_are_kept_in_memory_unless_stored() throws IOException {
+        Path file = this.directory.resolve("customer_data.txt");
+        FileCustomerRepository repository = new FileCustomerRepository(file.toString());
+        repository.save(new Customer("CUST-1", LocalDate.of(2024, 1, 1), null, null, 5));
+        Customer stale = repository.findById("CUST-1").orElseThrow();
+        OptimisticRetry.update(repository, "CUST-1", customer -> customer.setPoints(3));
+
+        assertEquals(List.of("CUST-1|3|2024-01-01|5.0"), Files.readAllLines(file));
+        assertEquals(2, repository.findById("CUST-1").orElseThrow().getVersion());
+        assertThrows(StaleCustomerVersionException.class, () -> repository.saveIfCurrent(stale));
+    }
+
+    @Test
+    void test_shared_instances_do_not_leak_changes_between_retries() {
+        ConcurrentInMemoryCustomerRepository sharing = new ConcurrentInMemoryCustomerRepository();
+        sharing.save(new Customer("CUST-1", LocalDate.now(), null, null, 0));
+        ConcurrentInMemoryCustomerRepository copying = new ConcurrentInMemoryCustomerRepository(true);
+        copying.save(new Customer("CUST-1", LocalDate.now(), null, null, 0));
+        ICustomerRepository cached = new CachingCustomerRepository(copying, 10, CachingCustomerRepository.EvictionPolicy.LRU);
+
+        for (ICustomerRepository repository : List.of(sharing, cached)) {
+            IntStream.range(0, 5_000).parallel().forEach(i ->
+                    OptimisticRetry.update(repository, "CUST-1", customer -> customer.setPoints(customer.getPoints() + 1), 10_000));
+            assertEquals(5_000, repository.findById("CUST-1").orElseThrow().getPoints());
+        }
+
+        Customer stored = sharing.findById("CUST-1").orElseThrow();
+        stored.setPoints(0);
+        assertThrows(IllegalStateException.class, () -> sharing.saveIfCurrent(stored));
+    }
+
+    @Test
+    void test_new_customer_does_not_overwrite_a_record_read_without_a_version() throws IOException {
+        List<Function<String, ICustomerRepository>> openers = List.of(
+                FileCustomerRepository::new,
+                file -> new IndexedFileCustomerRepository(file, Duration.ofHours(1), 0.5),
+                BinaryFileCustomerRepository::new,
+                file -> new WriteAheadLogCustomerRepository(file, 0));
+        for (int i = 0; i < openers.size(); i++) {
+            String file = this.directory.resolve("customers-" + i).toString();
+            ICustomerRepository repository = openers.get(i).apply(file);
+            Customer customer = new Customer("CUST-1", LocalDate.now(), null, null, 5);
+            customer.setPoints(500);
+            repository.save(customer);
+            if (repository instanceof Closeable closeable) {
+                closeable.close();
+            }
+
+            ICustomerRepository reopened = openers.get(i).apply(file);
+            assertEquals(1, reopened.findById("CUST-1").orElseThrow().getVersion());
+            assertThrows(StaleCustomerVersionException.class,
+                    () -> reopened.saveIfCurrent(new Customer("CUST-1", LocalDate.now(), null, null, 0)));
+            assertEquals(500, reopened.findById("CUST-1").orElseThrow().getPoints());
+            OptimisticRetry.update(reopened, "CUST-1", stored -> stored.setPoints(stored.getPoints() + 1));
+            assertEquals(501, reopened.findById("CUST-1").orElseThrow().getPoints());
+            if (reopened instanceof Closeable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    @Test
+    void test_batched_conditional_save_skips_only_stale_customers() throws IOException {
+        List<Function<String, ICustomerRepository>> openers = List.of(
+                FileCustomerRepository::new,
+                file -> new IndexedFileCustomerRepository(file, Duration.ofHours(1), 0.5),
+                BinaryFileCustomerRepository::new,
+                file -> new WriteAheadLogCustomerRepository(file),
+                file -> new ConcurrentInMemoryCustomerRepository(true));
+        for (int i = 0; i < openers.size(); i++) {
+            ICustomerRepository repository = openers.get(i).apply(this.directory.resolve("batch-" + i).toString());
+            repository.saveAll(List.of(
+                    new Customer("CUST-1", LocalDate.now(), null, null, 1),
+                    new Customer("CUST-2", LocalDate.now(), null, null, 2)));
+            Customer first = repository.findById("CUST-1").orElseThrow();
+            Customer second = repository.findById("CUST-2").orElseThrow();
+            repository.addPoints("CUST-2", 7);
+            first.setPoints(1);
+            second.setPoints(2);
+            Customer third = new Customer("CUST-3", LocalDate.now(), null, null, 3);
+
+            assertEquals(Set.of("CUST-2"), repository.saveAllIfCurrent(List.of(first, second, third)));
+            assertEquals(2, first.getVersion());
+            assertEquals(1, third.getVersion());
+            assertEquals(1, repository.findById("CUST-1").orElseThrow().getPoints());
+            assertEquals(7, repository.findById("CUST-2").orElseThrow().getPoints());
+            assertTrue(repository.findById("CUST-3").isPresent());
+            if (repository instanceof Closeable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
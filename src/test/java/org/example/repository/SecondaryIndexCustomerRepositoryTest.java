@@ -0,0 +1,67 @@
+package org.example.repository;
+
+import org.example.model.Customer;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SecondaryIndexCustomerRepositoryTest {
+
+    private static Customer customer(String customerId, int points, long balanceMinor, LocalDate joinedOn) {
+        Customer customer = new Customer(customerId, joinedOn, null, null, 0);
+        customer.setPoints(points);
+        customer.setBalanceMinor(balanceMinor);
+        return customer;
+    }
+
+    private static List<String> ids(List<Customer> customers) {
+        return customers.stream().map(Customer::getCustomerID).toList();
+    }
+
+    @Test
+    void test_existing_customers_are_indexed_and_ranges_are_ordered() {
+        ConcurrentInMemoryCustomerRepository delegate = new ConcurrentInMemoryCustomerRepository(true);
+        delegate.save(customer("CUST-1", 15_000, 500, LocalDate.of(2024, 5, 1)));
+        delegate.save(customer("CUST-2", 9_000, 100, LocalDate.of(2024, 6, 1)));
+        delegate.save(customer("CUST-3", 10_000, 900, LocalDate.of(2023, 1, 1)));
+        SecondaryIndexCustomerRepository repository = new SecondaryIndexCustomerRepository(delegate);
+
+        assertEquals(List.of("CUST-3", "CUST-1"), ids(repository.findByPointsBetween(10_000, Integer.MAX_VALUE)));
+        assertEquals(List.of("CUST-2", "CUST-1"), ids(repository.findByBalanceBetween(0, 500)));
+        assertEquals(List.of("CUST-1", "CUST-2"),
+                ids(repository.findByJoinedBetween(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31))));
+        assertTrue(repository.findByPointsBetween(20_000, 10_000).isEmpty());
+    }
+
+    @Test
+    void test_indexes_follow_saves_and_deletes() {
+        SecondaryIndexCustomerRepository repository = new SecondaryIndexCustomerRepository(new ConcurrentInMemoryCustomerRepository(true));
+        repository.save(customer("CUST-1", 100, 0, LocalDate.of(2024, 1, 1)));
+        repository.saveAll(List.of(
+                customer("CUST-2", 200, 0, LocalDate.of(2024, 1, 1)),
+                customer("CUST-3", 300, 0, LocalDate.of(2024, 1, 1))));
+
+        repository.save(customer("CUST-1", 5_000, 0, LocalDate.of(2024, 1, 1)));
+        repository.delete("CUST-2");
+
+        assertEquals(List.of("CUST-3"), ids(repository.findByPointsBetween(0, 1_000)));
+        assertEquals(List.of("CUST-1"), ids(repository.findByPointsBetween(1_000, 10_000)));
+        assertEquals(List.of("CUST-3", "CUST-1"), ids(repository.findByPointsBetween(0, 10_000)));
+    }
+
+    @Test
+    void test_unsaved_changes_do_not_produce_false_matches() {
+        ConcurrentInMemoryCustomerRepository delegate = new ConcurrentInMemoryCustomerRepository();
+        SecondaryIndexCustomerRepository repository = new SecondaryIndexCustomerRepository(delegate);
+        Customer customer = customer("CUST-1", 100, 0, LocalDate.of(2024, 1, 1));
+        repository.save(customer);
+
+        // The delegate hands out the stored instance, so this change is visible without a save.
+        customer.setPoints(50_000);
+
+        assertTrue(repository.findByPointsBetween(0, 1_000).isEmpty());
+    }
+}
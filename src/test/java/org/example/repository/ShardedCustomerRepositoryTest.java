@@ -0,0 +1,95 @@
+package org.example.repository;
+
+import org.example.exceptions.CustomerNotFoundException;
+import org.example.model.Customer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedCustomerRepositoryTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void test_point_operations_touch_only_the_owning_shard() throws CustomerNotFoundException {
+        List<ConcurrentInMemoryCustomerRepository> shards = new ArrayList<>();
+        try (ShardedCustomerRepository repository = new ShardedCustomerRepository(4, shard -> {
+            ConcurrentInMemoryCustomerRepository repo = new ConcurrentInMemoryCustomerRepository();
+            shards.add(repo);
+            return repo;
+        })) {
+            repository.save(new Customer("CUST-1", LocalDate.now(), null, null, 10));
+
+            int owner = repository.shardOf("CUST-1");
+            for (int shard = 0; shard < shards.size(); shard++) {
+                assertEquals(shard == owner, shards.get(shard).findById("CUST-1").isPresent());
+            }
+            assertEquals(1000, repository.findById("CUST-1").orElseThrow().getBalanceMinor());
+
+            repository.delete("CUST-1");
+            assertTrue(repository.findById("CUST-1").isEmpty());
+            assertThrows(CustomerNotFoundException.class, () -> repository.delete("CUST-1"));
+        }
+    }
+
+    @Test
+    void test_bulk_load_and_scan_across_shard_files() {
+        List<Customer> customers = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            Customer customer = new Customer("CUST-" + i, LocalDate.of(2024, 1, 1), null, null, i);
+            customer.setPoints(i);
+            customers.add(customer);
+        }
+        try (ShardedCustomerRepository repository = new ShardedCustomerRepository(this.directory.toString(), 3)) {
+            repository.saveAll(customers);
+        }
+
+        try (ShardedCustomerRepository reopened = new ShardedCustomerRepository(this.directory.toString(), 3)) {
+            Set<String> seen = new HashSet<>();
+            long[] points = new long[1];
+            reopened.forEach(customer -> {
+                seen.add(customer.getCustomerID());
+                points[0] += customer.getPoints();
+            });
+            assertEquals(1_000, seen.size());
+            assertEquals(999 * 1_000 / 2, points[0]);
+
+            Map<String, Customer> found = reopened.findAllById(List.of("CUST-7", "CUST-500", "CUST-404404"));
+            assertEquals(Set.of("CUST-7", "CUST-500"), found.keySet());
+            assertEquals(500, found.get("CUST-500").getPoints());
+        }
+        assertEquals(3, this.directory.toFile().list().length);
+    }
+
+    @Test
+    void test_scan_action_may_write_to_other_shards() throws CustomerNotFoundException {
+        try (ShardedCustomerRepository repository = new ShardedCustomerRepository(this.directory.toString(), 4)) {
+            for (int i = 0; i < 40; i++) {
+                repository.save(new Customer("CUST-" + i, LocalDate.of(2024, 1, 1), null, null, 0));
+            }
+            int target = repository.shardOf("CUST-0");
+            int[] others = new int[1];
+
+            assertTimeoutPreemptively(Duration.ofSeconds(10), () -> repository.forEach(customer -> {
+                if (repository.shardOf(customer.getCustomerID()) != target) {
+                    others[0]++;
+                    assertDoesNotThrow(() -> repository.addPoints("CUST-0", 1));
+                }
+            }));
+
+            assertTrue(others[0] > 0);
+            assertEquals(others[0], repository.findById("CUST-0").orElseThrow().getPoints());
+        }
+    }
+}
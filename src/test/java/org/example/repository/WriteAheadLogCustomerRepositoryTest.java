@@ -0,0 +1,92 @@
+package org.example.repository;
+
+import org.example.exceptions.CustomerNotFoundException;
+import org.example.model.Customer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WriteAheadLogCustomerRepositoryTest {
+
+    @TempDir
+    Path directory;
+
+    private static Customer customer(String customerId, int points) {
+        Customer customer = new Customer(customerId, LocalDate.of(2024, 1, 1), null, null, 12.5);
+        customer.setPoints(points);
+        return customer;
+    }
+
+    @Test
+    void test_changes_are_recovered_from_the_log_without_a_checkpoint() throws IOException, CustomerNotFoundException {
+        Path file = this.directory.resolve("customer_data.txt");
+        try (WriteAheadLogCustomerRepository repository = new WriteAheadLogCustomerRepository(file.toString())) {
+            repository.save(customer("CUST-1", 10));
+            repository.saveAll(List.of(customer("CUST-2", 20), customer("CUST-3", 30)));
+            repository.save(customer("CUST-1", 11));
+            repository.delete("CUST-2");
+        }
+        assertFalse(Files.exists(file));
+
+        try (WriteAheadLogCustomerRepository reopened = new WriteAheadLogCustomerRepository(file.toString())) {
+            assertEquals(11, reopened.findById("CUST-1").orElseThrow().getPoints());
+            assertTrue(reopened.findById("CUST-2").isEmpty());
+            assertEquals(1250, reopened.findById("CUST-3").orElseThrow().getBalanceMinor());
+        }
+    }
+
+    @Test
+    void test_torn_log_tail_is_discarded_on_recovery() throws IOException {
+        Path file = this.directory.resolve("customer_data.txt");
+        Path log = this.directory.resolve("customer_data.txt.wal");
+        try (WriteAheadLogCustomerRepository repository = new WriteAheadLogCustomerRepository(file.toString())) {
+            repository.save(customer("CUST-1", 10));
+        }
+        long intact = Files.size(log);
+        // A crash in the middle of the next append leaves half a line behind.
+        Files.write(log, "0badc0de|S|CUST-2|20|2024-01-0".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        try (WriteAheadLogCustomerRepository reopened = new WriteAheadLogCustomerRepository(file.toString())) {
+            assertTrue(reopened.findById("CUST-1").isPresent());
+            assertTrue(reopened.findById("CUST-2").isEmpty());
+            assertEquals(intact, Files.size(log));
+            reopened.save(customer("CUST-3", 30));
+        }
+        try (WriteAheadLogCustomerRepository reopened = new WriteAheadLogCustomerRepository(file.toString())) {
+            assertTrue(reopened.findById("CUST-3").isPresent());
+        }
+    }
+
+    @Test
+    void test_checkpoint_replaces_the_file_and_empties_the_log() throws IOException {
+        Path file = this.directory.resolve("customer_data.txt");
+        try (WriteAheadLogCustomerRepository repository = new WriteAheadLogCustomerRepository(file.toString(), 1_000)) {
+            for (int i = 0; i < 100; i++) {
+                repository.save(customer("CUST-" + i, i));
+            }
+            assertTrue(repository.getLogSize() < 1_000);
+        }
+        assertTrue(Files.exists(file));
+        assertFalse(Files.exists(this.directory.resolve("customer_data.txt.tmp")));
+
+        // The checkpoint is a plain customer file that the other repositories can read.
+        FileCustomerRepository plain = new FileCustomerRepository(file.toString());
+        int[] count = new int[1];
+        try (WriteAheadLogCustomerRepository reopened = new WriteAheadLogCustomerRepository(file.toString())) {
+            reopened.forEach(customer -> count[0]++);
+            reopened.checkpoint();
+            assertEquals(0, reopened.getLogSize());
+        }
+        assertEquals(100, count[0]);
+        assertEquals(99, plain.findById("CUST-99").orElseThrow().getPoints());
+    }
+}
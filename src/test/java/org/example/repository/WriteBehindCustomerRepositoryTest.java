@@ -0,0 +1,156 @@
+package org.example.repository;
+
+import org.example.exceptions.CustomerNotFoundException;
+import org.example.model.Customer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class WriteBehindCustomerRepositoryTest {
+
+    private ICustomerRepository delegate;
+    private WriteBehindCustomerRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        delegate = mock(ICustomerRepository.class);
+        when(delegate.findById(anyString())).thenReturn(Optional.empty());
+        repository = new WriteBehindCustomerRepository(delegate, 100, Duration.ofHours(1));
+    }
+
+    @Test
+    void test_repeated_saves_are_coalesced_into_one_batch() throws Exception {
+        Customer first = new Customer("CUST-1", LocalDate.now(), null, null, 10);
+        Customer second = new Customer("CUST-1", LocalDate.now(), null, null, 20);
+        Customer other = new Customer("CUST-2", LocalDate.now(), null, null, 30);
+
+        CompletableFuture<Void> firstWritten = repository.saveAsync(first);
+        repository.saveAsync(second);
+        repository.saveAsync(other);
+
+        assertSame(second, repository.findById("CUST-1").orElseThrow());
+        verify(delegate, never()).saveAllAndDeleteAll(anyList(), anyList());
+
+        repository.flush();
+
+        firstWritten.get(1, TimeUnit.SECONDS);
+        verify(delegate, times(1)).saveAllAndDeleteAll(List.of(second, other), List.of());
+        verify(delegate, never()).save(any());
+    }
+
+    @Test
+    void test_batch_is_flushed_when_size_threshold_is_reached() throws Exception {
+        repository = new WriteBehindCustomerRepository(delegate, 2, Duration.ofHours(1));
+        repository.saveAsync(new Customer("CUST-1", LocalDate.now(), null, null, 10));
+        CompletableFuture<Void> written = repository.saveAsync(new Customer("CUST-2", LocalDate.now(), null, null, 10));
+
+        written.get(5, TimeUnit.SECONDS);
+        verify(delegate, times(1)).saveAllAndDeleteAll(anyList(), anyList());
+    }
+
+    @Test
+    void test_save_then_delete_only_deletes() {
+        repository.save(new Customer("CUST-1", LocalDate.now(), null, null, 10));
+        repository.delete("CUST-1");
+
+        assertEquals(Optional.empty(), repository.findById("CUST-1"));
+        assertThrows(CustomerNotFoundException.class, () -> repository.delete("CUST-1"));
+
+        repository.flush();
+        verify(delegate, times(1)).saveAllAndDeleteAll(List.of(), List.of("CUST-1"));
+        verify(delegate, never()).delete(anyString());
+    }
+
+    @Test
+    void test_saves_and_deletes_are_written_together() {
+        Customer saved = new Customer("CUST-1", LocalDate.now(), null, null, 10);
+        when(delegate.findById("CUST-2")).thenReturn(Optional.of(new Customer("CUST-2", LocalDate.now(), null, null, 10)));
+
+        repository.save(saved);
+        repository.delete("CUST-2");
+        repository.flush();
+
+        verify(delegate, times(1)).saveAllAndDeleteAll(List.of(saved), List.of("CUST-2"));
+        verifyNoMoreInteractions(ignoreStubs(delegate));
+    }
+
+    @Test
+    void test_failed_batch_is_reported_by_flush_and_written_later() {
+        doThrow(new RuntimeException("disk full")).when(delegate).saveAllAndDeleteAll(anyList(), anyList());
+        CompletableFuture<Void> written = repository.saveAsync(new Customer("CUST-1", LocalDate.now(), null, null, 10));
+
+        assertThrows(IllegalStateException.class, () -> repository.flush());
+        assertTrue(written.isCompletedExceptionally());
+
+        Customer failed = repository.findById("CUST-1").orElseThrow();
+        Customer other = new Customer("CUST-2", LocalDate.now(), null, null, 10);
+        repository.save(other);
+        doNothing().when(delegate).saveAllAndDeleteAll(anyList(), anyList());
+        repository.flush();
+        verify(delegate).saveAllAndDeleteAll(List.of(failed, other), List.of());
+    }
+
+    @Test
+    void test_failed_batch_stays_queued_and_is_retried() throws Exception {
+        List<List<Customer>> batches = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            batches.add(List.copyOf(invocation.<List<Customer>>getArgument(0)));
+            if (batches.size() == 1) {
+                throw new RuntimeException("disk full");
+            }
+            return null;
+        }).when(delegate).saveAllAndDeleteAll(anyList(), anyList());
+        repository = new WriteBehindCustomerRepository(delegate, 1, Duration.ofMillis(500));
+        Customer failed = new Customer("CUST-1", LocalDate.now(), null, null, 10);
+        CompletableFuture<Void> written = repository.saveAsync(failed);
+        assertThrows(ExecutionException.class, () -> written.get(5, TimeUnit.SECONDS));
+
+        // Still queued, and the next save is not rejected because of it.
+        assertSame(failed, repository.findById("CUST-1").orElseThrow());
+        repository.saveAsync(new Customer("CUST-2", LocalDate.now(), null, null, 10)).get(5, TimeUnit.SECONDS);
+        repository.flush();
+
+        assertTrue(batches.subList(1, batches.size()).stream().anyMatch(batch -> batch.contains(failed)));
+    }
+
+    @Test
+    void test_newer_write_wins_over_a_failed_one() {
+        doThrow(new RuntimeException("disk full")).when(delegate).saveAllAndDeleteAll(anyList(), anyList());
+        repository.save(new Customer("CUST-1", LocalDate.now(), null, null, 10));
+        assertThrows(IllegalStateException.class, () -> repository.flush());
+
+        Customer newer = new Customer("CUST-1", LocalDate.now(), null, null, 20);
+        repository.save(newer);
+        assertSame(newer, repository.findById("CUST-1").orElseThrow());
+        doNothing().when(delegate).saveAllAndDeleteAll(anyList(), anyList());
+        repository.flush();
+
+        verify(delegate).saveAllAndDeleteAll(List.of(newer), List.of());
+    }
+
+    @Test
+    void test_atomic_updates_apply_to_the_queued_state() throws Exception {
+        try (WriteBehindCustomerRepository writeBehind = new WriteBehindCustomerRepository(
+                new ConcurrentInMemoryCustomerRepository(true), 100, Duration.ofHours(1))) {
+            Customer customer = new Customer("CUST-1", LocalDate.now(), null, null, 10);
+            customer.setPoints(5);
+            writeBehind.save(customer);
+
+            assertEquals(6, writeBehind.addPoints("CUST-1", 1).getPoints());
+            assertEquals(900, writeBehind.debitBalance("CUST-1", 100).getBalanceMinor());
+            OptimisticRetry.update(writeBehind, "CUST-1", stored -> stored.setPoints(stored.getPoints() + 1));
+            assertEquals(7, writeBehind.findById("CUST-1").orElseThrow().getPoints());
+        }
+    }
+}
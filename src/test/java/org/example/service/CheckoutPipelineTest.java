@@ -0,0 +1,218 @@
+package org.example.service;
+
+import org.example.model.Customer;
+import org.example.model.Product;
+import org.example.model.ShoppingCart;
+import org.example.repository.ConcurrentInMemoryCustomerRepository;
+import org.example.repository.WriteBehindCustomerRepository;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CheckoutPipelineTest {
+
+    private static Customer customer(String customerId, double balance, double price, int points) {
+        Customer customer = new Customer(customerId, LocalDate.of(2024, 1, 1), null, null, balance);
+        ShoppingCart cart = new ShoppingCart(customer);
+        cart.addProduct(new Product("Keyboard", "KB-1", price, points, 1));
+        customer.setShoppingCart(cart);
+        return customer;
+    }
+
+    @Test
+    void test_checkout_debits_awards_persists_audits_and_prints() {
+        ConcurrentInMemoryCustomerRepository repository = new ConcurrentInMemoryCustomerRepository(true);
+        repository.save(customer("CUST-1", 500.00, 100.00, 40));
+        IAuditService auditService = mock(IAuditService.class, CALLS_REAL_METHODS);
+        ByteArrayOutputStream receipts = new ByteArrayOutputStream();
+
+        CheckoutResult result;
+        try (CheckoutPipeline pipeline = new CheckoutPipeline(repository, auditService, new PrintStream(receipts, true, StandardCharsets.UTF_8))) {
+            result = pipeline.submit("CUST-1").join();
+        }
+
+        assertEquals(CheckoutResult.Status.COMPLETED, result.getStatus());
+        assertEquals(115.0, result.getTotal());
+        assertEquals(40, result.getPointsAwarded());
+        Customer stored = repository.findById("CUST-1").orElseThrow();
+        assertEquals(38_500, stored.getBalanceMinor());
+        assertEquals(40, stored.getPoints());
+        verify(auditService).logInfo(eq("CHECKOUT_BATCH"), eq("1 checkouts completed, 0 rejected, 0 failed, total 115.00"));
+        assertTrue(receipts.toString(StandardCharsets.UTF_8).contains("Keyboard"));
+    }
+
+    @Test
+    void test_rejected_checkouts_change_nothing() {
+        ConcurrentInMemoryCustomerRepository repository = new ConcurrentInMemoryCustomerRepository(true);
+        repository.save(customer("CUST-1", 10.00, 100.00, 40));
+
+        CheckoutResult poor;
+        CheckoutResult unknown;
+        CheckoutPipeline pipeline = new CheckoutPipeline(repository, mock(IAuditService.class, CALLS_REAL_METHODS), null);
+        try {
+            poor = pipeline.submit("CUST-1").join();
+            unknown = pipeline.submit("CUST-404").join();
+        } finally {
+            pipeline.close();
+        }
+        assertThrows(IllegalStateException.class, () -> pipeline.submit("CUST-1"));
+
+        assertEquals(CheckoutResult.Status.INSUFFICIENT_FUNDS, poor.getStatus());
+        assertEquals(0, poor.getPointsAwarded());
+        assertEquals(CheckoutResult.Status.CUSTOMER_NOT_FOUND, unknown.getStatus());
+        Customer stored = repository.findById("CUST-1").orElseThrow();
+        assertEquals(1_000, stored.getBalanceMinor());
+        assertEquals(0, stored.getPoints());
+    }
+
+    @Test
+    void test_concurrent_checkouts_of_one_customer_are_batched_without_lost_debits() {
+        ConcurrentInMemoryCustomerRepository repository = spy(new ConcurrentInMemoryCustomerRepository(true));
+        repository.save(customer("CUST-1", 5_000.00, 9.99, 0));
+        for (int i = 0; i < 50; i++) {
+            repository.save(customer("CUST-" + (i + 2), 1_000.00, 9.99, 1));
+        }
+        // A slow save lets the orders queue up in front of the persist stage.
+        doAnswer(invocation -> {
+            Thread.sleep(1);
+            return invocation.callRealMethod();
+        }).when(repository).saveAllIfCurrent(anyCollection());
+
+        List<CheckoutResult> results = new ArrayList<>();
+        try (CheckoutPipeline pipeline = new CheckoutPipeline(repository, mock(IAuditService.class, CALLS_REAL_METHODS), null, 16, 8)) {
+            List<CompletableFuture<CheckoutResult>> futures = IntStream.range(0, 400).parallel()
+                    .mapToObj(i -> pipeline.submit(i % 2 == 0 ? "CUST-1" : "CUST-" + (2 + i % 50)))
+                    .toList();
+            futures.forEach(future -> results.add(future.join()));
+        }
+
+        long debited = results.stream()
+                .filter(result -> result.getCustomerID().equals("CUST-1") && result.getStatus() == CheckoutResult.Status.COMPLETED)
+                .mapToLong(CheckoutResult::getTotalMinor)
+                .sum();
+        long completed = results.stream().filter(result -> result.getStatus() == CheckoutResult.Status.COMPLETED).count();
+        assertEquals(400, completed);
+        // 200 checkouts of 11.49 each.
+        assertEquals(229_800, debited);
+        assertEquals(500_000 - debited, repository.findById("CUST-1").orElseThrow().getBalanceMinor());
+        // Every odd i with i % 50 == 1 checks CUST-3 out: 8 checkouts of 1 point.
+        assertEquals(8, repository.findById("CUST-3").orElseThrow().getPoints());
+        // Without batching, each of the 400 checkouts would be saved on its own.
+        verify(repository, atMost(400 / 2)).saveAllIfCurrent(anyCollection());
+    }
+
+    @Test
+    void test_changes_by_other_writers_are_not_overwritten() {
+        ConcurrentInMemoryCustomerRepository repository = new ConcurrentInMemoryCustomerRepository(true);
+        repository.save(customer("CUST-1", 5_000.00, 9.99, 1));
+
+        List<CheckoutResult> results = new ArrayList<>();
+        try (CheckoutPipeline pipeline = new CheckoutPipeline(repository, mock(IAuditService.class, CALLS_REAL_METHODS), null, 16, 8)) {
+            List<CompletableFuture<CheckoutResult>> futures = IntStream.range(0, 200).parallel()
+                    .mapToObj(i -> {
+                        repository.addPoints("CUST-1", 1_000);
+                        return pipeline.submit("CUST-1");
+                    })
+                    .toList();
+            futures.forEach(future -> results.add(future.join()));
+        }
+
+        assertTrue(results.stream().allMatch(result -> result.getStatus() == CheckoutResult.Status.COMPLETED));
+        // The points of the other writer lower the totals, as they count towards the loyalty discount.
+        long debited = results.stream().mapToLong(CheckoutResult::getTotalMinor).sum();
+        Customer stored = repository.findById("CUST-1").orElseThrow();
+        assertEquals(200 * 1_000 + 200, stored.getPoints());
+        assertEquals(500_000 - debited, stored.getBalanceMinor());
+    }
+
+    @Test
+    void test_failed_checkout_gives_its_debit_back_to_later_orders() throws InterruptedException {
+        ConcurrentInMemoryCustomerRepository repository = spy(new ConcurrentInMemoryCustomerRepository(true));
+        repository.save(customer("CUST-1", 230.00, 100.00, 40));
+        repository.save(customer("CUST-2", 100.00, 1.00, 1));
+        repository.save(customer("CUST-3", 100.00, 1.00, 1));
+        // The debit stage looks up CUST-2 and CUST-3 once the order before them has been debited.
+        CountDownLatch secondDebited = new CountDownLatch(1);
+        CountDownLatch thirdDebited = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            Collection<String> customerIds = invocation.getArgument(0);
+            if (Thread.currentThread().getName().equals("checkout-debit")) {
+                if (customerIds.contains("CUST-2")) {
+                    secondDebited.countDown();
+                } else if (customerIds.contains("CUST-3")) {
+                    thirdDebited.countDown();
+                }
+            }
+            return invocation.callRealMethod();
+        }).when(repository).findAllById(anyCollection());
+        // The first save of CUST-1 fails once the second order holds its debit, the second
+        // waits until the third order has been debited.
+        AtomicInteger saves = new AtomicInteger();
+        doAnswer(invocation -> {
+            Customer customer = invocation.getArgument(0);
+            if (customer.getCustomerID().equals("CUST-1")) {
+                int save = saves.incrementAndGet();
+                if (save == 1) {
+                    secondDebited.await(10, TimeUnit.SECONDS);
+                    throw new IllegalStateException("disk full");
+                } else if (save == 2) {
+                    thirdDebited.await(10, TimeUnit.SECONDS);
+                }
+            }
+            return invocation.callRealMethod();
+        }).when(repository).saveIfCurrent(any());
+
+        CheckoutResult first;
+        CheckoutResult second;
+        CheckoutResult third;
+        try (CheckoutPipeline pipeline = new CheckoutPipeline(repository, mock(IAuditService.class, CALLS_REAL_METHODS), null, 16, 1)) {
+            CompletableFuture<CheckoutResult> firstFuture = pipeline.submit("CUST-1");
+            CompletableFuture<CheckoutResult> secondFuture = pipeline.submit("CUST-1");
+            pipeline.submit("CUST-2");
+            first = firstFuture.join();
+            CompletableFuture<CheckoutResult> thirdFuture = pipeline.submit("CUST-1");
+            pipeline.submit("CUST-3");
+            second = secondFuture.join();
+            third = thirdFuture.join();
+        }
+
+        assertEquals(CheckoutResult.Status.FAILED, first.getStatus());
+        assertEquals(CheckoutResult.Status.COMPLETED, second.getStatus());
+        assertEquals(CheckoutResult.Status.COMPLETED, third.getStatus());
+        Customer stored = repository.findById("CUST-1").orElseThrow();
+        assertEquals(0, stored.getBalanceMinor());
+        assertEquals(80, stored.getPoints());
+    }
+
+    @Test
+    void test_checkout_through_a_write_behind_repository() {
+        ConcurrentInMemoryCustomerRepository stored = new ConcurrentInMemoryCustomerRepository(true);
+        stored.save(customer("CUST-1", 500.00, 100.00, 40));
+
+        CheckoutResult result;
+        try (WriteBehindCustomerRepository repository = new WriteBehindCustomerRepository(stored);
+             CheckoutPipeline pipeline = new CheckoutPipeline(repository, mock(IAuditService.class, CALLS_REAL_METHODS), null)) {
+            repository.save(stored.findById("CUST-1").orElseThrow());
+            result = pipeline.submit("CUST-1").join();
+        }
+
+        assertEquals(CheckoutResult.Status.COMPLETED, result.getStatus());
+        assertEquals(38_500, stored.findById("CUST-1").orElseThrow().getBalanceMinor());
+        assertEquals(40, stored.findById("CUST-1").orElseThrow().getPoints());
+    }
+}
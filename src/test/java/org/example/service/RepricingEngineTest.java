@@ -0,0 +1,74 @@
+package org.example.service;
+
+import org.example.model.Customer;
+import org.example.model.Product;
+import org.example.model.ShoppingCart;
+import org.example.repository.ICustomerRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RepricingEngineTest {
+
+    private static List<Customer> randomCustomers(int count) {
+        Random random = new Random(42);
+        List<Customer> customers = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Customer customer = new Customer("CUST-" + i, LocalDate.now(), null, null, 0);
+            customer.setPoints(random.nextInt(30_000));
+            ShoppingCart cart = new ShoppingCart(customer);
+            for (int line = random.nextInt(4); line >= 0; line--) {
+                cart.addProduct(new Product("P" + line, "S" + line, random.nextInt(100_000) / 100.0, random.nextInt(10), 1 + random.nextInt(3)));
+            }
+            customer.setShoppingCart(cart);
+            customers.add(customer);
+        }
+        return customers;
+    }
+
+    @Test
+    void test_parallel_run_matches_sequential_run_exactly() {
+        List<Customer> customers = randomCustomers(10_000);
+        RepricingEngine engine = new RepricingEngine(4, 100, 250.0, 20);
+
+        RepricingResult parallel = engine.reprice(customers);
+        RepricingResult sequential = engine.repriceSequentially(customers);
+
+        assertEquals(sequential.size(), parallel.size());
+        for (int i = 0; i < customers.size(); i++) {
+            assertEquals(sequential.getTotal(i), parallel.getTotal(i));
+            assertEquals(sequential.getPoints(i), parallel.getPoints(i));
+        }
+        assertEquals(sequential.getSummary().getSum(), parallel.getSummary().getSum());
+        assertEquals(sequential.getSummary().getMin(), parallel.getSummary().getMin());
+        assertEquals(sequential.getSummary().getMax(), parallel.getSummary().getMax());
+        assertEquals(sequential.getSummary().getTotalPoints(), parallel.getSummary().getTotalPoints());
+        assertArrayEquals(sequential.getSummary().getHistogram(), parallel.getSummary().getHistogram());
+        assertEquals(10_000, parallel.getSummary().getCount());
+    }
+
+    @Test
+    void test_totals_match_calculate_total() {
+        List<Customer> customers = randomCustomers(50);
+        ICustomerRepository repository = mock(ICustomerRepository.class);
+        for (Customer customer : customers) {
+            when(repository.findById(customer.getCustomerID())).thenReturn(Optional.of(customer));
+        }
+        ShoppingCartService service = new ShoppingCartService(repository, mock(IAuditService.class));
+
+        RepricingResult result = new RepricingEngine(2, 8, 100.0, 10).reprice(customers);
+
+        for (int i = 0; i < customers.size(); i++) {
+            assertEquals(customers.get(i).getCustomerID(), result.getCustomerID(i));
+            assertEquals(service.calculateTotal(result.getCustomerID(i)), result.getTotal(i));
+            assertEquals(customers.get(i).getShoppingCart().getPoints(), result.getPoints(i));
+        }
+    }
+}
@@ -8,6 +8,8 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -49,7 +51,7 @@ class ShoppingCartServiceTest {
     @BeforeEach
     void setUp() {
         customerRepository = mock(ICustomerRepository.class);
-        auditService = mock(IAuditService.class);
+        auditService = mock(IAuditService.class, CALLS_REAL_METHODS);
         shoppingCartService = new ShoppingCartService(customerRepository, auditService);
     }
 
@@ -113,4 +115,30 @@ class ShoppingCartServiceTest {
         assertEquals(expectedTotal, actualTotal);
     }
 
-}
\ No newline at end of file
+    @Test
+    void test_calculate_totals_fetches_batch_once_and_audits_once() {
+        Customer first = new Customer("CUST-1008", LocalDate.now(), null, null, 1000);
+        ShoppingCart firstCart = new ShoppingCart(first);
+        firstCart.addProduct(new Product("RTX 4090", "111", 2000.0, 0, 1));
+        first.setShoppingCart(firstCart);
+        Customer second = new Customer("CUST-1009", LocalDate.now(), null, null, 1000);
+        second.setPoints(2500);
+        ShoppingCart secondCart = new ShoppingCart(second);
+        secondCart.addProduct(new Product("RTX 4090", "111", 2000.0, 0, 1));
+        second.setShoppingCart(secondCart);
+        List<String> ids = List.of("CUST-1009", "CUST-404", "CUST-1008");
+
+        when(this.customerRepository.findAllById(ids)).thenReturn(Map.of("CUST-1008", first, "CUST-1009", second));
+        Map<String, Double> totals = this.shoppingCartService.calculateTotals(ids);
+
+        assertEquals(List.of("CUST-1009", "CUST-1008"), List.copyOf(totals.keySet()));
+        assertEquals(2242.5, totals.get("CUST-1009"));
+        assertEquals(2300.0, totals.get("CUST-1008"));
+        verify(this.customerRepository, never()).findById(anyString());
+        verify(this.auditService, times(1)).logInfo(
+                eq("BATCH_CALCULATION_SUCCESS"),
+                contains("2 totals calculated, 1 customers not found, sum 4542.5")
+        );
+    }
+
+}